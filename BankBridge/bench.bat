@@ -0,0 +1,55 @@
+@echo off
+REM BankBridge Benchmark Script for Windows
+REM Compiles the JMH benchmarks in bench\ and runs them on a throwaway database.
+REM Arguments are passed on to JMH, e.g. bench.bat RowMapper -f 1
+
+echo ======================================
+echo   BankBridge Benchmarks
+echo ======================================
+echo.
+
+REM Check if JMH exists
+if not exist "lib\jmh\jmh-core-*.jar" (
+    echo [X] Error: JMH not found in lib\jmh\ directory
+    echo See lib\DOWNLOAD_JMH.txt for the jars to download
+    pause
+    exit /b 1
+)
+
+echo [+] JMH found
+echo.
+
+REM Check if compiled
+if not exist "out\Main.class" (
+    echo Application not compiled. Running compilation first...
+    echo.
+    call compile.bat
+    if %errorlevel% neq 0 (
+        echo [X] Compilation failed. Cannot run benchmarks.
+        pause
+        exit /b 1
+    )
+)
+
+REM Compile the benchmarks; JMH's annotation processor generates the harness classes
+echo Compiling benchmarks...
+if exist "out-bench" rmdir /s /q out-bench
+mkdir out-bench
+dir /s /b bench\*.java > "%TEMP%\bankbridge-bench-sources.txt"
+javac -cp "out;lib\sqlite-jdbc.jar;lib\jmh\*" -processor org.openjdk.jmh.generators.BenchmarkProcessor -d out-bench @"%TEMP%\bankbridge-bench-sources.txt"
+if %errorlevel% neq 0 (
+    echo [X] Compilation failed for benchmarks
+    pause
+    exit /b 1
+)
+echo [+] Benchmarks compiled
+echo.
+
+REM Run from a scratch directory, whose database\bank.db each fork recreates
+set "ROOT=%CD%"
+set "WORK=%TEMP%\bankbridge-bench-%RANDOM%"
+mkdir "%WORK%"
+pushd "%WORK%"
+java -cp "%ROOT%\out-bench;%ROOT%\out;%ROOT%\lib\sqlite-jdbc.jar;%ROOT%\lib\jmh\*" org.openjdk.jmh.Main -rf json -rff "%ROOT%\benchmark-results.json" %*
+popd
+rmdir /s /q "%WORK%"
@@ -0,0 +1,52 @@
+#!/bin/bash
+
+# BankBridge Benchmark Script
+# This script compiles the JMH benchmarks in bench/ and runs them on a throwaway
+# database. Arguments are passed on to JMH, e.g. ./bench.sh RowMapper -f 1
+
+echo "======================================"
+echo "  BankBridge Benchmarks"
+echo "======================================"
+echo ""
+
+# Check if JMH exists
+if ! ls lib/jmh/jmh-core-*.jar &> /dev/null || ! ls lib/jmh/jmh-generator-annprocess-*.jar &> /dev/null; then
+    echo "❌ Error: JMH not found in lib/jmh/ directory"
+    echo "See lib/DOWNLOAD_JMH.txt for the jars to download"
+    exit 1
+fi
+
+echo "✓ JMH found"
+echo ""
+
+# Check if compiled
+if [ ! -d "out" ] || [ ! -f "out/Main.class" ]; then
+    echo "Application not compiled. Running compilation first..."
+    echo ""
+    ./compile.sh
+    if [ $? -ne 0 ]; then
+        echo "❌ Compilation failed. Cannot run benchmarks."
+        exit 1
+    fi
+fi
+
+# Compile the benchmarks; JMH's annotation processor generates the harness classes
+echo "Compiling benchmarks..."
+rm -rf out-bench
+mkdir -p out-bench
+javac -cp "out:lib/sqlite-jdbc.jar:lib/jmh/*" -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+      -d out-bench $(find bench -name "*.java")
+if [ $? -ne 0 ]; then
+    echo "❌ Compilation failed for benchmarks"
+    exit 1
+fi
+echo "✓ Benchmarks compiled"
+echo ""
+
+# Run from a scratch directory, whose database/bank.db each fork recreates
+ROOT="$(pwd)"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+cd "$WORK"
+java -cp "$ROOT/out-bench:$ROOT/out:$ROOT/lib/sqlite-jdbc.jar:$ROOT/lib/jmh/*" org.openjdk.jmh.Main \
+     -rf json -rff "$ROOT/benchmark-results.json" "$@"
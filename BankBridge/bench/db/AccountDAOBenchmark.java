@@ -0,0 +1,51 @@
+package db;
+
+import model.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account lookups through the cache and the database, and single balance writes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountDAOBenchmark {
+    private AccountDAO dao;
+    private AccountCache cache;
+    private double balance = 1000.0;
+    
+    @Setup
+    public void open(BenchmarkDatabase database) throws Exception {
+        dao = new AccountDAO();
+        cache = AccountCache.getInstance();
+        for (String accountNumber : database.getAccounts()) {
+            dao.findById(accountNumber);
+        }
+    }
+    
+    @Benchmark
+    public Account findByIdCached(BenchmarkDatabase database) throws Exception {
+        return dao.findById(database.nextAccount());
+    }
+    
+    @Benchmark
+    public Account findByIdUncached(BenchmarkDatabase database) throws Exception {
+        String accountNumber = database.nextAccount();
+        cache.invalidate(accountNumber);
+        return dao.findById(accountNumber);
+    }
+    
+    // Each call is its own autocommit write, so this includes the commit
+    @Benchmark
+    public boolean updateBalance(BenchmarkDatabase database) throws Exception {
+        balance += 1.0;
+        return dao.updateBalance(database.nextAccount(), balance);
+    }
+}
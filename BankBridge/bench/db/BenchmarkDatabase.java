@@ -0,0 +1,120 @@
+package db;
+
+import model.EpochTime;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throwaway database shared by the benchmarks
+ * DBConnection opens database/bank.db relative to the working directory, so the benchmarks
+ * run from a scratch directory (bench.sh creates one). Each fork recreates the database there
+ * and seeds one current account per user and a mixed ledger, so results depend neither on
+ * the live database nor on earlier forks. A database/bank.db that was not created by the
+ * benchmarks is never touched.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    public static final String PASSWORD = "benchmark-password";
+    private static final String MARKER = "BENCHMARK";
+    private static final int SEED_USERS = 1000;
+    private static final int SEED_TRANSACTIONS = 20_000;
+    private static final long ACCOUNT_BASE = 1_000_000_000L;
+    
+    public String passwordHash;
+    private final List<String> accounts = new ArrayList<>();
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        // The code under test logs every operation to the console
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        recreate(Paths.get("database"));
+        
+        DBConnection.getInstance();
+        passwordHash = SecurityUtil.hashPassword(PASSWORD);
+        long now = EpochTime.now();
+        
+        try (BulkLoader loader = new BulkLoader(50_000)) {
+            loader.begin();
+            for (int i = 0; i < SEED_USERS; i++) {
+                String accountNumber = Long.toString(ACCOUNT_BASE + i);
+                loader.addUser(i + 1, "user" + (i + 1), passwordHash, "Benchmark User " + (i + 1),
+                               "user" + (i + 1) + "@example.com", now);
+                loader.addAccount(accountNumber, i + 1, "CURRENT", 1_000_000, now, 1_000_000);
+                accounts.add(accountNumber);
+            }
+            for (int i = 0; i < SEED_TRANSACTIONS; i++) {
+                String accountNumber = accounts.get(i % SEED_USERS);
+                switch (i % 3) {
+                    case 0:
+                        loader.addTransaction(accountNumber, "DEPOSIT", 25.0, null, "Deposit to account", now + i);
+                        break;
+                    case 1:
+                        loader.addTransaction(accountNumber, "WITHDRAW", 25.0, null, "Withdrawal from account",
+                                              now + i);
+                        break;
+                    default:
+                        String toAccount = accounts.get((i + 1) % SEED_USERS);
+                        loader.addTransaction(accountNumber, "TRANSFER", 25.0, toAccount,
+                                              "Transfer to " + toAccount, now + i);
+                }
+            }
+            loader.finish();
+        }
+    }
+    
+    private static void recreate(Path directory) throws IOException {
+        Path marker = directory.resolve(MARKER);
+        if (Files.exists(directory.resolve("bank.db")) && !Files.exists(marker)) {
+            throw new IllegalStateException(directory.toAbsolutePath().resolve("bank.db") +
+                                            " was not created by the benchmarks; run them through bench.sh");
+        }
+        Files.createDirectories(directory);
+        if (!Files.exists(marker)) {
+            Files.createFile(marker);
+        }
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+            Files.deleteIfExists(directory.resolve("bank.db" + suffix));
+        }
+    }
+    
+    /**
+     * Next seeded account number, cycling through all of them
+     */
+    public String nextAccount() {
+        next = (next + 1) % accounts.size();
+        return accounts.get(next);
+    }
+    
+    public List<String> getAccounts() {
+        return accounts;
+    }
+    
+    @TearDown(Level.Trial)
+    public void close() {
+        try {
+            DBConnection.getInstance().closeConnection();
+        } catch (Exception e) {
+            System.err.println("Error closing database: " + e.getMessage());
+        }
+    }
+}
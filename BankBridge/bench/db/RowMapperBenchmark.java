@@ -0,0 +1,101 @@
+package db;
+
+import model.Account;
+import model.Transaction;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DAOs' row mappers on successive rows of the seeded tables
+ * stepNext times stepping the cursor alone, to subtract from the mapper scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RowMapperBenchmark {
+    private AccountDAO accountDAO;
+    private TransactionDAO transactionDAO;
+    private UserDAO userDAO;
+    private RowCursor accounts;
+    private RowCursor transactions;
+    private RowCursor users;
+    
+    @Setup
+    public void open(BenchmarkDatabase database) throws Exception {
+        Connection connection = DBConnection.getInstance().getConnection();
+        accountDAO = new AccountDAO();
+        transactionDAO = new TransactionDAO();
+        userDAO = new UserDAO();
+        accounts = new RowCursor(connection, "SELECT * FROM accounts");
+        transactions = new RowCursor(connection, "SELECT * FROM transactions");
+        users = new RowCursor(connection, "SELECT * FROM users");
+    }
+    
+    @Benchmark
+    public ResultSet stepNext() throws SQLException {
+        return transactions.next();
+    }
+    
+    @Benchmark
+    public Account extractAccount() throws SQLException {
+        return accountDAO.extractAccountFromResultSet(accounts.next());
+    }
+    
+    @Benchmark
+    public Transaction extractTransaction() throws SQLException {
+        return transactionDAO.extractTransactionFromResultSet(transactions.next());
+    }
+    
+    @Benchmark
+    public User extractUser() throws SQLException {
+        return userDAO.extractUserFromResultSet(users.next());
+    }
+    
+    @TearDown
+    public void close() throws SQLException {
+        accounts.close();
+        transactions.close();
+        users.close();
+    }
+    
+    /**
+     * Endless cursor over a query's rows, re-running it when exhausted
+     */
+    private static final class RowCursor {
+        private final PreparedStatement statement;
+        private ResultSet rows;
+        
+        RowCursor(Connection connection, String sql) throws SQLException {
+            this.statement = connection.prepareStatement(sql);
+        }
+        
+        ResultSet next() throws SQLException {
+            if (rows == null || !rows.next()) {
+                if (rows != null) {
+                    rows.close();
+                }
+                rows = statement.executeQuery();
+                if (!rows.next()) {
+                    throw new SQLException("Benchmark query returned no rows");
+                }
+            }
+            return rows;
+        }
+        
+        void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
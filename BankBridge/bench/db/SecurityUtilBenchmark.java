@@ -0,0 +1,35 @@
+package db;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password hashing at the configured iteration count (-Dbankbridge.password.iterations)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecurityUtilBenchmark {
+    private String passwordHash;
+    
+    @Setup
+    public void hash() {
+        passwordHash = SecurityUtil.hashPassword(BenchmarkDatabase.PASSWORD);
+    }
+    
+    @Benchmark
+    public String hashPassword() {
+        return SecurityUtil.hashPassword(BenchmarkDatabase.PASSWORD);
+    }
+    
+    @Benchmark
+    public boolean verifyPassword() {
+        return SecurityUtil.verifyPassword(BenchmarkDatabase.PASSWORD, passwordHash);
+    }
+}
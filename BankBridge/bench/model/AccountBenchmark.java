@@ -0,0 +1,40 @@
+package model;
+
+import exceptions.InsufficientFundsException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance updates on the account model, without the database
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccountBenchmark {
+    private Account current;
+    private Account savings;
+    
+    @Setup
+    public void create() {
+        current = new CurrentAccount("1", 1, 0);
+        savings = new SavingsAccount("1", 1, 1e15);
+    }
+    
+    @Benchmark
+    public double deposit() {
+        current.deposit(1.0);
+        return current.getBalance();
+    }
+    
+    @Benchmark
+    public double withdraw() throws InsufficientFundsException {
+        savings.withdraw(1.0);
+        return savings.getBalance();
+    }
+}
@@ -0,0 +1,89 @@
+package threads;
+
+import db.BenchmarkDatabase;
+import model.Deposit;
+import model.Transaction;
+import model.Transfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end engine throughput, from submission to the callback
+ * Each invocation submits a window of transactions and waits for all of them, so the
+ * engine can group their commits as it does under load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionEngineBenchmark {
+    private static final int WINDOW = 64;
+    
+    private TransactionEngine engine;
+    private final AtomicInteger failures = new AtomicInteger();
+    
+    @Setup
+    public void start(BenchmarkDatabase database) throws Exception {
+        engine = new TransactionEngine();
+        engine.start();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void deposit(BenchmarkDatabase database) throws InterruptedException {
+        Transaction[] window = new Transaction[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            window[i] = new Deposit(database.nextAccount(), 1.0);
+        }
+        submitAll(window);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void transfer(BenchmarkDatabase database) throws InterruptedException {
+        Transaction[] window = new Transaction[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            window[i] = new Transfer(database.nextAccount(), database.nextAccount(), 1.0);
+        }
+        submitAll(window);
+    }
+    
+    private void submitAll(Transaction[] window) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(window.length);
+        TransactionEngine.TransactionCallback callback = new TransactionEngine.TransactionCallback() {
+            @Override
+            public void onSuccess(String message) {
+                done.countDown();
+            }
+            
+            @Override
+            public void onFailure(String error) {
+                failures.incrementAndGet();
+                done.countDown();
+            }
+        };
+        for (Transaction transaction : window) {
+            engine.submitTransaction(transaction, callback);
+        }
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Engine did not finish " + window.length + " transactions in 60 s");
+        }
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " benchmark transactions failed");
+        }
+    }
+    
+    @TearDown
+    public void stop() {
+        engine.stop();
+    }
+}
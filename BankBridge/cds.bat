@@ -0,0 +1,48 @@
+@echo off
+REM BankBridge Class-Data Sharing Script for Windows
+REM Records the classes loaded during one startup into an AppCDS archive that
+REM run.bat then maps at launch. Needs JDK 13 or later. Rerun after every
+REM compile; compile.bat removes the old archive.
+
+echo ======================================
+echo   BankBridge Class-Data Sharing Setup
+echo ======================================
+echo.
+
+REM Check if compiled
+if not exist "out\Main.class" (
+    echo Application not compiled. Running compilation first...
+    echo.
+    call compile.bat
+    if %errorlevel% neq 0 (
+        echo [X] Compilation failed. Cannot build archive.
+        pause
+        exit /b 1
+    )
+)
+
+REM Classes are only archived when they come from a JAR
+echo [1/2] Packaging classes...
+if not exist "cds" mkdir cds
+if not exist "database" mkdir database
+if exist "cds\bankbridge.jar" del "cds\bankbridge.jar"
+if exist "cds\bankbridge.jsa" del "cds\bankbridge.jsa"
+jar cf cds\bankbridge.jar -C out .
+if %errorlevel% neq 0 (
+    echo [X] Packaging failed
+    pause
+    exit /b 1
+)
+
+REM Start once, exit as soon as startup is done, and dump what was loaded
+echo [2/2] Recording startup classes...
+java -XX:ArchiveClassesAtExit=cds\bankbridge.jsa -Dbankbridge.startup.exitWhenReady=true -cp "cds\bankbridge.jar;lib\sqlite-jdbc.jar" Main %* > nul
+if not exist "cds\bankbridge.jsa" (
+    echo [X] Recording failed
+    pause
+    exit /b 1
+)
+
+echo.
+echo [+] Archive written to cds\bankbridge.jsa; run.bat will use it
+echo.
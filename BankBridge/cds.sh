@@ -0,0 +1,47 @@
+#!/bin/bash
+
+# BankBridge Class-Data Sharing Script
+# Records the classes loaded during one startup into an AppCDS archive that
+# run.sh then maps at launch, so later starts skip most class loading and
+# verification. Needs JDK 13 or later. Rerun after every compile; compile.sh
+# removes the old archive. Pass --headless to train the headless server instead.
+
+echo "======================================"
+echo "  BankBridge Class-Data Sharing Setup"
+echo "======================================"
+echo ""
+
+# Check if compiled
+if [ ! -d "out" ] || [ ! -f "out/Main.class" ]; then
+    echo "Application not compiled. Running compilation first..."
+    echo ""
+    ./compile.sh
+    if [ $? -ne 0 ]; then
+        echo "❌ Compilation failed. Cannot build archive."
+        exit 1
+    fi
+fi
+
+# Classes are only archived when they come from a JAR
+echo "[1/2] Packaging classes..."
+mkdir -p cds database
+rm -f cds/bankbridge.jar cds/bankbridge.jsa
+jar cf cds/bankbridge.jar -C out .
+if [ $? -ne 0 ]; then
+    echo "❌ Packaging failed"
+    exit 1
+fi
+
+# Start once, exit as soon as startup is done, and dump what was loaded
+echo "[2/2] Recording startup classes..."
+java -XX:ArchiveClassesAtExit=cds/bankbridge.jsa -Dbankbridge.startup.exitWhenReady=true \
+     -cp "cds/bankbridge.jar:lib/sqlite-jdbc.jar" Main "$@" > /dev/null
+if [ $? -ne 0 ] || [ ! -f "cds/bankbridge.jsa" ]; then
+    echo "❌ Recording failed"
+    rm -f cds/bankbridge.jsa
+    exit 1
+fi
+
+echo ""
+echo "✓ Archive written to cds/bankbridge.jsa; ./run.sh will use it"
+echo ""
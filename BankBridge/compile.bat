@@ -32,6 +32,8 @@ echo.
 REM Create output directory
 echo Creating output directory...
 if not exist "out" mkdir out
+REM A class-data sharing archive from cds.bat no longer matches the new classes
+if exist "cds" rmdir /s /q cds
 echo [+] Output directory ready
 echo.
 
@@ -39,7 +41,7 @@ REM Compile Java files
 echo Compiling Java source files...
 echo --------------------------------------
 
-echo [1/6] Compiling exceptions...
+echo [1/8] Compiling exceptions...
 javac -cp ".;lib\sqlite-jdbc.jar" -d out src\exceptions\*.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for exceptions
@@ -47,7 +49,7 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo [2/6] Compiling model...
+echo [2/8] Compiling model...
 javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\model\*.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for model
@@ -55,7 +57,7 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo [3/6] Compiling db...
+echo [3/8] Compiling db...
 javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\db\*.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for db
@@ -63,7 +65,7 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo [4/6] Compiling threads...
+echo [4/8] Compiling threads...
 javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\threads\*.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for threads
@@ -71,7 +73,23 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo [5/6] Compiling gui...
+echo [5/8] Compiling server...
+javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\server\*.java
+if %errorlevel% neq 0 (
+    echo [X] Compilation failed for server
+    pause
+    exit /b 1
+)
+
+echo [6/8] Compiling tools...
+javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\tools\*.java
+if %errorlevel% neq 0 (
+    echo [X] Compilation failed for tools
+    pause
+    exit /b 1
+)
+
+echo [7/8] Compiling gui...
 javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\gui\*.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for gui
@@ -79,7 +97,7 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo [6/6] Compiling Main...
+echo [8/8] Compiling Main...
 javac -cp ".;lib\sqlite-jdbc.jar;out" -d out src\Main.java
 if %errorlevel% neq 0 (
     echo [X] Compilation failed for Main
@@ -31,6 +31,8 @@ echo ""
 # Create output directory
 echo "Creating output directory..."
 mkdir -p out
+# A class-data sharing archive from cds.sh no longer matches the new classes
+rm -rf cds
 echo "✓ Output directory ready"
 echo ""
 
@@ -39,42 +41,56 @@ echo "Compiling Java source files..."
 echo "--------------------------------------"
 
 # Compile in order of dependencies
-echo "[1/6] Compiling exceptions..."
+echo "[1/8] Compiling exceptions..."
 javac -cp ".:lib/sqlite-jdbc.jar" -d out src/exceptions/*.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for exceptions"
     exit 1
 fi
 
-echo "[2/6] Compiling model..."
+echo "[2/8] Compiling model..."
 javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/model/*.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for model"
     exit 1
 fi
 
-echo "[3/6] Compiling db..."
+echo "[3/8] Compiling db..."
 javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/db/*.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for db"
     exit 1
 fi
 
-echo "[4/6] Compiling threads..."
+echo "[4/8] Compiling threads..."
 javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/threads/*.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for threads"
     exit 1
 fi
 
-echo "[5/6] Compiling gui..."
+echo "[5/8] Compiling server..."
+javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/server/*.java
+if [ $? -ne 0 ]; then
+    echo "❌ Compilation failed for server"
+    exit 1
+fi
+
+echo "[6/8] Compiling tools..."
+javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/tools/*.java
+if [ $? -ne 0 ]; then
+    echo "❌ Compilation failed for tools"
+    exit 1
+fi
+
+echo "[7/8] Compiling gui..."
 javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/gui/*.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for gui"
     exit 1
 fi
 
-echo "[6/6] Compiling Main..."
+echo "[8/8] Compiling Main..."
 javac -cp ".:lib/sqlite-jdbc.jar:out" -d out src/Main.java
 if [ $? -ne 0 ]; then
     echo "❌ Compilation failed for Main"
@@ -1,5 +1,9 @@
 -- BankBridge Database Schema
 -- SQLite Database for Offline Banking System
+--
+-- Reference copy of the latest schema. The application builds and upgrades
+-- bank.db through the versioned migrations in src/db/Migrations.java and
+-- records the applied version in the schema_version table.
 
 -- Enable foreign key support
 PRAGMA foreign_keys = ON;
@@ -13,7 +17,7 @@ CREATE TABLE IF NOT EXISTS users (
     full_name TEXT NOT NULL,
     email TEXT,
     is_admin INTEGER DEFAULT 0,
-    created_at TEXT NOT NULL
+    created_at INTEGER NOT NULL -- epoch microseconds
 );
 
 -- Accounts Table
@@ -24,7 +28,8 @@ CREATE TABLE IF NOT EXISTS accounts (
     account_type TEXT NOT NULL CHECK(account_type IN ('SAVINGS', 'CURRENT')),
     balance REAL NOT NULL DEFAULT 0.0,
     is_active INTEGER DEFAULT 1,
-    created_at TEXT NOT NULL,
+    created_at INTEGER NOT NULL, -- epoch microseconds
+    opening_balance REAL, -- balance at account opening; NULL until reconciled for older accounts
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
@@ -37,14 +42,85 @@ CREATE TABLE IF NOT EXISTS transactions (
     amount REAL NOT NULL,
     to_account TEXT,
     description TEXT,
-    timestamp TEXT NOT NULL,
+    timestamp INTEGER NOT NULL, -- epoch microseconds
     FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE
 );
 
+-- Daily Transaction Totals
+-- Per account, type and local day; maintained in the same commit as each
+-- transactions insert so aggregate queries cost O(days), not O(transactions)
+CREATE TABLE IF NOT EXISTS transaction_daily_totals (
+    account_number TEXT NOT NULL,
+    transaction_type TEXT NOT NULL,
+    day INTEGER NOT NULL, -- days since 1970-01-01 (local time)
+    total_amount REAL NOT NULL DEFAULT 0.0,
+    transaction_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_number, transaction_type, day)
+) WITHOUT ROWID;
+
+-- Monthly archive segments (database/archive/transactions-yyyy-MM.db)
+-- Transactions older than the archive horizon are moved out of the hot table into these files
+CREATE TABLE IF NOT EXISTS transaction_archives (
+    period TEXT PRIMARY KEY, -- yyyy-MM
+    file_name TEXT NOT NULL,
+    min_transaction_id INTEGER NOT NULL,
+    max_transaction_id INTEGER NOT NULL,
+    min_timestamp INTEGER NOT NULL,
+    max_timestamp INTEGER NOT NULL,
+    row_count INTEGER NOT NULL,
+    archived_at INTEGER NOT NULL
+);
+
+-- Hash-chained audit log
+-- Append-only copy of every committed transaction; each hash covers the previous
+-- hash and the record, so editing or removing a row breaks the chain after it
+CREATE TABLE IF NOT EXISTS audit_log (
+    seq INTEGER PRIMARY KEY,
+    transaction_id INTEGER NOT NULL UNIQUE,
+    account_number TEXT NOT NULL,
+    transaction_type TEXT NOT NULL,
+    amount REAL NOT NULL,
+    to_account TEXT,
+    timestamp INTEGER NOT NULL, -- epoch microseconds
+    hash TEXT NOT NULL -- SHA-256 hex of previous hash + record
+);
+
+-- Chain hash every N audit records; verification checks the segments between anchors in parallel
+CREATE TABLE IF NOT EXISTS audit_anchors (
+    seq INTEGER PRIMARY KEY,
+    hash TEXT NOT NULL,
+    created_at INTEGER NOT NULL -- epoch microseconds
+);
+
+-- Batch file checkpoints
+-- Last committed line of each input file and the matching output file sizes,
+-- written in the same commit as the batch so a rerun resumes where it stopped
+CREATE TABLE IF NOT EXISTS batch_checkpoints (
+    file_key TEXT PRIMARY KEY, -- file name, size and hash of its first 64 KB
+    file_name TEXT NOT NULL,
+    last_line INTEGER NOT NULL,
+    applied INTEGER NOT NULL,
+    rejected INTEGER NOT NULL,
+    results_offset INTEGER NOT NULL, -- bytes
+    rejects_offset INTEGER NOT NULL, -- bytes
+    updated_at INTEGER NOT NULL -- epoch microseconds
+);
+
+-- Application settings
+-- One-time state such as whether the default users have been created
+CREATE TABLE IF NOT EXISTS app_settings (
+    name TEXT PRIMARY KEY,
+    value TEXT NOT NULL,
+    updated_at INTEGER NOT NULL -- epoch microseconds
+);
+
 -- Indexes for faster queries
 CREATE INDEX IF NOT EXISTS idx_user_accounts ON accounts(user_id);
 CREATE INDEX IF NOT EXISTS idx_account_transactions ON transactions(account_number);
 CREATE INDEX IF NOT EXISTS idx_transaction_timestamp ON transactions(timestamp);
+CREATE INDEX IF NOT EXISTS idx_transaction_to_account ON transactions(to_account);
+CREATE INDEX IF NOT EXISTS idx_user_created ON users(created_at);
+CREATE INDEX IF NOT EXISTS idx_account_created ON accounts(created_at);
 
 -- Insert default admin user (password: admin123)
 INSERT OR IGNORE INTO users (username, password_hash, full_name, email, is_admin, created_at)
@@ -54,7 +130,7 @@ VALUES (
     'System Administrator',
     'admin@bankbridge.com',
     1,
-    datetime('now')
+    CAST((julianday('now') - 2440587.5) * 86400000000 AS INTEGER)
 );
 
 -- Insert sample test user (username: john_doe, password: password123)
@@ -65,13 +141,13 @@ VALUES (
     'John Doe',
     'john@example.com',
     0,
-    datetime('now')
+    CAST((julianday('now') - 2440587.5) * 86400000000 AS INTEGER)
 );
 
 -- Sample data: Create a savings account for john_doe
 -- INSERT INTO accounts (account_number, user_id, account_type, balance, is_active, created_at)
--- VALUES ('1234567890', 2, 'SAVINGS', 5000.00, 1, datetime('now'));
+-- VALUES ('1234567890', 2, 'SAVINGS', 5000.00, 1, CAST((julianday('now') - 2440587.5) * 86400000000 AS INTEGER));
 
 -- Sample data: Create a current account for john_doe
 -- INSERT INTO accounts (account_number, user_id, account_type, balance, is_active, created_at)
--- VALUES ('9876543210', 2, 'CURRENT', 10000.00, 1, datetime('now'));
+-- VALUES ('9876543210', 2, 'CURRENT', 10000.00, 1, CAST((julianday('now') - 2440587.5) * 86400000000 AS INTEGER));
@@ -21,5 +21,9 @@ if not exist "out\Main.class" (
 REM Create database directory if not exists
 if not exist "database" mkdir database
 
-REM Run the application
-java -cp "out;lib\sqlite-jdbc.jar" Main
+REM Run the application, from the class-data sharing archive if cds.bat has built one
+if exist "cds\bankbridge.jsa" (
+    java -XX:SharedArchiveFile=cds\bankbridge.jsa -cp "cds\bankbridge.jar;lib\sqlite-jdbc.jar" Main %*
+) else (
+    java -cp "out;lib\sqlite-jdbc.jar" Main %*
+)
@@ -22,5 +22,9 @@ fi
 # Create database directory if not exists
 mkdir -p database
 
-# Run the application
-java -cp "out:lib/sqlite-jdbc.jar" Main
+# Run the application, from the class-data sharing archive if cds.sh has built one
+if [ -f "cds/bankbridge.jsa" ]; then
+    java -XX:SharedArchiveFile=cds/bankbridge.jsa -cp "cds/bankbridge.jar:lib/sqlite-jdbc.jar" Main "$@"
+else
+    java -cp "out:lib/sqlite-jdbc.jar" Main "$@"
+fi
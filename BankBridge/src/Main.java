@@ -1,54 +1,102 @@
+import db.AccountDAO;
 import db.DBConnection;
+import db.SettingsDAO;
 import db.UserDAO;
 import db.SecurityUtil;
 import exceptions.DatabaseConnectionException;
 import gui.LoginFrame;
 import model.User;
+import server.ApiServer;
+import server.BinaryServer;
+import threads.ArchivalJob;
+import threads.AuditChainWriter;
+import threads.AuditJob;
+import threads.ChangeFeedDispatcher;
+import threads.CheckpointJob;
+import threads.ReconciliationJob;
+import threads.TransactionEngine;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 /**
  * Main entry point for BankBridge application
- * Initializes database and launches the GUI
+ * Initializes database and launches the GUI, or with --headless (or
+ * -Dbankbridge.headless=true) runs the engine behind the local HTTP/JSON API instead
+ *
+ * Startup runs independent steps side by side: the database opens while the look and feel
+ * loads and the login window is built, and background services start beside the UI. The
+ * time from JVM start to the login window (or the API server) is printed;
+ * -Dbankbridge.startup.exitWhenReady=true exits right after startup, for timing runs and
+ * for recording a class-data sharing archive (see cds.sh).
  */
 public class Main {
+    // username, password, full name, email, admin
+    private static final String[][] DEFAULT_USERS = {
+        { "admin", "admin123", "System Administrator", "admin@bankbridge.com", "true" },
+        { "john_doe", "password123", "John Doe", "john@example.com", "false" },
+        { "jane_smith", "password123", "Jane Smith", "jane@example.com", "false" }
+    };
     
     public static void main(String[] args) {
+        long startedAt = ProcessHandle.current().info().startInstant()
+            .map(instant -> instant.toEpochMilli()).orElse(System.currentTimeMillis());
+        boolean headless = Arrays.asList(args).contains("--headless") || Boolean.getBoolean("bankbridge.headless");
+        boolean exitWhenReady = Boolean.getBoolean("bankbridge.startup.exitWhenReady");
+        
         System.out.println("=".repeat(60));
         System.out.println("       🏦 BANKBRIDGE - Banking Management System");
         System.out.println("=".repeat(60));
         System.out.println();
         
-        try {
-            // Set Look and Feel to system default
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            System.err.println("Could not set system look and feel: " + e.getMessage());
+        if (headless) {
+            System.setProperty("java.awt.headless", "true");
         }
         
         try {
-            // Initialize database connection
+            // Initialize database connection while the login window is being built
             System.out.println("[1/4] Initializing database connection...");
-            DBConnection.getInstance();
+            CompletableFuture<Void> database = runAsync("Startup-Database", DBConnection::getInstance);
+            CompletableFuture<Void> loginShown = headless ? null : showLoginWindow(startedAt);
+            await(database);
             System.out.println("✓ Database connection successful\n");
             
-            // Create default admin user if not exists
-            System.out.println("[2/4] Checking for default admin user...");
-            createDefaultAdmin();
-            System.out.println("✓ Admin user check complete\n");
+            // Create the default users on the first run only
+            System.out.println("[2/4] Checking default users...");
+            createDefaultUsers();
+            System.out.println("✓ Default users ready\n");
+            
+            // Nothing here is needed to log in, so it starts beside the UI or API server
+            System.out.println("[3/4] Starting background services...");
+            CompletableFuture<Void> services = runAsync("Startup-Services", Main::startBackgroundServices);
             
-            // Create sample users for testing
-            System.out.println("[3/4] Creating sample test users...");
-            createSampleUsers();
-            System.out.println("✓ Sample users created\n");
+            if (headless) {
+                System.out.println("[4/4] Starting headless API server...");
+                startHeadless();
+                System.out.printf("✓ API server started %d ms after JVM start%n%n",
+                                  System.currentTimeMillis() - startedAt);
+                await(services);
+                System.out.println("=".repeat(60));
+                System.out.println("\n✅ BankBridge is running headless. Stop with Ctrl+C.\n");
+                System.out.println("=".repeat(60));
+                if (exitWhenReady) {
+                    System.exit(0);
+                }
+                return;
+            }
             
             // Launch GUI
             System.out.println("[4/4] Launching user interface...");
-            SwingUtilities.invokeLater(() -> {
-                LoginFrame loginFrame = new LoginFrame();
-                loginFrame.setVisible(true);
-            });
+            await(loginShown);
             System.out.println("✓ GUI launched successfully\n");
+            await(services);
             
             System.out.println("=".repeat(60));
             System.out.println("\n✅ BankBridge is now running!");
@@ -59,7 +107,10 @@ public class Main {
             System.out.println("  Username: john_doe");
             System.out.println("  Password: password123\n");
             System.out.println("=".repeat(60));
-            
+            if (exitWhenReady) {
+                System.exit(0);
+            }
+        
         } catch (DatabaseConnectionException e) {
             System.err.println("❌ Error: Database connection failed!");
             System.err.println("Details: " + e.getMessage());
@@ -76,52 +127,170 @@ public class Main {
     }
     
     /**
-     * Create default admin user if not exists
+     * Set the look and feel and open the login window on the event thread
+     * @return completes once the window is on screen
      */
-    private static void createDefaultAdmin() throws DatabaseConnectionException {
-        UserDAO userDAO = new UserDAO();
+    private static CompletableFuture<Void> showLoginWindow(long startedAt) {
+        CompletableFuture<Void> shown = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            try {
+                // Set Look and Feel to system default
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception e) {
+                System.err.println("Could not set system look and feel: " + e.getMessage());
+            }
+            try {
+                LoginFrame loginFrame = new LoginFrame();
+                loginFrame.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowOpened(WindowEvent e) {
+                        System.out.printf("  ✓ Login window shown %d ms after JVM start%n",
+                                          System.currentTimeMillis() - startedAt);
+                        shown.complete(null);
+                    }
+                });
+                loginFrame.setVisible(true);
+            } catch (RuntimeException e) {
+                shown.completeExceptionally(e);
+            }
+        });
+        return shown;
+    }
+    
+    /**
+     * Schedule maintenance, start the commit followers and warm the account cache
+     */
+    private static void startBackgroundServices() throws DatabaseConnectionException {
+        // Background maintenance: archive and reconcile daily, checkpoint periodically
+        new ArchivalJob().schedule();
+        new CheckpointJob().schedule();
+        new ReconciliationJob().schedule();
         
-        // Check if admin exists
-        User existingAdmin = userDAO.findByUsername("admin");
-        if (existingAdmin == null) {
-            // Create admin user
-            String passwordHash = SecurityUtil.hashPassword("admin123");
-            User admin = new User("admin", passwordHash, "System Administrator", "admin@bankbridge.com");
-            admin.setAdmin(true);
-            
-            boolean created = userDAO.create(admin);
-            if (created) {
-                System.out.println("  ✓ Default admin user created");
-                System.out.println("    Username: admin");
-                System.out.println("    Password: admin123");
-            } else {
-                System.out.println("  ⚠️  Failed to create admin user");
+        // Hash committed transactions into the tamper-evident audit chain
+        new AuditChainWriter().start();
+        
+        // Stream committed transactions to change feed subscribers
+        new ChangeFeedDispatcher().start();
+        
+        // Pre-load accounts of recently active users (-Dbankbridge.accountCache.warmupUsers=0 disables)
+        warmUpAccountCache();
+    }
+    
+    /**
+     * Run a startup step on a thread of its own
+     */
+    private static CompletableFuture<Void> runAsync(String name, StartupStep step) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                step.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
             }
-        } else {
-            System.out.println("  ✓ Admin user already exists");
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+    
+    /**
+     * Wait for a startup step and rethrow its failure as it was thrown
+     */
+    private static void await(CompletableFuture<Void> step) throws Exception {
+        try {
+            step.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
         }
     }
     
+    private interface StartupStep {
+        void run() throws Exception;
+    }
+    
     /**
-     * Create sample users for testing
+     * Start the transaction engine, the audit job, the HTTP API and the binary protocol
+     * server without any UI
+     * The engine thread keeps the JVM alive; a shutdown hook stops everything in order.
      */
-    private static void createSampleUsers() throws DatabaseConnectionException {
-        UserDAO userDAO = new UserDAO();
+    private static void startHeadless() throws DatabaseConnectionException, IOException {
+        TransactionEngine engine = new TransactionEngine();
+        engine.start();
+        
+        AuditJob auditJob = new AuditJob();
+        auditJob.schedule(60);
+        
+        ApiServer server = new ApiServer(engine);
+        server.start();
         
-        // Sample user 1
-        if (userDAO.findByUsername("john_doe") == null) {
-            String passwordHash = SecurityUtil.hashPassword("password123");
-            User user1 = new User("john_doe", passwordHash, "John Doe", "john@example.com");
-            userDAO.create(user1);
-            System.out.println("  ✓ Sample user 'john_doe' created (password: password123)");
+        BinaryServer binaryServer = new BinaryServer(engine);
+        binaryServer.start();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            binaryServer.stop();
+            auditJob.cancel();
+            engine.stop();
+        }, "Shutdown"));
+    }
+    
+    /**
+     * Load the accounts of recently active users into the account cache
+     */
+    private static void warmUpAccountCache() {
+        int users = Integer.getInteger("bankbridge.accountCache.warmupUsers", 50);
+        if (users <= 0) {
+            return;
+        }
+        try {
+            int loaded = new AccountDAO().warmUpCache(users);
+            System.out.println("  ✓ Account cache warmed up with " + loaded + " accounts\n");
+        } catch (DatabaseConnectionException e) {
+            System.err.println("  ⚠️  Account cache warm-up failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Create the default admin and sample users that do not exist yet
+     * Done once per database: a marker in app_settings skips the lookups on later runs, so
+     * users deleted afterwards are not brought back. Missing users' passwords are hashed side
+     * by side, since each hash is deliberately slow.
+     */
+    private static void createDefaultUsers() throws DatabaseConnectionException {
+        SettingsDAO settings = new SettingsDAO();
+        if (settings.get(SettingsDAO.DEFAULT_USERS_SEEDED) != null) {
+            System.out.println("  ✓ Default users already set up");
+            return;
+        }
+        
+        UserDAO userDAO = new UserDAO();
+        List<String[]> missing = new ArrayList<>();
+        for (String[] defaults : DEFAULT_USERS) {
+            if (userDAO.findByUsername(defaults[0]) == null) {
+                missing.add(defaults);
+            } else {
+                System.out.println("  ✓ User '" + defaults[0] + "' already exists");
+            }
         }
         
-        // Sample user 2
-        if (userDAO.findByUsername("jane_smith") == null) {
-            String passwordHash = SecurityUtil.hashPassword("password123");
-            User user2 = new User("jane_smith", passwordHash, "Jane Smith", "jane@example.com");
-            userDAO.create(user2);
-            System.out.println("  ✓ Sample user 'jane_smith' created (password: password123)");
+        List<CompletableFuture<String>> hashes = new ArrayList<>();
+        for (String[] defaults : missing) {
+            hashes.add(CompletableFuture.supplyAsync(() -> SecurityUtil.hashPassword(defaults[1])));
+        }
+        for (int i = 0; i < missing.size(); i++) {
+            String[] defaults = missing.get(i);
+            User user = new User(defaults[0], hashes.get(i).join(), defaults[2], defaults[3]);
+            user.setAdmin(Boolean.parseBoolean(defaults[4]));
+            if (userDAO.create(user)) {
+                System.out.println("  ✓ User '" + defaults[0] + "' created (password: " + defaults[1] + ")");
+            } else {
+                System.out.println("  ⚠️  Failed to create user '" + defaults[0] + "'");
+            }
         }
+        settings.put(SettingsDAO.DEFAULT_USERS_SEEDED, "true");
     }
-}
\ No newline at end of file
+}
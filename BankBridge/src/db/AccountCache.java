@@ -0,0 +1,243 @@
+package db;
+
+import model.Account;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded read-through cache shared by all AccountDAO instances
+ * Entries expire after a time-to-live and the least recently used entry is evicted
+ * once the cache is full. Size and TTL can be set with -Dbankbridge.accountCache.maxSize
+ * (default 1000) and -Dbankbridge.accountCache.ttlSeconds (default 60).
+ *
+ * Callers always get copies, so mutating a returned Account never changes the cache.
+ */
+public class AccountCache {
+    private static final int DEFAULT_MAX_SIZE = 1000;
+    private static final int DEFAULT_TTL_SECONDS = 60;
+    
+    private static AccountCache instance;
+    
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry<Account>> accounts;
+    private final LinkedHashMap<Integer, Entry<List<String>>> userAccounts;
+    
+    // Bumped on every write; a load that started before a write must not be cached
+    private long generation;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    
+    private AccountCache(int maxSize, long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.accounts = new LinkedHashMap<String, Entry<Account>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<Account>> eldest) {
+                return evictIfFull(size());
+            }
+        };
+        this.userAccounts = new LinkedHashMap<Integer, Entry<List<String>>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<List<String>>> eldest) {
+                return evictIfFull(size());
+            }
+        };
+    }
+    
+    /**
+     * Get the shared cache instance
+     */
+    public static synchronized AccountCache getInstance() {
+        if (instance == null) {
+            instance = new AccountCache(
+                Integer.getInteger("bankbridge.accountCache.maxSize", DEFAULT_MAX_SIZE),
+                Integer.getInteger("bankbridge.accountCache.ttlSeconds", DEFAULT_TTL_SECONDS)
+            );
+        }
+        return instance;
+    }
+    
+    /**
+     * Get a copy of a cached account, or null on a miss
+     */
+    public synchronized Account get(String accountNumber) {
+        Entry<Account> entry = lookup(accounts, accountNumber);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return AccountDAO.copyOf(entry.value);
+    }
+    
+    /**
+     * Get copies of a user's cached accounts, or null on a miss
+     * The list only counts as a hit if every account in it is still cached.
+     */
+    public synchronized List<Account> getByUserId(int userId) {
+        Entry<List<String>> entry = lookup(userAccounts, userId);
+        if (entry != null) {
+            List<Account> result = new ArrayList<>();
+            for (String accountNumber : entry.value) {
+                Entry<Account> account = lookup(accounts, accountNumber);
+                if (account == null) {
+                    break;
+                }
+                result.add(AccountDAO.copyOf(account.value));
+            }
+            if (result.size() == entry.value.size()) {
+                hits++;
+                return result;
+            }
+        }
+        misses++;
+        return null;
+    }
+    
+    /**
+     * Start a database load; pass the returned stamp to put so a load that
+     * raced with a write is discarded instead of caching stale data
+     */
+    public synchronized long beginLoad() {
+        return generation;
+    }
+    
+    public synchronized void put(Account account, long loadStamp) {
+        if (loadStamp == generation && maxSize > 0) {
+            accounts.put(account.getAccountNumber(), new Entry<>(AccountDAO.copyOf(account), ttlNanos));
+        }
+    }
+    
+    public synchronized void putUserAccounts(int userId, List<Account> list, long loadStamp) {
+        if (loadStamp != generation || maxSize <= 0) {
+            return;
+        }
+        List<String> accountNumbers = new ArrayList<>();
+        for (Account account : list) {
+            accounts.put(account.getAccountNumber(), new Entry<>(AccountDAO.copyOf(account), ttlNanos));
+            accountNumbers.add(account.getAccountNumber());
+        }
+        userAccounts.put(userId, new Entry<>(accountNumbers, ttlNanos));
+    }
+    
+    /**
+     * Replace the cached balance after a committed write
+     */
+    public synchronized void updateBalance(String accountNumber, double balance) {
+        generation++;
+        Entry<Account> entry = accounts.get(accountNumber);
+        if (entry != null) {
+            entry.value.setBalance(balance);
+        }
+    }
+    
+    /**
+     * Replace the cached balance and status after a committed write
+     */
+    public synchronized void update(Account account) {
+        generation++;
+        Entry<Account> entry = accounts.get(account.getAccountNumber());
+        if (entry != null) {
+            entry.value.setBalance(account.getBalance());
+            entry.value.setActive(account.isActive());
+        }
+    }
+    
+    /**
+     * Drop an account and any user list that contains it
+     */
+    public synchronized void invalidate(String accountNumber) {
+        generation++;
+        accounts.remove(accountNumber);
+        userAccounts.values().removeIf(entry -> entry.value.contains(accountNumber));
+    }
+    
+    /**
+     * Drop a user's account list and all of its accounts (new account, deleted user)
+     */
+    public synchronized void invalidateUser(int userId) {
+        generation++;
+        userAccounts.remove(userId);
+        accounts.values().removeIf(entry -> entry.value.getUserId() == userId);
+    }
+    
+    public synchronized void clear() {
+        generation++;
+        accounts.clear();
+        userAccounts.clear();
+    }
+    
+    public synchronized int size() {
+        return accounts.size();
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+    
+    /**
+     * Fraction of lookups served from the cache (0 when nothing was looked up yet)
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+    
+    public synchronized String getStats() {
+        return String.format("%d/%d entries, hit rate %.1f%% (%d hits, %d misses), %d evicted, %d expired",
+                             accounts.size(), maxSize, getHitRate() * 100, hits, misses, evictions, expirations);
+    }
+    
+    private <K, V> Entry<V> lookup(LinkedHashMap<K, Entry<V>> map, K key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null && entry.isExpired()) {
+            map.remove(key);
+            expirations++;
+            return null;
+        }
+        return entry;
+    }
+    
+    private boolean evictIfFull(int size) {
+        if (size > maxSize) {
+            evictions++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Cached value with its expiry time
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        
+        Entry(V value, long ttlNanos) {
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
\ No newline at end of file
@@ -5,26 +5,43 @@ import exceptions.InvalidAccountException;
 import model.Account;
 import model.SavingsAccount;
 import model.CurrentAccount;
+import model.EpochTime;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for Account operations
  * Demonstrates JDBC operations with PreparedStatement
+ * Lookups by account number and user go through the shared AccountCache.
  */
 public class AccountDAO implements Repository<Account> {
+    private static final int LOOKUP_BATCH = 500; // bound parameters per IN (...) query
+    
     private Connection connection;
+    private AccountCache cache;
     
     public AccountDAO() throws DatabaseConnectionException {
-        this.connection = DBConnection.getInstance().getConnection();
+        this(DBConnection.getInstance().getConnection());
+    }
+    
+    /**
+     * DAO on a specific connection, e.g. a reader connection of a background loader
+     */
+    public AccountDAO(Connection connection) {
+        this.connection = connection;
+        this.cache = AccountCache.getInstance();
     }
     
     @Override
     public boolean create(Account account) throws DatabaseConnectionException {
-        String sql = "INSERT INTO accounts (account_number, user_id, account_type, balance, is_active, created_at) " +
-                     "VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO accounts (account_number, user_id, account_type, balance, is_active, created_at, " +
+                     "opening_balance) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, account.getAccountNumber());
@@ -32,9 +49,12 @@ public class AccountDAO implements Repository<Account> {
             pstmt.setString(3, account.getAccountType());
             pstmt.setDouble(4, account.getBalance());
             pstmt.setInt(5, account.isActive() ? 1 : 0);
-            pstmt.setString(6, LocalDateTime.now().toString());
+            pstmt.setLong(6, EpochTime.now());
+            pstmt.setDouble(7, account.getBalance());
             
             int rowsAffected = pstmt.executeUpdate();
+            // The owner's cached account list no longer includes every account
+            cache.invalidateUser(account.getUserId());
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to create account: " + e.getMessage(), e);
@@ -43,14 +63,22 @@ public class AccountDAO implements Repository<Account> {
     
     @Override
     public Account findById(String accountNumber) throws DatabaseConnectionException {
+        Account cached = cache.get(accountNumber);
+        if (cached != null) {
+            return cached;
+        }
+        
         String sql = "SELECT * FROM accounts WHERE account_number = ?";
+        long loadStamp = cache.beginLoad();
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, accountNumber);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return extractAccountFromResultSet(rs);
+                Account account = extractAccountFromResultSet(rs);
+                cache.put(account, loadStamp);
+                return account;
             }
             return null;
         } catch (SQLException e) {
@@ -62,8 +90,14 @@ public class AccountDAO implements Repository<Account> {
      * Find all accounts for a specific user
      */
     public List<Account> findByUserId(int userId) throws DatabaseConnectionException {
+        List<Account> cached = cache.getByUserId(userId);
+        if (cached != null) {
+            return cached;
+        }
+        
         String sql = "SELECT * FROM accounts WHERE user_id = ? ORDER BY created_at DESC";
         List<Account> accounts = new ArrayList<>();
+        long loadStamp = cache.beginLoad();
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
@@ -72,12 +106,74 @@ public class AccountDAO implements Repository<Account> {
             while (rs.next()) {
                 accounts.add(extractAccountFromResultSet(rs));
             }
+            cache.putUserAccounts(userId, accounts, loadStamp);
             return accounts;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to fetch user accounts: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Find all accounts for a user once every engine task up to minSequence has finished
+     * (read-your-writes; see CommitBarrier)
+     */
+    public List<Account> findByUserId(int userId, long minSequence) throws DatabaseConnectionException {
+        CommitBarrier.getInstance().awaitSequence(minSequence);
+        return findByUserId(userId);
+    }
+    
+    /**
+     * Load many accounts straight from this DAO's connection, bypassing the cache
+     * Meant for a writer that needs the rows as they are inside its own open transaction.
+     * Account numbers that do not exist are left out of the result.
+     */
+    public Map<String, Account> findByIds(Collection<String> accountNumbers) throws DatabaseConnectionException {
+        Map<String, Account> accounts = new HashMap<>();
+        List<String> pending = new ArrayList<>(accountNumbers);
+        
+        try {
+            for (int from = 0; from < pending.size(); from += LOOKUP_BATCH) {
+                List<String> batch = pending.subList(from, Math.min(pending.size(), from + LOOKUP_BATCH));
+                String sql = "SELECT * FROM accounts WHERE account_number IN (" +
+                             String.join(",", Collections.nCopies(batch.size(), "?")) + ")";
+                try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        pstmt.setString(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Account account = extractAccountFromResultSet(rs);
+                            accounts.put(account.getAccountNumber(), account);
+                        }
+                    }
+                }
+            }
+            return accounts;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch accounts: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Find accounts opened after a point in time, oldest first
+     */
+    public List<Account> findCreatedAfter(long createdAtMicros) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM accounts WHERE created_at > ? ORDER BY created_at";
+        List<Account> accounts = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, createdAtMicros);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    accounts.add(extractAccountFromResultSet(rs));
+                }
+            }
+            return accounts;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch new accounts: " + e.getMessage(), e);
+        }
+    }
+    
     @Override
     public boolean update(Account account) throws DatabaseConnectionException {
         String sql = "UPDATE accounts SET balance = ?, is_active = ? WHERE account_number = ?";
@@ -88,6 +184,12 @@ public class AccountDAO implements Repository<Account> {
             pstmt.setString(3, account.getAccountNumber());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (connection.getAutoCommit()) {
+                cache.update(account);
+            } else {
+                // Not committed yet; the caller's transaction may still roll back
+                cache.invalidate(account.getAccountNumber());
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to update account: " + e.getMessage(), e);
@@ -105,12 +207,34 @@ public class AccountDAO implements Repository<Account> {
             pstmt.setString(2, accountNumber);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (connection.getAutoCommit()) {
+                cache.updateBalance(accountNumber, newBalance);
+            } else {
+                cache.invalidate(accountNumber);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to update balance: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Record the opening balance of an account that predates opening_balance
+     * Does nothing if the account already has one.
+     */
+    public boolean setOpeningBalanceIfMissing(String accountNumber, double openingBalance)
+            throws DatabaseConnectionException {
+        String sql = "UPDATE accounts SET opening_balance = ? WHERE account_number = ? AND opening_balance IS NULL";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDouble(1, openingBalance);
+            pstmt.setString(2, accountNumber);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to set opening balance: " + e.getMessage(), e);
+        }
+    }
+    
     @Override
     public boolean delete(String accountNumber) throws DatabaseConnectionException {
         String sql = "DELETE FROM accounts WHERE account_number = ?";
@@ -118,6 +242,7 @@ public class AccountDAO implements Repository<Account> {
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, accountNumber);
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(accountNumber);
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to delete account: " + e.getMessage(), e);
@@ -141,6 +266,16 @@ public class AccountDAO implements Repository<Account> {
         }
     }
     
+    /**
+     * Page-at-a-time view of all accounts, filtered by account number or type
+     */
+    public PagedQuery<Account> pages() {
+        return new PagedQuery<>(connection, "accounts",
+            Arrays.asList("account_number", "user_id", "account_type", "balance", "is_active", "created_at"),
+            Arrays.asList("account_number", "account_type"),
+            this::extractAccountFromResultSet);
+    }
+    
     /**
      * Transfer amount between two accounts (with transaction management)
      */
@@ -176,7 +311,7 @@ public class AccountDAO implements Repository<Account> {
             
             System.out.println("Transfer completed successfully");
             return true;
-            
+        
         } catch (Exception e) {
             // Rollback on any error
             try {
@@ -186,20 +321,75 @@ public class AccountDAO implements Repository<Account> {
                 throw new DatabaseConnectionException("Failed to rollback transaction", rollbackEx);
             }
             throw new DatabaseConnectionException("Transfer failed: " + e.getMessage(), e);
+        } finally {
+            // Drop both entries whether the transfer committed or rolled back
+            cache.invalidate(fromAccount);
+            cache.invalidate(toAccount);
+        }
+    }
+    
+    /**
+     * Pre-load the accounts of the most recently active users into the cache
+     * @return number of accounts loaded
+     */
+    public int warmUpCache(int userLimit) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM accounts WHERE user_id IN (" +
+                     "SELECT a.user_id FROM transaction_daily_totals t " +
+                     "JOIN accounts a ON a.account_number = t.account_number " +
+                     "GROUP BY a.user_id ORDER BY MAX(t.day) DESC LIMIT ?) " +
+                     "ORDER BY user_id, created_at DESC";
+        long loadStamp = cache.beginLoad();
+        int loaded = 0;
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, userLimit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                List<Account> accounts = new ArrayList<>();
+                int userId = -1;
+                while (rs.next()) {
+                    Account account = extractAccountFromResultSet(rs);
+                    if (account.getUserId() != userId && !accounts.isEmpty()) {
+                        cache.putUserAccounts(userId, accounts, loadStamp);
+                        accounts = new ArrayList<>();
+                    }
+                    userId = account.getUserId();
+                    accounts.add(account);
+                    loaded++;
+                }
+                if (!accounts.isEmpty()) {
+                    cache.putUserAccounts(userId, accounts, loadStamp);
+                }
+            }
+            return loaded;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to warm up account cache: " + e.getMessage(), e);
         }
     }
     
     /**
      * Extract Account object from ResultSet (Polymorphism)
      */
-    private Account extractAccountFromResultSet(ResultSet rs) throws SQLException {
+    Account extractAccountFromResultSet(ResultSet rs) throws SQLException {
         String accountNumber = rs.getString("account_number");
         int userId = rs.getInt("user_id");
         String accountType = rs.getString("account_type");
         double balance = rs.getDouble("balance");
         boolean isActive = rs.getInt("is_active") == 1;
-        LocalDateTime createdAt = LocalDateTime.parse(rs.getString("created_at"));
+        long createdAtMicros = rs.getLong("created_at");
         
+        return newAccount(accountNumber, userId, accountType, balance, isActive, createdAtMicros);
+    }
+    
+    /**
+     * Independent copy of an account, used to keep cached instances private
+     */
+    static Account copyOf(Account account) {
+        return newAccount(account.getAccountNumber(), account.getUserId(), account.getAccountType(),
+                          account.getBalance(), account.isActive(), account.getCreatedAtMicros());
+    }
+    
+    private static Account newAccount(String accountNumber, int userId, String accountType, double balance,
+                                      boolean isActive, long createdAtMicros) {
         Account account;
         if ("SAVINGS".equals(accountType)) {
             account = new SavingsAccount(accountNumber, userId, balance);
@@ -208,7 +398,7 @@ public class AccountDAO implements Repository<Account> {
         }
         
         account.setActive(isActive);
-        account.setCreatedAt(createdAt);
+        account.setCreatedAtMicros(createdAtMicros);
         return account;
     }
 }
\ No newline at end of file
@@ -0,0 +1,512 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import model.EpochTime;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tamper-evident, append-only audit log of committed transactions
+ * Each audit_log row carries SHA-256(previous hash | record), so editing, inserting or
+ * removing a row breaks every hash after it. Every anchorInterval records
+ * (-Dbankbridge.auditChain.anchorInterval, default 4096) the chain hash is also written
+ * to audit_anchors.
+ *
+ * TransactionDAO.create only signals the chain after its commit; the records are read
+ * back, hashed and appended later in batches on a connection of its own, so hashing
+ * never runs inside a transaction commit. The transactions table is the source, so
+ * after a restart the chain simply catches up from its last transaction_id; rows that
+ * were archived before being chained are read from their archive segments.
+ *
+ * Anchors split the chain into segments that can be checked independently, so
+ * verify() checks them in parallel, one read-only connection per worker.
+ */
+public class AuditChain {
+    private static final String GENESIS_HASH = "0".repeat(64);
+    private static final int DEFAULT_ANCHOR_INTERVAL = 4096;
+    private static final int BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 1000;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private static AuditChain instance;
+    
+    private final int anchorInterval;
+    private final Semaphore commits = new Semaphore(0);
+    private Connection writer;
+    
+    // Chain head, loaded from audit_log on first append
+    private boolean headLoaded;
+    private long headSeq;
+    private long headTransactionId;
+    private String headHash = GENESIS_HASH;
+    
+    private long appended;
+    private long batches;
+    private long totalHashNanos;
+    private long totalWriteNanos;
+    
+    private AuditChain(int anchorInterval) {
+        this.anchorInterval = Math.max(1, anchorInterval);
+    }
+    
+    /**
+     * Get the shared audit chain
+     */
+    public static synchronized AuditChain getInstance() {
+        if (instance == null) {
+            instance = new AuditChain(Integer.getInteger("bankbridge.auditChain.anchorInterval",
+                                                         DEFAULT_ANCHOR_INTERVAL));
+        }
+        return instance;
+    }
+    
+    /**
+     * Note that a transaction was committed (cheap; called on the commit path)
+     */
+    public void commitSignal() {
+        if (commits.availablePermits() == 0) {
+            commits.release();
+        }
+    }
+    
+    /**
+     * Wait until a commit is signalled or the timeout passes
+     * @return true if a commit was signalled
+     */
+    public boolean awaitCommits(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean signalled = commits.tryAcquire(timeout, unit);
+        commits.drainPermits();
+        return signalled;
+    }
+    
+    /**
+     * Hash and append every committed transaction not yet in the chain
+     * @return number of records appended
+     */
+    public synchronized int appendPending() throws DatabaseConnectionException {
+        try {
+            if (writer == null) {
+                writer = DBConnection.getInstance().openWriterConnection();
+            }
+            if (!headLoaded) {
+                loadHead();
+            }
+            int total = 0;
+            int count;
+            do {
+                count = appendBatch();
+                total += count;
+            } while (count == BATCH_SIZE);
+            return total;
+        } catch (SQLException e) {
+            // The cached head may no longer match the table; reload it next time
+            headLoaded = false;
+            throw new DatabaseConnectionException("Failed to append to audit chain: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Read, hash and write one batch; the write lock is only taken for the inserts
+     */
+    private int appendBatch() throws SQLException, DatabaseConnectionException {
+        String insertSql = "INSERT INTO audit_log (seq, transaction_id, account_number, transaction_type, amount, " +
+                           "to_account, timestamp, hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        String anchorSql = "INSERT INTO audit_anchors (seq, hash, created_at) VALUES (?, ?, ?)";
+        List<Record> records = readRecords("main.transactions");
+        // Archived segments are listed after the hot table is read: archival registers a chunk
+        // before deleting it there, so a row missing from the first read is found in the second
+        TransactionArchive archive = new TransactionArchive(writer);
+        for (TransactionArchive.Segment segment : TransactionArchive.findSegmentsAfterId(writer, headTransactionId)) {
+            records.addAll(archive.query(segment, schema -> readRecords(schema + ".transactions")));
+        }
+        if (records.isEmpty()) {
+            return 0;
+        }
+        records.sort(Comparator.comparingLong(record -> record.transactionId));
+        // Lowest BATCH_SIZE ids, once each (an interrupted archival leaves a chunk in both places)
+        List<Record> batch = new ArrayList<>();
+        for (Record record : records) {
+            if (batch.size() == BATCH_SIZE) {
+                break;
+            }
+            if (batch.isEmpty() || batch.get(batch.size() - 1).transactionId != record.transactionId) {
+                batch.add(record);
+            }
+        }
+        records = batch;
+        
+        long hashStart = System.nanoTime();
+        MessageDigest digest = newDigest();
+        long seq = headSeq;
+        String hash = headHash;
+        for (Record record : records) {
+            record.seq = ++seq;
+            record.hash = hash = chainHash(digest, hash, record);
+        }
+        long writeStart = System.nanoTime();
+        
+        writer.setAutoCommit(false);
+        try (PreparedStatement insert = writer.prepareStatement(insertSql);
+             PreparedStatement anchor = writer.prepareStatement(anchorSql)) {
+            boolean anchored = false;
+            for (Record record : records) {
+                insert.setLong(1, record.seq);
+                insert.setLong(2, record.transactionId);
+                insert.setString(3, record.accountNumber);
+                insert.setString(4, record.transactionType);
+                insert.setDouble(5, record.amount);
+                insert.setString(6, record.toAccount);
+                insert.setLong(7, record.timestamp);
+                insert.setString(8, record.hash);
+                insert.addBatch();
+                if (record.seq % anchorInterval == 0) {
+                    anchor.setLong(1, record.seq);
+                    anchor.setString(2, record.hash);
+                    anchor.setLong(3, EpochTime.now());
+                    anchor.addBatch();
+                    anchored = true;
+                }
+            }
+            insert.executeBatch();
+            if (anchored) {
+                anchor.executeBatch();
+            }
+            writer.commit();
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(true);
+        }
+        
+        Record last = records.get(records.size() - 1);
+        headSeq = last.seq;
+        headTransactionId = last.transactionId;
+        headHash = last.hash;
+        appended += records.size();
+        batches++;
+        totalHashNanos += writeStart - hashStart;
+        totalWriteNanos += System.nanoTime() - writeStart;
+        return records.size();
+    }
+    
+    /**
+     * Up to BATCH_SIZE records after the chain head from one table, in id order
+     */
+    private List<Record> readRecords(String table) throws SQLException {
+        String sql = "SELECT transaction_id, account_number, transaction_type, amount, to_account, timestamp " +
+                     "FROM " + table + " WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?";
+        List<Record> records = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = writer.prepareStatement(sql)) {
+            pstmt.setLong(1, headTransactionId);
+            pstmt.setInt(2, BATCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new Record(0, rs.getLong(1), rs.getString(2), rs.getString(3), rs.getDouble(4),
+                                           rs.getString(5), rs.getLong(6), null));
+                }
+            }
+        }
+        return records;
+    }
+    
+    private void loadHead() throws SQLException {
+        try (Statement stmt = writer.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT seq, transaction_id, hash FROM audit_log ORDER BY seq DESC LIMIT 1")) {
+            if (rs.next()) {
+                headSeq = rs.getLong(1);
+                headTransactionId = rs.getLong(2);
+                headHash = rs.getString(3);
+            } else {
+                headSeq = 0;
+                headTransactionId = 0;
+                headHash = GENESIS_HASH;
+            }
+        }
+        headLoaded = true;
+    }
+    
+    /**
+     * Check the whole chain, one segment between anchors per task
+     * @param parallelism number of worker threads
+     */
+    public Verification verify(int parallelism) throws DatabaseConnectionException {
+        long start = System.nanoTime();
+        Verification verification = new Verification();
+        ReaderPool readers = new ReaderPool();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        
+        try {
+            List<Segment> segments = new ArrayList<>();
+            Connection reader = readers.take();
+            try (Statement stmt = reader.createStatement()) {
+                long lastSeq = 0;
+                String lastHash = GENESIS_HASH;
+                try (ResultSet rs = stmt.executeQuery("SELECT seq, hash FROM audit_anchors ORDER BY seq")) {
+                    while (rs.next()) {
+                        segments.add(new Segment(lastSeq, lastHash, rs.getLong(1), rs.getString(2)));
+                        lastSeq = rs.getLong(1);
+                        lastHash = rs.getString(2);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT seq, hash FROM audit_log ORDER BY seq DESC LIMIT 1")) {
+                    if (rs.next()) {
+                        verification.headSeq = rs.getLong(1);
+                        verification.headHash = rs.getString(2);
+                    }
+                }
+                if (verification.headSeq < lastSeq) {
+                    verification.failures.add("records after seq " + verification.headSeq +
+                                              " are missing (last anchor is at seq " + lastSeq + ")");
+                } else if (verification.headSeq > lastSeq) {
+                    // Tail after the last anchor: checked up to the head, with nothing to end on
+                    segments.add(new Segment(lastSeq, lastHash, verification.headSeq, null));
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to read audit anchors: " + e.getMessage(), e);
+            } finally {
+                readers.release(reader);
+            }
+            verification.segments = segments.size();
+            
+            List<ForkJoinTask<Segment>> tasks = new ArrayList<>();
+            for (Segment segment : segments) {
+                tasks.add(pool.submit(ForkJoinTask.adapt(() -> verifySegment(readers, segment))));
+            }
+            for (ForkJoinTask<Segment> task : tasks) {
+                Segment checked = task.join();
+                verification.records += checked.records;
+                if (checked.failure != null) {
+                    verification.failures.add(checked.failure);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Failures inside the pool come back wrapped, possibly more than once
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof DatabaseConnectionException) {
+                    throw (DatabaseConnectionException) cause;
+                }
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+            readers.closeAll();
+        }
+        
+        Collections.sort(verification.failures);
+        verification.elapsedNanos = System.nanoTime() - start;
+        return verification;
+    }
+    
+    /**
+     * Recompute one segment from its starting hash; stops at the first broken record
+     */
+    private Segment verifySegment(ReaderPool readers, Segment segment) throws DatabaseConnectionException {
+        String sql = "SELECT seq, transaction_id, account_number, transaction_type, amount, to_account, timestamp, hash " +
+                     "FROM audit_log WHERE seq > ? AND seq <= ? ORDER BY seq";
+        MessageDigest digest = newDigest();
+        Connection reader = readers.take();
+        
+        try (PreparedStatement pstmt = reader.prepareStatement(sql)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+            pstmt.setLong(1, segment.fromSeq);
+            pstmt.setLong(2, segment.toSeq);
+            long seq = segment.fromSeq;
+            String hash = segment.fromHash;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Record record = new Record(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4),
+                                               rs.getDouble(5), rs.getString(6), rs.getLong(7), rs.getString(8));
+                    if (record.seq != seq + 1) {
+                        segment.failure = "seq " + (seq + 1) + ": record missing";
+                        return segment;
+                    }
+                    hash = chainHash(digest, hash, record);
+                    if (!hash.equals(record.hash)) {
+                        segment.failure = "seq " + record.seq + ": hash mismatch (transaction " +
+                                          record.transactionId + ")";
+                        return segment;
+                    }
+                    seq = record.seq;
+                    segment.records++;
+                }
+            }
+            if (seq != segment.toSeq) {
+                segment.failure = "seq " + (seq + 1) + ": record missing";
+            } else if (segment.toHash != null && !segment.toHash.equals(hash)) {
+                segment.failure = "seq " + seq + ": chain does not match anchor";
+            }
+            return segment;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to verify audit chain: " + e.getMessage(), e);
+        } finally {
+            readers.release(reader);
+        }
+    }
+    
+    /**
+     * SHA-256 over the previous hash and the record's fields
+     */
+    private static String chainHash(MessageDigest digest, String previousHash, Record record) {
+        String canonical = previousHash + "|" + record.seq + "|" + record.transactionId + "|" +
+                           record.accountNumber + "|" + record.transactionType + "|" +
+                           Double.toString(record.amount) + "|" +
+                           (record.toAccount == null ? "" : record.toAccount) + "|" + record.timestamp;
+        byte[] hash = digest.digest(canonical.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Close the chain's writer connection
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing audit chain connection: " + e.getMessage());
+            }
+            writer = null;
+            headLoaded = false;
+        }
+    }
+    
+    /**
+     * One line of append metrics
+     */
+    public synchronized String getStats() {
+        return String.format("head seq %d, %d appended in %d batches, hash avg %.1f µs/record, " +
+                             "write avg %.2f ms/batch",
+                             headSeq, appended, batches,
+                             appended == 0 ? 0.0 : totalHashNanos / 1_000.0 / appended,
+                             batches == 0 ? 0.0 : totalWriteNanos / 1_000_000.0 / batches);
+    }
+    
+    private static class Record {
+        private long seq;
+        private final long transactionId;
+        private final String accountNumber;
+        private final String transactionType;
+        private final double amount;
+        private final String toAccount;
+        private final long timestamp;
+        private String hash;
+        
+        Record(long seq, long transactionId, String accountNumber, String transactionType, double amount,
+               String toAccount, long timestamp, String hash) {
+            this.seq = seq;
+            this.transactionId = transactionId;
+            this.accountNumber = accountNumber;
+            this.transactionType = transactionType;
+            this.amount = amount;
+            this.toAccount = toAccount;
+            this.timestamp = timestamp;
+            this.hash = hash;
+        }
+    }
+    
+    /**
+     * Records after fromSeq up to toSeq, starting from fromHash and ending on toHash (null for the tail)
+     */
+    private static class Segment {
+        private final long fromSeq;
+        private final String fromHash;
+        private final long toSeq;
+        private final String toHash;
+        private long records;
+        private String failure;
+        
+        Segment(long fromSeq, String fromHash, long toSeq, String toHash) {
+            this.fromSeq = fromSeq;
+            this.fromHash = fromHash;
+            this.toSeq = toSeq;
+            this.toHash = toHash;
+        }
+    }
+    
+    /**
+     * Outcome and throughput of one verification
+     */
+    public static class Verification {
+        private long records;
+        private int segments;
+        private long headSeq;
+        private String headHash = GENESIS_HASH;
+        private long elapsedNanos;
+        private final List<String> failures = new ArrayList<>();
+        
+        public boolean isValid() {
+            return failures.isEmpty();
+        }
+        
+        public long getRecords() {
+            return records;
+        }
+        
+        public int getSegments() {
+            return segments;
+        }
+        
+        public long getHeadSeq() {
+            return headSeq;
+        }
+        
+        /**
+         * Hash of the newest record; keep a copy elsewhere to detect a rewritten chain
+         */
+        public String getHeadHash() {
+            return headHash;
+        }
+        
+        /**
+         * First broken record of each failing segment
+         */
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+        
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+        
+        public double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : records * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d records in %d segments, %.0f ms (%.0f records/s), head %d %s",
+                                 isValid() ? "valid" : failures.size() + " broken segments",
+                                 records, segments, getElapsedMillis(), getRecordsPerSecond(),
+                                 headSeq, headHash);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Migration that moves data in small chunks
+ * apply() prepares the schema, then MigrationRunner calls backfillChunk() in separate
+ * short transactions until it returns 0, and finally finish() together with the
+ * version record. The write lock is only held for one chunk at a time.
+ */
+public abstract class BackfillMigration extends Migration {
+    
+    protected BackfillMigration(int version, String description) {
+        super(version, description);
+    }
+    
+    /**
+     * Process the next chunk of at most chunkSize rows
+     * @return number of rows processed, 0 when the backfill is complete
+     */
+    public abstract int backfillChunk(Connection connection, int chunkSize) throws SQLException;
+    
+    /**
+     * Complete the migration once all chunks are done (runs inside a transaction)
+     */
+    public abstract void finish(Connection connection) throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import model.Account;
+import model.EpochTime;
+import model.Transaction;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies chunks of a batch transaction file in large transactions on its own writer connection
+ * Each chunk is one commit: the ledger rows, the new balances of every account it touched and
+ * the file's checkpoint are written together, so after a crash the file resumes exactly after
+ * the last committed chunk. Meant for offline use while the application is stopped; accounts
+ * are read from the database, not the shared cache.
+ */
+public class BatchLedger implements AutoCloseable {
+    private final Connection connection;
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final List<String> touched = new ArrayList<>();
+    
+    public BatchLedger() throws DatabaseConnectionException {
+        this.connection = DBConnection.getInstance().openWriterConnection();
+        this.accountDAO = new AccountDAO(connection);
+        this.transactionDAO = new TransactionDAO(connection);
+    }
+    
+    /**
+     * Last committed checkpoint of a file, or null if it was never started
+     */
+    public Checkpoint getCheckpoint(String fileKey) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM batch_checkpoints WHERE file_key = ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, fileKey);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Checkpoint(rs.getString("file_key"), rs.getString("file_name"), rs.getLong("last_line"),
+                                      rs.getLong("applied"), rs.getLong("rejected"),
+                                      rs.getLong("results_offset"), rs.getLong("rejects_offset"));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read batch checkpoint: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open the chunk's transaction and load the accounts it refers to
+     * @return the accounts that exist, by account number; the caller applies the chunk to them
+     */
+    public Map<String, Account> begin(Collection<String> accountNumbers) throws DatabaseConnectionException {
+        try {
+            connection.setAutoCommit(false);
+            return accountDAO.findByIds(accountNumbers);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to begin batch: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Write the chunk's ledger rows in the given order and the final balance of each account,
+     * in account number order; ids and times are handed back to the transactions
+     */
+    public void record(List<? extends Transaction> transactions, Collection<Account> accounts)
+            throws DatabaseConnectionException {
+        transactionDAO.createAll(transactions);
+        
+        List<Account> sorted = new ArrayList<>(accounts);
+        sorted.sort(Comparator.comparing(Account::getAccountNumber));
+        for (Account account : sorted) {
+            accountDAO.updateBalance(account.getAccountNumber(), account.getBalance());
+            touched.add(account.getAccountNumber());
+        }
+    }
+    
+    /**
+     * Save the checkpoint and commit the chunk
+     */
+    public void commit(Checkpoint checkpoint) throws DatabaseConnectionException {
+        String sql = "INSERT INTO batch_checkpoints (file_key, file_name, last_line, applied, rejected, " +
+                     "results_offset, rejects_offset, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                     "ON CONFLICT (file_key) DO UPDATE SET last_line = excluded.last_line, " +
+                     "applied = excluded.applied, rejected = excluded.rejected, " +
+                     "results_offset = excluded.results_offset, rejects_offset = excluded.rejects_offset, " +
+                     "updated_at = excluded.updated_at";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, checkpoint.getFileKey());
+            pstmt.setString(2, checkpoint.getFileName());
+            pstmt.setLong(3, checkpoint.getLastLine());
+            pstmt.setLong(4, checkpoint.getApplied());
+            pstmt.setLong(5, checkpoint.getRejected());
+            pstmt.setLong(6, checkpoint.getResultsOffset());
+            pstmt.setLong(7, checkpoint.getRejectsOffset());
+            pstmt.setLong(8, EpochTime.now());
+            pstmt.executeUpdate();
+            
+            connection.commit();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            rollback();
+            throw new DatabaseConnectionException("Failed to commit batch: " + e.getMessage(), e);
+        } finally {
+            invalidateTouched();
+        }
+    }
+    
+    /**
+     * Discard the open chunk
+     */
+    public void rollback() {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to rollback batch: " + e.getMessage());
+        } finally {
+            invalidateTouched();
+        }
+    }
+    
+    private void invalidateTouched() {
+        AccountCache cache = AccountCache.getInstance();
+        for (String accountNumber : touched) {
+            cache.invalidate(accountNumber);
+        }
+        touched.clear();
+    }
+    
+    @Override
+    public void close() {
+        rollback();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing batch connection: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * How far a batch file has been committed
+     */
+    public static final class Checkpoint {
+        private final String fileKey;
+        private final String fileName;
+        private final long lastLine;
+        private final long applied;
+        private final long rejected;
+        private final long resultsOffset;
+        private final long rejectsOffset;
+        
+        public Checkpoint(String fileKey, String fileName, long lastLine, long applied, long rejected,
+                          long resultsOffset, long rejectsOffset) {
+            this.fileKey = fileKey;
+            this.fileName = fileName;
+            this.lastLine = lastLine;
+            this.applied = applied;
+            this.rejected = rejected;
+            this.resultsOffset = resultsOffset;
+            this.rejectsOffset = rejectsOffset;
+        }
+        
+        public String getFileKey() {
+            return fileKey;
+        }
+        
+        public String getFileName() {
+            return fileName;
+        }
+        
+        /**
+         * Last input line (1-based) whose outcome is committed
+         */
+        public long getLastLine() {
+            return lastLine;
+        }
+        
+        public long getApplied() {
+            return applied;
+        }
+        
+        public long getRejected() {
+            return rejected;
+        }
+        
+        /**
+         * Size in bytes of the results file at this checkpoint
+         */
+        public long getResultsOffset() {
+            return resultsOffset;
+        }
+        
+        /**
+         * Size in bytes of the rejects file at this checkpoint
+         */
+        public long getRejectsOffset() {
+            return rejectsOffset;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-writer bulk insert path for generating benchmark-scale databases
+ * begin() switches its own connection to a bulk-load profile (no foreign key checks, no
+ * fsync, large page cache, and an in-memory rollback journal unless the database is in WAL
+ * mode, which cannot be left while the shared connection is open) and drops the secondary indexes of
+ * users, accounts and transactions; rows are then added with reused prepared statements and
+ * JDBC batches, committed every commitRows rows. finish() rebuilds the indexes in one pass
+ * each, fills transaction_daily_totals for the loaded rows with one aggregate query and
+ * restores the normal profile. Rows must be consistent on their own (every transaction's
+ * accounts exist by the end, balances match history) because nothing is checked on the way.
+ *
+ * The database must not be in use while loading. A load that dies before finish() leaves
+ * the secondary indexes missing, so load into a copy that can be thrown away.
+ */
+public class BulkLoader implements AutoCloseable {
+    private static final String[] TABLES = { "users", "accounts", "transactions" };
+    
+    private final Connection connection;
+    private final int commitRows;
+    private final Map<String, String> droppedIndexes = new LinkedHashMap<>();
+    private PreparedStatement userInsert;
+    private PreparedStatement accountInsert;
+    private PreparedStatement transactionInsert;
+    private String journalMode;
+    private long firstTransactionId;
+    private int pendingRows;
+    private boolean loading;
+    
+    public BulkLoader(int commitRows) throws DatabaseConnectionException {
+        this.connection = DBConnection.getInstance().openWriterConnection();
+        this.commitRows = Math.max(1, commitRows);
+    }
+    
+    /**
+     * Switch to the bulk-load profile and drop the secondary indexes
+     */
+    public void begin() throws DatabaseConnectionException {
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                journalMode = rs.next() ? rs.getString(1) : "delete";
+            }
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            stmt.execute("PRAGMA synchronous = OFF");
+            if (!"wal".equalsIgnoreCase(journalMode)) {
+                stmt.execute("PRAGMA journal_mode = MEMORY");
+            }
+            stmt.execute("PRAGMA cache_size = -262144"); // 256 MB
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            
+            for (String table : TABLES) {
+                try (PreparedStatement pstmt = connection.prepareStatement(
+                        "SELECT name, sql FROM sqlite_master WHERE type = 'index' AND tbl_name = ? AND sql IS NOT NULL")) {
+                    pstmt.setString(1, table);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            droppedIndexes.put(rs.getString(1), rs.getString(2));
+                        }
+                    }
+                }
+            }
+            for (String index : droppedIndexes.keySet()) {
+                stmt.execute("DROP INDEX IF EXISTS " + index);
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE((SELECT seq FROM sqlite_sequence " +
+                                                  "WHERE name = 'transactions'), 0)")) {
+                firstTransactionId = (rs.next() ? rs.getLong(1) : 0) + 1;
+            }
+            
+            userInsert = connection.prepareStatement(
+                "INSERT INTO users (user_id, username, password_hash, full_name, email, is_admin, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, 0, ?)");
+            accountInsert = connection.prepareStatement(
+                "INSERT INTO accounts (account_number, user_id, account_type, balance, is_active, created_at, " +
+                "opening_balance) VALUES (?, ?, ?, ?, 1, ?, ?)");
+            transactionInsert = connection.prepareStatement(
+                "INSERT INTO transactions (account_number, transaction_type, amount, to_account, description, " +
+                "timestamp) VALUES (?, ?, ?, ?, ?, ?)");
+            connection.setAutoCommit(false);
+            loading = true;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to start bulk load: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Highest user id and account number in use, so generated keys can start after them
+     * @return { max user_id, max numeric account_number }
+     */
+    public long[] getKeyBases() throws DatabaseConnectionException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT (SELECT COALESCE(MAX(user_id), 0) FROM users), " +
+                                              "(SELECT COALESCE(MAX(CAST(account_number AS INTEGER)), 0) FROM accounts)")) {
+            rs.next();
+            return new long[] { rs.getLong(1), rs.getLong(2) };
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read key bases: " + e.getMessage(), e);
+        }
+    }
+    
+    public void addUser(int userId, String username, String passwordHash, String fullName, String email,
+                        long createdAtMicros) throws DatabaseConnectionException {
+        try {
+            userInsert.setInt(1, userId);
+            userInsert.setString(2, username);
+            userInsert.setString(3, passwordHash);
+            userInsert.setString(4, fullName);
+            userInsert.setString(5, email);
+            userInsert.setLong(6, createdAtMicros);
+            add(userInsert);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to load user: " + e.getMessage(), e);
+        }
+    }
+    
+    public void addAccount(String accountNumber, int userId, String accountType, double balance,
+                           long createdAtMicros, double openingBalance) throws DatabaseConnectionException {
+        try {
+            accountInsert.setString(1, accountNumber);
+            accountInsert.setInt(2, userId);
+            accountInsert.setString(3, accountType);
+            accountInsert.setDouble(4, balance);
+            accountInsert.setLong(5, createdAtMicros);
+            accountInsert.setDouble(6, openingBalance);
+            add(accountInsert);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to load account: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Add a ledger row; ids are assigned in the order rows are added, so add them oldest first
+     */
+    public void addTransaction(String accountNumber, String transactionType, double amount, String toAccount,
+                               String description, long timestampMicros) throws DatabaseConnectionException {
+        try {
+            transactionInsert.setString(1, accountNumber);
+            transactionInsert.setString(2, transactionType);
+            transactionInsert.setDouble(3, amount);
+            transactionInsert.setString(4, toAccount);
+            transactionInsert.setString(5, description);
+            transactionInsert.setLong(6, timestampMicros);
+            add(transactionInsert);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to load transaction: " + e.getMessage(), e);
+        }
+    }
+    
+    private void add(PreparedStatement statement) throws SQLException, DatabaseConnectionException {
+        statement.addBatch();
+        if (++pendingRows >= commitRows) {
+            flush();
+        }
+    }
+    
+    /**
+     * Execute the pending batches and commit them
+     */
+    public void flush() throws DatabaseConnectionException {
+        try {
+            if (pendingRows > 0) {
+                userInsert.executeBatch();
+                accountInsert.executeBatch();
+                transactionInsert.executeBatch();
+                connection.commit();
+                pendingRows = 0;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to write batch: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Flush, rebuild the dropped indexes and the daily totals of the loaded transactions,
+     * and return to the normal profile
+     * @return one line per step with its run time
+     */
+    public List<String> finish() throws DatabaseConnectionException {
+        List<String> steps = new ArrayList<>();
+        flush();
+        try (Statement stmt = connection.createStatement()) {
+            for (Map.Entry<String, String> index : droppedIndexes.entrySet()) {
+                long started = System.nanoTime();
+                stmt.execute(index.getValue());
+                connection.commit();
+                steps.add(String.format("index %s: %.1f s", index.getKey(), (System.nanoTime() - started) / 1e9));
+            }
+            droppedIndexes.clear();
+            
+            // Day buckets use local time, matching EpochTime.toEpochDay
+            long started = System.nanoTime();
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "INSERT INTO transaction_daily_totals " +
+                    "(account_number, transaction_type, day, total_amount, transaction_count) " +
+                    "SELECT account_number, transaction_type, " +
+                    "CAST(julianday(timestamp / 1000000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER), " +
+                    "SUM(amount), COUNT(*) FROM transactions WHERE transaction_id >= ? " +
+                    "GROUP BY 1, 2, 3 " +
+                    "ON CONFLICT (account_number, transaction_type, day) DO UPDATE SET " +
+                    "total_amount = total_amount + excluded.total_amount, " +
+                    "transaction_count = transaction_count + excluded.transaction_count")) {
+                pstmt.setLong(1, firstTransactionId);
+                pstmt.executeUpdate();
+            }
+            connection.commit();
+            steps.add(String.format("daily totals: %.1f s", (System.nanoTime() - started) / 1e9));
+            
+            started = System.nanoTime();
+            stmt.execute("ANALYZE");
+            connection.commit();
+            steps.add(String.format("analyze: %.1f s", (System.nanoTime() - started) / 1e9));
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to finish bulk load: " + e.getMessage(), e);
+        } finally {
+            restoreProfile();
+        }
+        return steps;
+    }
+    
+    private void restoreProfile() {
+        if (!loading) {
+            return;
+        }
+        loading = false;
+        try {
+            connection.setAutoCommit(true);
+            try (Statement stmt = connection.createStatement()) {
+                if (!"wal".equalsIgnoreCase(journalMode)) {
+                    stmt.execute("PRAGMA journal_mode = " + journalMode);
+                }
+                stmt.execute("PRAGMA synchronous = FULL");
+                stmt.execute("PRAGMA foreign_keys = ON");
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to restore database settings: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void close() {
+        // Whatever was dropped is put back even if the load failed part way
+        if (!droppedIndexes.isEmpty()) {
+            try {
+                connection.rollback();
+                try (Statement stmt = connection.createStatement()) {
+                    for (String sql : droppedIndexes.values()) {
+                        stmt.execute(sql);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                System.err.println("Failed to recreate indexes: " + e.getMessage());
+            }
+        }
+        restoreProfile();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing bulk load connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Change-data-capture stream of committed transactions
+ * Every committed transaction becomes one compact Event whose sequence number is its
+ * transaction_id. TransactionDAO.create only signals the feed after its commit; the
+ * dispatcher (threads.ChangeFeedDispatcher) then reads the new rows back from the
+ * ledger in id order, so events arrive in commit order whichever thread committed them.
+ *
+ * Each subscription has a bounded buffer and a delivery thread of its own, so a slow
+ * subscriber never holds up the dispatcher or the others. When a buffer is full the
+ * subscription's Overflow policy decides: REPLAY stops buffering and lets the
+ * subscriber catch up from the ledger (nothing is lost), DROP discards the event.
+ * Subscribing after a given sequence replays everything after it from the ledger,
+ * archived months included, so a subscriber that stores its last sequence can resume
+ * where it left off after a restart.
+ */
+public class ChangeFeed {
+    /** Subscribe from the current end of the ledger */
+    public static final long LATEST = -1;
+    
+    private static final int BATCH_SIZE = 1000;
+    private static final long POLL_MILLIS = 250;
+    
+    private static ChangeFeed instance;
+    
+    private final Semaphore commits = new Semaphore(0);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private Connection reader;
+    
+    // Last sequence handed to subscribers; unknown (-1) while nobody is subscribed
+    private long head = -1;
+    private long dispatched;
+    
+    private ChangeFeed() {
+    }
+    
+    /**
+     * Get the shared feed
+     */
+    public static synchronized ChangeFeed getInstance() {
+        if (instance == null) {
+            instance = new ChangeFeed();
+        }
+        return instance;
+    }
+    
+    /**
+     * Note that a transaction was committed (cheap; called on the commit path)
+     */
+    public void commitSignal() {
+        if (commits.availablePermits() == 0) {
+            commits.release();
+        }
+    }
+    
+    /**
+     * Wait until a commit is signalled or the timeout passes
+     * @return true if a commit was signalled
+     */
+    public boolean awaitCommits(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean signalled = commits.tryAcquire(timeout, unit);
+        commits.drainPermits();
+        return signalled;
+    }
+    
+    /**
+     * Read transactions committed since the last dispatch and offer them to every subscription
+     * @return number of events dispatched
+     */
+    public synchronized int dispatchPending() throws DatabaseConnectionException {
+        if (subscriptions.isEmpty()) {
+            // Nothing to deliver; the next subscriber starts from the end of the ledger again
+            head = -1;
+            return 0;
+        }
+        try {
+            openReader();
+            int total = 0;
+            List<Event> batch;
+            do {
+                batch = readEvents(reader, "main.transactions", head, BATCH_SIZE);
+                for (Event event : batch) {
+                    for (Subscription subscription : subscriptions) {
+                        subscription.offer(event);
+                    }
+                    head = event.sequence;
+                }
+                total += batch.size();
+            } while (batch.size() == BATCH_SIZE);
+            dispatched += total;
+            return total;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read change feed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Subscribe to committed transactions after a sequence number
+     * The handler runs on the subscription's own thread, once per event, in sequence order.
+     * @param afterSequence last sequence already processed, or LATEST for new commits only
+     * @param bufferSize events held for the subscriber before the overflow policy applies
+     */
+    public synchronized Subscription subscribe(String name, long afterSequence, int bufferSize,
+                                               Overflow overflow, Consumer<Event> handler)
+            throws DatabaseConnectionException {
+        try {
+            if (head < 0) {
+                openReader();
+                head = readLastSequence(reader);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read change feed position: " + e.getMessage(), e);
+        }
+        long start = afterSequence == LATEST ? head : Math.min(afterSequence, head);
+        Subscription subscription = new Subscription(name, start, start < head, bufferSize, overflow, handler);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+    
+    /**
+     * Close every subscription and the feed's connection
+     */
+    public synchronized void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close change feed connection: " + e.getMessage());
+            }
+            reader = null;
+        }
+    }
+    
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        synchronized (this) {
+            stats.append(String.format("%d events dispatched, %d subscriptions", dispatched, subscriptions.size()));
+        }
+        for (Subscription subscription : subscriptions) {
+            stats.append("\n  ").append(subscription);
+        }
+        return stats.toString();
+    }
+    
+    private void openReader() throws DatabaseConnectionException {
+        if (reader == null) {
+            reader = DBConnection.getInstance().openReadOnlyConnection();
+        }
+    }
+    
+    /**
+     * Highest transaction id ever assigned, including rows since archived or rolled back
+     */
+    private static long readLastSequence(Connection connection) throws SQLException {
+        String sql = "SELECT COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'transactions'), " +
+                     "(SELECT MAX(transaction_id) FROM transactions), 0)";
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+    
+    /**
+     * Read up to limit events after a sequence from one transactions table
+     */
+    private static List<Event> readEvents(Connection connection, String table, long afterSequence, int limit)
+            throws SQLException {
+        String sql = "SELECT transaction_id, account_number, transaction_type, amount, to_account, timestamp " +
+                     "FROM " + table + " WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?";
+        List<Event> events = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, afterSequence);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new Event(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getDouble(4),
+                                         rs.getString(5), rs.getLong(6)));
+                }
+            }
+        }
+        return events;
+    }
+    
+    /**
+     * What a subscription does with an event that does not fit in its buffer
+     */
+    public enum Overflow {
+        /** Stop buffering and catch up from the ledger once the buffer drains; nothing is lost */
+        REPLAY,
+        /** Discard the event; for subscribers that only care about recent activity */
+        DROP
+    }
+    
+    /**
+     * One committed transaction: sequence, accounts and their balance deltas
+     */
+    public static class Event {
+        private final long sequence;
+        private final String accountNumber;
+        private final String transactionType;
+        private final double amount;
+        private final String toAccount;
+        private final long timestampMicros;
+        
+        Event(long sequence, String accountNumber, String transactionType, double amount,
+              String toAccount, long timestampMicros) {
+            this.sequence = sequence;
+            this.accountNumber = accountNumber;
+            this.transactionType = transactionType;
+            this.amount = amount;
+            this.toAccount = toAccount;
+            this.timestampMicros = timestampMicros;
+        }
+        
+        public long getSequence() {
+            return sequence;
+        }
+        
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+        
+        /**
+         * Balance change of the source account
+         */
+        public double getAccountDelta() {
+            return "DEPOSIT".equals(transactionType) ? amount : -amount;
+        }
+        
+        /**
+         * Destination account of a transfer, or null
+         */
+        public String getToAccount() {
+            return "TRANSFER".equals(transactionType) ? toAccount : null;
+        }
+        
+        /**
+         * Balance change of the destination account (0 unless a transfer)
+         */
+        public double getToAccountDelta() {
+            return "TRANSFER".equals(transactionType) ? amount : 0;
+        }
+        
+        public String getTransactionType() {
+            return transactionType;
+        }
+        
+        public double getAmount() {
+            return amount;
+        }
+        
+        public long getTimestampMicros() {
+            return timestampMicros;
+        }
+        
+        /**
+         * Whether the event changed an account's balance
+         */
+        public boolean touches(String account) {
+            return account.equals(accountNumber) || account.equals(getToAccount());
+        }
+        
+        @Override
+        public String toString() {
+            String legs = String.format("%s %+.2f", accountNumber, getAccountDelta());
+            if (getToAccount() != null) {
+                legs += String.format(", %s %+.2f", toAccount, getToAccountDelta());
+            }
+            return "#" + sequence + " " + transactionType + " [" + legs + "] @" + timestampMicros;
+        }
+    }
+    
+    /**
+     * A subscriber's position in the feed, with its buffer and delivery thread
+     */
+    public class Subscription implements Runnable {
+        private final String name;
+        private final BlockingQueue<Event> buffer;
+        private final int bufferSize;
+        private final Overflow overflow;
+        private final Consumer<Event> handler;
+        private final Thread thread;
+        private volatile boolean open = true;
+        private volatile long lastSequence;
+        
+        // Guarded by this: while lagging, the dispatcher skips this subscription
+        private boolean lagging;
+        private long dropped;
+        private long overflows;
+        
+        // Delivery thread only
+        private Connection replayReader;
+        private volatile long delivered;
+        private volatile long replayed;
+        
+        private Subscription(String name, long lastSequence, boolean lagging, int bufferSize,
+                             Overflow overflow, Consumer<Event> handler) {
+            this.name = name;
+            this.lastSequence = lastSequence;
+            this.lagging = lagging;
+            this.bufferSize = Math.max(1, bufferSize);
+            this.buffer = new ArrayBlockingQueue<>(this.bufferSize);
+            this.overflow = overflow;
+            this.handler = handler;
+            this.thread = new Thread(this, "ChangeFeed-" + name);
+            this.thread.setDaemon(true);
+        }
+        
+        private void start() {
+            thread.start();
+        }
+        
+        /**
+         * Called by the dispatcher; never blocks
+         */
+        private synchronized void offer(Event event) {
+            if (lagging || buffer.offer(event)) {
+                return;
+            }
+            if (overflow == Overflow.DROP) {
+                dropped++;
+            } else {
+                lagging = true;
+                overflows++;
+            }
+        }
+        
+        /**
+         * Last sequence passed to the handler; store it to resume after a restart
+         */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+        
+        /**
+         * Stop delivering and release the subscription's thread and connection
+         */
+        public void close() {
+            open = false;
+            subscriptions.remove(this);
+            thread.interrupt();
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (open) {
+                    Event event = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        deliver(event);
+                    } else if (isLagging()) {
+                        catchUp();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } finally {
+                if (replayReader != null) {
+                    try {
+                        replayReader.close();
+                    } catch (SQLException e) {
+                        System.err.println("Failed to close change feed connection: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Deliver everything after lastSequence from the ledger, then rejoin the live feed
+         */
+        private void catchUp() throws InterruptedException {
+            try {
+                replayFromLedger();
+                synchronized (this) {
+                    lagging = false;
+                }
+                // Events dispatched between the last read and rejoining were skipped
+                replayFromLedger();
+            } catch (DatabaseConnectionException | SQLException e) {
+                System.err.println("Change feed " + name + " replay failed: " + e.getMessage());
+                synchronized (this) {
+                    lagging = true;
+                }
+                Thread.sleep(POLL_MILLIS * 4);
+            }
+        }
+        
+        private void replayFromLedger() throws DatabaseConnectionException, SQLException {
+            if (replayReader == null) {
+                replayReader = DBConnection.getInstance().openReadOnlyConnection();
+            }
+            // Archived months hold the oldest ids; only those past our position are read
+            TransactionArchive archive = new TransactionArchive(replayReader);
+            for (TransactionArchive.Segment segment : TransactionArchive.findSegmentsAfterId(replayReader,
+                                                                                            lastSequence)) {
+                archive.query(segment, schema -> replayTable(schema + ".transactions"));
+            }
+            replayTable("main.transactions");
+        }
+        
+        private int replayTable(String table) throws SQLException {
+            int total = 0;
+            List<Event> batch;
+            do {
+                batch = readEvents(replayReader, table, lastSequence, BATCH_SIZE);
+                for (Event event : batch) {
+                    if (deliver(event)) {
+                        replayed++;
+                    }
+                }
+                total += batch.size();
+            } while (batch.size() == BATCH_SIZE && open);
+            return total;
+        }
+        
+        /**
+         * @return false if the event was already delivered
+         */
+        private boolean deliver(Event event) {
+            // Live and replayed events can overlap right after rejoining
+            if (event.sequence <= lastSequence) {
+                return false;
+            }
+            try {
+                handler.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Change feed " + name + " handler failed on #" + event.sequence + ": " + e.getMessage());
+            }
+            lastSequence = event.sequence;
+            delivered++;
+            return true;
+        }
+        
+        private synchronized boolean isLagging() {
+            return lagging;
+        }
+        
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: at #%d, %d delivered (%d replayed), %d/%d buffered, %d dropped, %d overflows (%s)",
+                                 name, lastSequence, delivered, replayed, buffer.size(), bufferSize,
+                                 dropped, overflows, overflow);
+        }
+    }
+}
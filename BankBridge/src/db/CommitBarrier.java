@@ -0,0 +1,139 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-your-writes barrier for work handed to the transaction engine
+ * The engine takes a sequence number for every task it accepts (next()) and marks it
+ * finished once the task has committed or failed (complete()). The watermark is the
+ * highest sequence up to which every task has finished. A caller that was handed
+ * sequence n passes it to a DAO read, which parks in awaitSequence(n) until the
+ * watermark reaches n and then reads as usual, so it sees its own write without
+ * polling or reloading.
+ *
+ * Tasks can finish out of order (each dashboard runs its own engine), so sequences
+ * finished above the watermark are held until the gap below them closes.
+ * Waits give up after -Dbankbridge.readYourWrites.timeoutMillis (default 5000).
+ */
+public class CommitBarrier {
+    /** Sequence of a caller with no outstanding writes; never waits */
+    public static final long NONE = 0;
+    
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    
+    private static CommitBarrier instance;
+    
+    private final AtomicLong issued = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+    private final long timeoutMillis;
+    
+    // Written under lock; read without it on the fast path
+    private volatile long watermark;
+    private final TreeSet<Long> finishedAhead = new TreeSet<>();
+    private long waits;
+    private long timeouts;
+    private long totalWaitNanos;
+    
+    private CommitBarrier(long timeoutMillis) {
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+    }
+    
+    /**
+     * Get the shared barrier
+     */
+    public static synchronized CommitBarrier getInstance() {
+        if (instance == null) {
+            instance = new CommitBarrier(Long.getLong("bankbridge.readYourWrites.timeoutMillis",
+                                                      DEFAULT_TIMEOUT_MILLIS));
+        }
+        return instance;
+    }
+    
+    /**
+     * Take the sequence number of a newly accepted task
+     */
+    public long next() {
+        return issued.incrementAndGet();
+    }
+    
+    /**
+     * Mark a task finished, committed or not, and wake readers the watermark now covers
+     */
+    public void complete(long sequence) {
+        lock.lock();
+        try {
+            if (sequence <= watermark) {
+                return;
+            }
+            finishedAhead.add(sequence);
+            long reached = watermark;
+            while (finishedAhead.remove(reached + 1)) {
+                reached++;
+            }
+            if (reached != watermark) {
+                watermark = reached;
+                advanced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Wait until every task up to a sequence has finished, with the default timeout
+     */
+    public void awaitSequence(long sequence) throws DatabaseConnectionException {
+        awaitSequence(sequence, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Wait until every task up to a sequence has finished
+     * @throws DatabaseConnectionException if the wait times out or is interrupted
+     */
+    public void awaitSequence(long sequence, long timeout, TimeUnit unit) throws DatabaseConnectionException {
+        if (sequence <= watermark) {
+            return;
+        }
+        long start = System.nanoTime();
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (watermark < sequence) {
+                if (remaining <= 0) {
+                    timeouts++;
+                    throw new DatabaseConnectionException("Timed out waiting for commit #" + sequence +
+                                                          " (committed up to #" + watermark + ")");
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+            waits++;
+            totalWaitNanos += System.nanoTime() - start;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseConnectionException("Interrupted waiting for commit #" + sequence, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getWatermark() {
+        return watermark;
+    }
+    
+    public String getStats() {
+        lock.lock();
+        try {
+            return String.format("issued #%d, finished up to #%d, %d reads waited (avg %.1f ms), %d timed out",
+                                 issued.get(), watermark, waits,
+                                 waits == 0 ? 0.0 : totalWaitNanos / 1e6 / waits, timeouts);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -3,8 +3,12 @@ package db;
 import exceptions.DatabaseConnectionException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Singleton class for database connection management
@@ -13,6 +17,10 @@ import java.sql.Statement;
 public class DBConnection {
     private static DBConnection instance;
     private Connection connection;
+    private final ThreadLocal<Connection> readerConnection = new ThreadLocal<>();
+    private final List<Connection> readerConnections = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Connection> writerConnection = new ThreadLocal<>();
+    private final List<Connection> writerConnections = new CopyOnWriteArrayList<>();
     private static final String DB_URL = "jdbc:sqlite:database/bank.db";
     
     private DBConnection() throws DatabaseConnectionException {
@@ -47,6 +55,98 @@ public class DBConnection {
         return connection;
     }
     
+    /**
+     * Open a separate read-only connection for long-running readers such as reconciliation
+     * Its reads never hold up the shared connection; the caller must close it.
+     */
+    public Connection openReadOnlyConnection() throws DatabaseConnectionException {
+        Properties properties = new Properties();
+        properties.setProperty("open_mode", "65"); // SQLITE_OPEN_READONLY | SQLITE_OPEN_URI (archive ATTACH)
+        return openConnection(properties);
+    }
+    
+    /**
+     * Read-only connection owned by the calling thread, opened on first use
+     * Meant for long-lived worker threads (e.g. the UI loader pool), so their queries
+     * run side by side instead of queueing on the shared connection. Closed together
+     * with the shared connection.
+     */
+    public Connection getReaderConnection() throws DatabaseConnectionException {
+        Connection reader = readerConnection.get();
+        if (reader != null) {
+            try {
+                if (!reader.isClosed()) {
+                    return reader;
+                }
+            } catch (SQLException e) {
+                closeQuietly(reader);
+            }
+            readerConnections.remove(reader);
+        }
+        reader = openReadOnlyConnection();
+        readerConnection.set(reader);
+        readerConnections.add(reader);
+        return reader;
+    }
+    
+    /**
+     * Read-write connection owned by the calling thread, opened on first use
+     * For multi-statement transactions started from code that otherwise uses the shared
+     * connection (e.g. the engine's ledger insert and daily totals); opening a transaction
+     * on the shared connection would sweep in statements from every other thread. Closed
+     * together with the shared connection.
+     */
+    public Connection getWriterConnection() throws DatabaseConnectionException {
+        Connection writer = writerConnection.get();
+        if (writer != null) {
+            try {
+                if (!writer.isClosed()) {
+                    return writer;
+                }
+            } catch (SQLException e) {
+                closeQuietly(writer);
+            }
+            writerConnections.remove(writer);
+        }
+        writer = openWriterConnection();
+        writerConnection.set(writer);
+        writerConnections.add(writer);
+        return writer;
+    }
+    
+    /**
+     * Open a separate read-write connection for a background writer with its own transactions
+     * It only sees committed data, and its transactions never interleave with those on the
+     * shared connection; the caller must close it.
+     */
+    public Connection openWriterConnection() throws DatabaseConnectionException {
+        Connection writer = openConnection(new Properties());
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            return writer;
+        } catch (SQLException e) {
+            closeQuietly(writer);
+            throw new DatabaseConnectionException("Failed to open writer connection", e);
+        }
+    }
+    
+    private Connection openConnection(Properties properties) throws DatabaseConnectionException {
+        properties.setProperty("busy_timeout", "5000");
+        try {
+            return DriverManager.getConnection(DB_URL, properties);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to open database connection", e);
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+    
     /**
      * Check if connection is valid
      */
@@ -62,68 +162,71 @@ public class DBConnection {
     }
     
     /**
-     * Initialize database schema if not exists
+     * Initialize database schema by applying pending migrations
      */
     private void initializeDatabase() throws DatabaseConnectionException {
         try (Statement stmt = connection.createStatement()) {
             // Enable foreign keys
             stmt.execute("PRAGMA foreign_keys = ON");
-            
-            // Create users table
-            stmt.execute(
-                "CREATE TABLE IF NOT EXISTS users (" +
-                "user_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "username TEXT UNIQUE NOT NULL," +
-                "password_hash TEXT NOT NULL," +
-                "full_name TEXT NOT NULL," +
-                "email TEXT," +
-                "is_admin INTEGER DEFAULT 0," +
-                "created_at TEXT NOT NULL" +
-                ")"
-            );
-            
-            // Create accounts table
-            stmt.execute(
-                "CREATE TABLE IF NOT EXISTS accounts (" +
-                "account_number TEXT PRIMARY KEY," +
-                "user_id INTEGER NOT NULL," +
-                "account_type TEXT NOT NULL CHECK(account_type IN ('SAVINGS', 'CURRENT'))," +
-                "balance REAL NOT NULL DEFAULT 0.0," +
-                "is_active INTEGER DEFAULT 1," +
-                "created_at TEXT NOT NULL," +
-                "FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE" +
-                ")"
-            );
-            
-            // Create transactions table
-            stmt.execute(
-                "CREATE TABLE IF NOT EXISTS transactions (" +
-                "transaction_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "account_number TEXT NOT NULL," +
-                "transaction_type TEXT NOT NULL CHECK(transaction_type IN ('DEPOSIT', 'WITHDRAW', 'TRANSFER'))," +
-                "amount REAL NOT NULL," +
-                "to_account TEXT," +
-                "description TEXT," +
-                "timestamp TEXT NOT NULL," +
-                "FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE" +
-                ")"
-            );
-            
-            // Create index for faster queries
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_accounts ON accounts(user_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_account_transactions ON transactions(account_number)");
-            
-            System.out.println("Database schema initialized successfully.");
-            
+            // Write-ahead log: reader connections read from a snapshot and never block the
+            // writer's commits, nor it them. The mode is stored in the file, so this only
+            // converts the database on its first start.
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+                if (rs.next() && !"wal".equalsIgnoreCase(rs.getString(1))) {
+                    System.err.println("Could not enable WAL, journal mode is " + rs.getString(1));
+                }
+            }
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to initialize database schema", e);
         }
+        
+        new MigrationRunner(connection).migrate(Migrations.all());
+        System.out.println("Database schema initialized successfully.");
+    }
+    
+    /**
+     * Periodic maintenance: checkpoint the write-ahead log (enabled by initializeDatabase)
+     * and let SQLite refresh query planner statistics (PRAGMA optimize)
+     * @return a short description of what was done
+     */
+    public String checkpoint() throws DatabaseConnectionException {
+        try (Statement stmt = connection.createStatement()) {
+            String journalMode = "";
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+                if (rs.next()) {
+                    journalMode = rs.getString(1);
+                }
+            }
+            // Only reached if WAL could not be enabled at startup
+            String result = "journal mode " + journalMode + ", nothing to checkpoint";
+            if ("wal".equalsIgnoreCase(journalMode)) {
+                // PASSIVE never waits on readers or the writer
+                try (ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(PASSIVE)")) {
+                    if (rs.next()) {
+                        result = rs.getInt(3) + "/" + rs.getInt(2) + " WAL pages checkpointed" +
+                                 (rs.getInt(1) != 0 ? " (busy)" : "");
+                    }
+                }
+            }
+            stmt.execute("PRAGMA optimize");
+            return result;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Checkpoint failed: " + e.getMessage(), e);
+        }
     }
     
     /**
      * Close database connection
      */
     public void closeConnection() {
+        for (Connection reader : readerConnections) {
+            closeQuietly(reader);
+        }
+        readerConnections.clear();
+        for (Connection writer : writerConnections) {
+            closeQuietly(writer);
+        }
+        writerConnections.clear();
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
@@ -0,0 +1,79 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the transaction_daily_totals summary table and fills it from existing history
+ * History is aggregated in transaction_id ranges, one chunk per transaction.
+ * After this migration TransactionDAO keeps the table current on every insert.
+ */
+public class DailyTotalsMigration extends BackfillMigration {
+    private long lastTransactionId;
+    private long maxTransactionId;
+    
+    public DailyTotalsMigration(int version) {
+        super(version, "Create per-account daily transaction totals");
+    }
+    
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(
+                "CREATE TABLE IF NOT EXISTS transaction_daily_totals (" +
+                "account_number TEXT NOT NULL," +
+                "transaction_type TEXT NOT NULL," +
+                "day INTEGER NOT NULL," +
+                "total_amount REAL NOT NULL DEFAULT 0.0," +
+                "transaction_count INTEGER NOT NULL DEFAULT 0," +
+                "PRIMARY KEY (account_number, transaction_type, day)" +
+                ") WITHOUT ROWID"
+            );
+            // Start over if a previous run was interrupted part way
+            stmt.execute("DELETE FROM transaction_daily_totals");
+            
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(transaction_id), 0) FROM transactions")) {
+                maxTransactionId = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+        lastTransactionId = 0;
+    }
+    
+    @Override
+    public int backfillChunk(Connection connection, int chunkSize) throws SQLException {
+        if (lastTransactionId >= maxTransactionId) {
+            return 0;
+        }
+        
+        long upTo = Math.min(lastTransactionId + chunkSize, maxTransactionId);
+        // Day buckets use local time, matching EpochTime.toEpochDay
+        String sql = "INSERT INTO transaction_daily_totals " +
+                     "(account_number, transaction_type, day, total_amount, transaction_count) " +
+                     "SELECT account_number, transaction_type, " +
+                     "CAST(julianday(timestamp / 1000000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER), " +
+                     "SUM(amount), COUNT(*) FROM transactions " +
+                     "WHERE transaction_id > ? AND transaction_id <= ? " +
+                     "GROUP BY 1, 2, 3 " +
+                     "ON CONFLICT (account_number, transaction_type, day) DO UPDATE SET " +
+                     "total_amount = total_amount + excluded.total_amount, " +
+                     "transaction_count = transaction_count + excluded.transaction_count";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, lastTransactionId);
+            pstmt.setLong(2, upTo);
+            pstmt.executeUpdate();
+        }
+        
+        int processed = (int) (upTo - lastTransactionId);
+        lastTransactionId = upTo;
+        return processed;
+    }
+    
+    @Override
+    public void finish(Connection connection) throws SQLException {
+        // Nothing to swap: the table is live as soon as the backfill completes
+    }
+}
\ No newline at end of file
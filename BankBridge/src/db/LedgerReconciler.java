@@ -0,0 +1,511 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every accounts.balance against the transaction history
+ * The expected balance is the opening balance plus deposits and incoming transfers,
+ * minus withdrawals and outgoing transfers, over both live and archived rows.
+ *
+ * Accounts are split into key ranges of partitionSize account numbers. Each range is
+ * read in one short read transaction on a read-only connection of its own, so it sees
+ * a consistent snapshot and never holds the shared writer connection. Ranges are
+ * checked in parallel on a ForkJoinPool. Archive segments never change, so each one
+ * is summed once per run, also in parallel.
+ *
+ * The engine commits a balance and its transaction row separately, so a range read
+ * between the two can show a difference that is not real. Ranges with differences are
+ * read again, and only accounts that differ by the same amount both times are reported.
+ * Accounts opened before opening_balance existed get it filled in the same way.
+ */
+public class LedgerReconciler {
+    private static final double TOLERANCE = 0.005; // half a cent
+    private static final int FETCH_SIZE = 1000;
+    
+    private final int partitionSize;
+    private final int parallelism;
+    
+    public LedgerReconciler(int partitionSize, int parallelism) {
+        this.partitionSize = Math.max(1, partitionSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
+    /**
+     * Reconcile all accounts and fill in missing opening balances
+     */
+    public Report reconcile() throws DatabaseConnectionException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        ReaderPool readers = new ReaderPool();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, LedgerReconciler::newWorker, null, false);
+        
+        try {
+            List<String> bounds;
+            List<TransactionArchive.Segment> segments;
+            Connection reader = readers.take();
+            try {
+                bounds = findPartitionBounds(reader);
+                segments = TransactionArchive.findSegments(reader, Long.MIN_VALUE, Long.MAX_VALUE);
+            } finally {
+                readers.release(reader);
+            }
+            report.partitions = bounds.size();
+            report.segments = segments.size();
+            
+            Map<String, Double> archivedNet = sumSegments(pool, readers, segments);
+            List<Integer> all = new ArrayList<>();
+            for (int i = 0; i < bounds.size(); i++) {
+                all.add(i);
+            }
+            RangeResult first = pool.invoke(new RangeTask(readers, bounds, all, archivedNet));
+            report.accountsChecked = first.accounts;
+            report.transactionsRead = first.transactions;
+            
+            if (!first.findings.isEmpty()) {
+                // Archival may have moved rows since the first pass; re-sum the segments if so
+                List<TransactionArchive.Segment> current;
+                reader = readers.take();
+                try {
+                    current = TransactionArchive.findSegments(reader, Long.MIN_VALUE, Long.MAX_VALUE);
+                } finally {
+                    readers.release(reader);
+                }
+                if (!sameSegments(segments, current)) {
+                    archivedNet = sumSegments(pool, readers, current);
+                }
+                
+                List<Integer> again = new ArrayList<>();
+                for (Finding finding : first.findings.values()) {
+                    if (!again.contains(finding.partition)) {
+                        again.add(finding.partition);
+                    }
+                }
+                Collections.sort(again);
+                RangeResult second = pool.invoke(new RangeTask(readers, bounds, again, archivedNet));
+                report.transactionsRead += second.transactions;
+                resolveFindings(first.findings, second.findings, report);
+            }
+        } catch (RuntimeException e) {
+            // Failures inside the pool come back wrapped, possibly more than once
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof DatabaseConnectionException) {
+                    throw (DatabaseConnectionException) cause;
+                }
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+            readers.closeAll();
+        }
+        
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+    
+    /**
+     * Keep the findings seen the same way in both passes
+     */
+    private void resolveFindings(Map<String, Finding> first, Map<String, Finding> second, Report report)
+            throws DatabaseConnectionException {
+        AccountDAO accountDAO = null;
+        for (Finding finding : first.values()) {
+            Finding recheck = second.get(finding.accountNumber);
+            if (recheck == null || recheck.baseline != finding.baseline ||
+                Math.abs(recheck.difference - finding.difference) > TOLERANCE) {
+                report.settled++;
+            } else if (finding.baseline) {
+                if (accountDAO == null) {
+                    accountDAO = new AccountDAO();
+                }
+                // difference holds the implied opening balance for unbaselined accounts
+                if (accountDAO.setOpeningBalanceIfMissing(finding.accountNumber, recheck.difference)) {
+                    report.baselined++;
+                }
+            } else {
+                report.mismatches.add(new Mismatch(recheck.accountNumber, recheck.balance,
+                                                   recheck.balance - recheck.difference));
+            }
+        }
+        report.mismatches.sort((a, b) -> a.getAccountNumber().compareTo(b.getAccountNumber()));
+    }
+    
+    /**
+     * Lower bound of every partition: each partitionSize-th account number in key order
+     */
+    private List<String> findPartitionBounds(Connection reader) throws DatabaseConnectionException {
+        List<String> bounds = new ArrayList<>();
+        bounds.add(""); // the first range is open below, so new low keys are not missed
+        
+        try (Statement stmt = reader.createStatement()) {
+            stmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery("SELECT account_number FROM accounts ORDER BY account_number")) {
+                int row = 0;
+                while (rs.next()) {
+                    if (row > 0 && row % partitionSize == 0) {
+                        bounds.add(rs.getString(1));
+                    }
+                    row++;
+                }
+            }
+            return bounds;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to partition accounts: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Net balance change per account over all archive segments, one task per segment
+     */
+    private Map<String, Double> sumSegments(ForkJoinPool pool, ReaderPool readers,
+                                            List<TransactionArchive.Segment> segments) {
+        Map<String, Double> net = new ConcurrentHashMap<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (TransactionArchive.Segment segment : segments) {
+            tasks.add(pool.submit(ForkJoinTask.adapt(() -> {
+                sumSegment(readers, segment, net);
+                return null;
+            })));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return net;
+    }
+    
+    private void sumSegment(ReaderPool readers, TransactionArchive.Segment segment, Map<String, Double> net)
+            throws DatabaseConnectionException {
+        String schema = segment.getSchemaName();
+        String sql = "SELECT account_number, SUM(CASE WHEN transaction_type = 'DEPOSIT' THEN amount ELSE -amount END) " +
+                     "FROM " + schema + ".transactions GROUP BY account_number " +
+                     "UNION ALL " +
+                     "SELECT to_account, SUM(amount) FROM " + schema + ".transactions " +
+                     "WHERE transaction_type = 'TRANSFER' AND to_account IS NOT NULL GROUP BY to_account";
+        Connection reader = readers.take();
+        
+        try (Statement stmt = reader.createStatement()) {
+            stmt.execute(TransactionArchive.attachReadOnlySql(segment));
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    net.merge(rs.getString(1), rs.getDouble(2), Double::sum);
+                }
+            } finally {
+                stmt.execute("DETACH DATABASE " + schema);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read archive " + segment.getPeriod() + ": " +
+                                                  e.getMessage(), e);
+        } finally {
+            readers.release(reader);
+        }
+    }
+    
+    /**
+     * Check one key range in a single read transaction
+     */
+    private RangeResult checkRange(Connection reader, int partition, String from, String to,
+                                   Map<String, Double> archivedNet) throws DatabaseConnectionException {
+        String range = to == null ? " >= ?" : " >= ? AND %s < ?";
+        String accountsSql = "SELECT account_number, balance, opening_balance FROM accounts " +
+                             "WHERE account_number" + String.format(range, "account_number");
+        String debitsSql = "SELECT account_number, transaction_type, amount FROM transactions " +
+                           "WHERE account_number" + String.format(range, "account_number");
+        String creditsSql = "SELECT to_account, amount FROM transactions " +
+                            "WHERE transaction_type = 'TRANSFER' AND to_account" + String.format(range, "to_account");
+        Map<String, Ledger> ledgers = new HashMap<>();
+        RangeResult result = new RangeResult();
+        
+        try {
+            // One read transaction, so balances and history come from the same snapshot
+            reader.setAutoCommit(false);
+            try {
+                try (ResultSet rs = queryRange(reader, accountsSql, from, to)) {
+                    while (rs.next()) {
+                        Ledger ledger = new Ledger();
+                        ledger.balance = rs.getDouble(2);
+                        ledger.openingBalance = rs.getObject(3) == null ? null : rs.getDouble(3);
+                        ledgers.put(rs.getString(1), ledger);
+                    }
+                }
+                try (ResultSet rs = queryRange(reader, debitsSql, from, to)) {
+                    while (rs.next()) {
+                        Ledger ledger = ledgers.get(rs.getString(1));
+                        if (ledger != null) {
+                            double amount = rs.getDouble(3);
+                            ledger.net += "DEPOSIT".equals(rs.getString(2)) ? amount : -amount;
+                        }
+                        result.transactions++;
+                    }
+                }
+                try (ResultSet rs = queryRange(reader, creditsSql, from, to)) {
+                    while (rs.next()) {
+                        Ledger ledger = ledgers.get(rs.getString(1));
+                        if (ledger != null) {
+                            ledger.net += rs.getDouble(2);
+                        }
+                        result.transactions++;
+                    }
+                }
+            } finally {
+                reader.commit();
+                reader.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to reconcile accounts from '" + from + "': " +
+                                                  e.getMessage(), e);
+        }
+        
+        for (Map.Entry<String, Ledger> entry : ledgers.entrySet()) {
+            Ledger ledger = entry.getValue();
+            double net = ledger.net + archivedNet.getOrDefault(entry.getKey(), 0.0);
+            Finding finding = null;
+            if (ledger.openingBalance == null) {
+                finding = new Finding(entry.getKey(), partition, ledger.balance, ledger.balance - net, true);
+            } else if (Math.abs(ledger.balance - (ledger.openingBalance + net)) > TOLERANCE) {
+                finding = new Finding(entry.getKey(), partition, ledger.balance,
+                                      ledger.balance - (ledger.openingBalance + net), false);
+            }
+            if (finding != null) {
+                result.findings.put(finding.accountNumber, finding);
+            }
+        }
+        result.accounts = ledgers.size();
+        return result;
+    }
+    
+    private ResultSet queryRange(Connection reader, String sql, String from, String to) throws SQLException {
+        PreparedStatement pstmt = reader.prepareStatement(sql);
+        pstmt.closeOnCompletion();
+        pstmt.setFetchSize(FETCH_SIZE);
+        pstmt.setString(1, from);
+        if (to != null) {
+            pstmt.setString(2, to);
+        }
+        return pstmt.executeQuery();
+    }
+    
+    private static boolean sameSegments(List<TransactionArchive.Segment> a, List<TransactionArchive.Segment> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getPeriod().equals(b.get(i).getPeriod()) ||
+                a.get(i).getRowCount() != b.get(i).getRowCount()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Reconciler-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    }
+    
+    /**
+     * Checks a list of partitions, splitting it in half until one partition is left
+     */
+    private class RangeTask extends RecursiveTask<RangeResult> {
+        private final ReaderPool readers;
+        private final List<String> bounds;
+        private final List<Integer> partitions;
+        private final Map<String, Double> archivedNet;
+        
+        RangeTask(ReaderPool readers, List<String> bounds, List<Integer> partitions,
+                  Map<String, Double> archivedNet) {
+            this.readers = readers;
+            this.bounds = bounds;
+            this.partitions = partitions;
+            this.archivedNet = archivedNet;
+        }
+        
+        @Override
+        protected RangeResult compute() {
+            if (partitions.size() > 1) {
+                int middle = partitions.size() / 2;
+                RangeTask left = new RangeTask(readers, bounds, partitions.subList(0, middle), archivedNet);
+                RangeTask right = new RangeTask(readers, bounds, partitions.subList(middle, partitions.size()),
+                                                archivedNet);
+                left.fork();
+                RangeResult result = right.compute();
+                result.add(left.join());
+                return result;
+            }
+            if (partitions.isEmpty()) {
+                return new RangeResult();
+            }
+            
+            int partition = partitions.get(0);
+            String to = partition + 1 < bounds.size() ? bounds.get(partition + 1) : null;
+            try {
+                Connection reader = readers.take();
+                try {
+                    return checkRange(reader, partition, bounds.get(partition), to, archivedNet);
+                } finally {
+                    readers.release(reader);
+                }
+            } catch (DatabaseConnectionException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+    
+    private static class Ledger {
+        private double balance;
+        private Double openingBalance;
+        private double net;
+    }
+    
+    /**
+     * Account whose balance did not match in one pass, or that has no opening balance yet
+     */
+    private static class Finding {
+        private final String accountNumber;
+        private final int partition;
+        private final double balance;
+        private final double difference; // implied opening balance when baseline is true
+        private final boolean baseline;
+        
+        Finding(String accountNumber, int partition, double balance, double difference, boolean baseline) {
+            this.accountNumber = accountNumber;
+            this.partition = partition;
+            this.balance = balance;
+            this.difference = difference;
+            this.baseline = baseline;
+        }
+    }
+    
+    private static class RangeResult {
+        private long accounts;
+        private long transactions;
+        private final Map<String, Finding> findings = new HashMap<>();
+        
+        void add(RangeResult other) {
+            accounts += other.accounts;
+            transactions += other.transactions;
+            findings.putAll(other.findings);
+        }
+    }
+    
+    /**
+     * Account whose stored balance differs from its history
+     */
+    public static class Mismatch {
+        private final String accountNumber;
+        private final double balance;
+        private final double expectedBalance;
+        
+        Mismatch(String accountNumber, double balance, double expectedBalance) {
+            this.accountNumber = accountNumber;
+            this.balance = balance;
+            this.expectedBalance = expectedBalance;
+        }
+        
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+        
+        public double getBalance() {
+            return balance;
+        }
+        
+        public double getExpectedBalance() {
+            return expectedBalance;
+        }
+        
+        public double getDifference() {
+            return balance - expectedBalance;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: balance $%.2f, history says $%.2f (off by $%.2f)",
+                                 accountNumber, balance, expectedBalance, getDifference());
+        }
+    }
+    
+    /**
+     * Outcome and throughput of one reconciliation run
+     */
+    public static class Report {
+        private long accountsChecked;
+        private long transactionsRead;
+        private int partitions;
+        private int segments;
+        private int baselined;
+        private int settled;
+        private long elapsedNanos;
+        private final List<Mismatch> mismatches = new ArrayList<>();
+        
+        public long getAccountsChecked() {
+            return accountsChecked;
+        }
+        
+        /**
+         * Live transaction rows streamed, over both passes
+         */
+        public long getTransactionsRead() {
+            return transactionsRead;
+        }
+        
+        public int getPartitions() {
+            return partitions;
+        }
+        
+        public int getSegments() {
+            return segments;
+        }
+        
+        /**
+         * Accounts whose missing opening balance was filled in by this run
+         */
+        public int getBaselined() {
+            return baselined;
+        }
+        
+        /**
+         * Differences seen in the first pass that were gone in the second (writes in flight)
+         */
+        public int getSettled() {
+            return settled;
+        }
+        
+        public List<Mismatch> getMismatches() {
+            return Collections.unmodifiableList(mismatches);
+        }
+        
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+        
+        public double getAccountsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : accountsChecked * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d accounts in %d ranges, %d transactions, %d archive segments: " +
+                                 "%d mismatched, %d baselined, %d settled, %.0f ms (%.0f accounts/s)",
+                                 accountsChecked, partitions, transactionsRead, segments,
+                                 mismatches.size(), baselined, settled, getElapsedMillis(), getAccountsPerSecond());
+        }
+    }
+}
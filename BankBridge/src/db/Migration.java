@@ -0,0 +1,56 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A single versioned schema change
+ * Migrations are applied in version order by MigrationRunner, each inside its own transaction
+ */
+public abstract class Migration {
+    private final int version;
+    private final String description;
+    
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+    
+    /**
+     * Apply the schema change (runs inside a transaction)
+     */
+    public abstract void apply(Connection connection) throws SQLException;
+    
+    /**
+     * Whether foreign key enforcement must be off while this migration runs
+     * (needed when tables are dropped and rebuilt)
+     */
+    public boolean requiresForeignKeysOff() {
+        return false;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * Factory for migrations made of plain SQL statements
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description) {
+            @Override
+            public void apply(Connection connection) throws SQLException {
+                try (Statement stmt = connection.createStatement()) {
+                    for (String sql : statements) {
+                        stmt.execute(sql);
+                    }
+                }
+            }
+        };
+    }
+}
\ No newline at end of file
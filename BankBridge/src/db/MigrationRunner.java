@@ -0,0 +1,171 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import model.EpochTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Applies pending schema migrations in version order
+ * The applied version is recorded in the schema_version table, in the same
+ * transaction as the migration itself, so a failed migration leaves no trace.
+ */
+public class MigrationRunner {
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final long DEFAULT_CHUNK_PAUSE_MILLIS = 5;
+    
+    private final Connection connection;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+    
+    public MigrationRunner(Connection connection) {
+        this(connection, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_PAUSE_MILLIS);
+    }
+    
+    /**
+     * @param chunkSize rows per backfill transaction
+     * @param chunkPauseMillis pause between backfill chunks so other writers can take the lock
+     */
+    public MigrationRunner(Connection connection, int chunkSize, long chunkPauseMillis) {
+        this.connection = connection;
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+    
+    /**
+     * Apply all migrations newer than the recorded schema version
+     */
+    public void migrate(List<Migration> migrations) throws DatabaseConnectionException {
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(
+                    "CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY," +
+                    "description TEXT NOT NULL," +
+                    "applied_at INTEGER NOT NULL," +
+                    "duration_ms INTEGER NOT NULL" +
+                    ")"
+                );
+            }
+            
+            int current = getCurrentVersion();
+            int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+            if (current > latest) {
+                System.err.println("Database schema version " + current +
+                                   " is newer than this application (" + latest + ")");
+                return;
+            }
+            
+            for (Migration migration : migrations) {
+                if (migration.getVersion() > current) {
+                    applyMigration(migration);
+                    current = migration.getVersion();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Schema migration failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get the highest applied migration version (0 for a fresh database)
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    private void applyMigration(Migration migration) throws SQLException {
+        System.out.println("Applying migration " + migration.getVersion() + ": " + migration.getDescription());
+        long start = System.currentTimeMillis();
+        
+        if (migration.requiresForeignKeysOff()) {
+            // PRAGMA foreign_keys is a no-op inside a transaction, so toggle it around the migration
+            setForeignKeys(false);
+        }
+        try {
+            if (migration instanceof BackfillMigration) {
+                BackfillMigration backfill = (BackfillMigration) migration;
+                inTransaction(() -> backfill.apply(connection));
+                
+                long rows = 0;
+                int processed;
+                do {
+                    int[] chunk = new int[1];
+                    inTransaction(() -> chunk[0] = backfill.backfillChunk(connection, chunkSize));
+                    processed = chunk[0];
+                    rows += processed;
+                    pauseBetweenChunks(processed);
+                } while (processed > 0);
+                System.out.println("  backfilled " + rows + " rows");
+                
+                inTransaction(() -> {
+                    backfill.finish(connection);
+                    recordVersion(migration, start);
+                });
+            } else {
+                inTransaction(() -> {
+                    migration.apply(connection);
+                    recordVersion(migration, start);
+                });
+            }
+        } finally {
+            if (migration.requiresForeignKeysOff()) {
+                setForeignKeys(true);
+            }
+        }
+    }
+    
+    private void recordVersion(Migration migration, long start) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_at, duration_ms) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setLong(3, EpochTime.now());
+            pstmt.setLong(4, System.currentTimeMillis() - start);
+            pstmt.executeUpdate();
+        }
+    }
+    
+    private void inTransaction(SqlWork work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    private void pauseBetweenChunks(int processed) {
+        if (processed > 0 && chunkPauseMillis > 0) {
+            try {
+                Thread.sleep(chunkPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private void setForeignKeys(boolean enabled) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = " + (enabled ? "ON" : "OFF"));
+        }
+    }
+    
+    /**
+     * Unit of work run inside a transaction
+     */
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+}
\ No newline at end of file
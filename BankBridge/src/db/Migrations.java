@@ -0,0 +1,157 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered list of all schema migrations
+ * New schema changes are appended here with the next version number;
+ * released versions must never be edited or renumbered.
+ */
+public final class Migrations {
+    
+    // Table definitions, formatted with the table name so migrations can rebuild them
+    static final String USERS_TABLE =
+        "CREATE TABLE IF NOT EXISTS %s (" +
+        "user_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+        "username TEXT UNIQUE NOT NULL," +
+        "password_hash TEXT NOT NULL," +
+        "full_name TEXT NOT NULL," +
+        "email TEXT," +
+        "is_admin INTEGER DEFAULT 0," +
+        "created_at INTEGER NOT NULL" +
+        ")";
+    
+    static final String ACCOUNTS_TABLE =
+        "CREATE TABLE IF NOT EXISTS %s (" +
+        "account_number TEXT PRIMARY KEY," +
+        "user_id INTEGER NOT NULL," +
+        "account_type TEXT NOT NULL CHECK(account_type IN ('SAVINGS', 'CURRENT'))," +
+        "balance REAL NOT NULL DEFAULT 0.0," +
+        "is_active INTEGER DEFAULT 1," +
+        "created_at INTEGER NOT NULL," +
+        "FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE" +
+        ")";
+    
+    static final String TRANSACTIONS_TABLE =
+        "CREATE TABLE IF NOT EXISTS %s (" +
+        "transaction_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+        "account_number TEXT NOT NULL," +
+        "transaction_type TEXT NOT NULL CHECK(transaction_type IN ('DEPOSIT', 'WITHDRAW', 'TRANSFER'))," +
+        "amount REAL NOT NULL," +
+        "to_account TEXT," +
+        "description TEXT," +
+        "timestamp INTEGER NOT NULL," +
+        "FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE" +
+        ")";
+    
+    static final String USER_ACCOUNTS_INDEX =
+        "CREATE INDEX IF NOT EXISTS idx_user_accounts ON accounts(user_id)";
+    
+    static final String ACCOUNT_TRANSACTIONS_INDEX =
+        "CREATE INDEX IF NOT EXISTS idx_account_transactions ON transactions(account_number)";
+    
+    private Migrations() {
+    }
+    
+    /**
+     * All migrations in version order
+     */
+    public static List<Migration> all() {
+        List<Migration> migrations = new ArrayList<>();
+        
+        // Baseline schema (no-op on databases created before versioning)
+        migrations.add(Migration.sql(1, "Create users, accounts and transactions tables",
+            String.format(USERS_TABLE, "users"),
+            String.format(ACCOUNTS_TABLE, "accounts"),
+            String.format(TRANSACTIONS_TABLE, "transactions"),
+            USER_ACCOUNTS_INDEX,
+            ACCOUNT_TRANSACTIONS_INDEX
+        ));
+        
+        // ISO-8601 TEXT timestamps from older databases to epoch microseconds
+        migrations.add(new TimestampColumnMigration(2, "users", USERS_TABLE, "created_at"));
+        migrations.add(new TimestampColumnMigration(3, "accounts", ACCOUNTS_TABLE, "created_at",
+            USER_ACCOUNTS_INDEX));
+        migrations.add(new TimestampColumnMigration(4, "transactions", TRANSACTIONS_TABLE, "timestamp",
+            ACCOUNT_TRANSACTIONS_INDEX));
+        
+        migrations.add(Migration.sql(5, "Index transactions by timestamp",
+            "CREATE INDEX IF NOT EXISTS idx_transaction_timestamp ON transactions(timestamp)"
+        ));
+        
+        migrations.add(new DailyTotalsMigration(6));
+        
+        // Registry of cold transaction segments (see TransactionArchive)
+        migrations.add(Migration.sql(7, "Create transaction archive registry",
+            "CREATE TABLE IF NOT EXISTS transaction_archives (" +
+            "period TEXT PRIMARY KEY," +
+            "file_name TEXT NOT NULL," +
+            "min_transaction_id INTEGER NOT NULL," +
+            "max_transaction_id INTEGER NOT NULL," +
+            "min_timestamp INTEGER NOT NULL," +
+            "max_timestamp INTEGER NOT NULL," +
+            "row_count INTEGER NOT NULL," +
+            "archived_at INTEGER NOT NULL" +
+            ")",
+            "CREATE INDEX IF NOT EXISTS idx_transaction_to_account ON transactions(to_account)"
+        ));
+        
+        // Balance an account was opened with, so LedgerReconciler can replay its history.
+        // Left NULL for existing accounts; the first reconciliation fills it in.
+        migrations.add(Migration.sql(8, "Record account opening balances",
+            "ALTER TABLE accounts ADD COLUMN opening_balance REAL"
+        ));
+        
+        // Hash-chained copy of every committed transaction (see AuditChain)
+        migrations.add(Migration.sql(9, "Create hash-chained audit log",
+            "CREATE TABLE IF NOT EXISTS audit_log (" +
+            "seq INTEGER PRIMARY KEY," +
+            "transaction_id INTEGER NOT NULL UNIQUE," +
+            "account_number TEXT NOT NULL," +
+            "transaction_type TEXT NOT NULL," +
+            "amount REAL NOT NULL," +
+            "to_account TEXT," +
+            "timestamp INTEGER NOT NULL," +
+            "hash TEXT NOT NULL" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS audit_anchors (" +
+            "seq INTEGER PRIMARY KEY," +
+            "hash TEXT NOT NULL," +
+            "created_at INTEGER NOT NULL" +
+            ")"
+        ));
+        
+        // Default sort orders of the paged admin grids (see PagedQuery)
+        migrations.add(Migration.sql(10, "Index users and accounts by creation time",
+            "CREATE INDEX IF NOT EXISTS idx_user_created ON users(created_at)",
+            "CREATE INDEX IF NOT EXISTS idx_account_created ON accounts(created_at)"
+        ));
+        
+        // Resume points of the offline batch file processor (see BatchLedger)
+        migrations.add(Migration.sql(11, "Create batch file checkpoints",
+            "CREATE TABLE IF NOT EXISTS batch_checkpoints (" +
+            "file_key TEXT PRIMARY KEY," +
+            "file_name TEXT NOT NULL," +
+            "last_line INTEGER NOT NULL," +
+            "applied INTEGER NOT NULL," +
+            "rejected INTEGER NOT NULL," +
+            "results_offset INTEGER NOT NULL," +
+            "rejects_offset INTEGER NOT NULL," +
+            "updated_at INTEGER NOT NULL" +
+            ")"
+        ));
+        
+        // One-time application state, e.g. that the default users were created (see SettingsDAO)
+        migrations.add(Migration.sql(12, "Create application settings",
+            "CREATE TABLE IF NOT EXISTS app_settings (" +
+            "name TEXT PRIMARY KEY," +
+            "value TEXT NOT NULL," +
+            "updated_at INTEGER NOT NULL" +
+            ")"
+        ));
+        
+        return Collections.unmodifiableList(migrations);
+    }
+}
\ No newline at end of file
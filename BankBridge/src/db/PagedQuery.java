@@ -0,0 +1,123 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page at a time over a table, with sorting and a text filter done in SQL
+ * Used by grids that only hold the rows on screen. Sort columns are checked against the
+ * ones the owning DAO allows, so caller input never reaches the SQL text.
+ *
+ * Pages are fetched with a deferred join: the OFFSET skip walks only the sort index
+ * (rowid is part of every index), and full rows are read for the page alone. Ties are
+ * broken by rowid so consecutive pages never overlap or skip rows.
+ */
+public class PagedQuery<T> {
+    private final Connection connection;
+    private final String table;
+    private final List<String> sortColumns;
+    private final List<String> filterColumns;
+    private final RowMapper<T> mapper;
+    
+    /**
+     * @param sortColumns columns the rows may be sorted by
+     * @param filterColumns text columns matched by the filter
+     */
+    PagedQuery(Connection connection, String table, List<String> sortColumns,
+               List<String> filterColumns, RowMapper<T> mapper) {
+        this.connection = connection;
+        this.table = table;
+        this.sortColumns = sortColumns;
+        this.filterColumns = filterColumns;
+        this.mapper = mapper;
+    }
+    
+    /**
+     * Number of rows matching a filter (null or blank matches everything)
+     */
+    public int count(String filter) throws DatabaseConnectionException {
+        String sql = "SELECT COUNT(*) FROM " + table + where(filter);
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            bindFilter(pstmt, filter, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to count " + table + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Fetch the rows at [offset, offset + limit) in the given order
+     */
+    public List<T> fetch(String filter, String sortColumn, boolean ascending, int offset, int limit)
+            throws DatabaseConnectionException {
+        if (!isSortable(sortColumn)) {
+            throw new IllegalArgumentException("Cannot sort " + table + " by " + sortColumn);
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        String orderBy = " ORDER BY " + sortColumn + direction + ", rowid" + direction;
+        String sql = "SELECT * FROM " + table + " WHERE rowid IN (" +
+                     "SELECT rowid FROM " + table + where(filter) + orderBy + " LIMIT ? OFFSET ?)" +
+                     orderBy;
+        List<T> rows = new ArrayList<>(limit);
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = bindFilter(pstmt, filter, 1);
+            pstmt.setInt(index++, limit);
+            pstmt.setInt(index, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch " + table + ": " + e.getMessage(), e);
+        }
+    }
+    
+    public boolean isSortable(String column) {
+        return sortColumns.contains(column);
+    }
+    
+    private String where(String filter) {
+        if (isBlank(filter)) {
+            return "";
+        }
+        List<String> conditions = new ArrayList<>();
+        for (String column : filterColumns) {
+            conditions.add(column + " LIKE ? ESCAPE '\\'");
+        }
+        return " WHERE (" + String.join(" OR ", conditions) + ")";
+    }
+    
+    private int bindFilter(PreparedStatement pstmt, String filter, int index) throws SQLException {
+        if (isBlank(filter)) {
+            return index;
+        }
+        String pattern = "%" + filter.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        for (int i = 0; i < filterColumns.size(); i++) {
+            pstmt.setString(index++, pattern);
+        }
+        return index;
+    }
+    
+    private static boolean isBlank(String filter) {
+        return filter == null || filter.trim().isEmpty();
+    }
+    
+    /**
+     * Builds one row object from the current ResultSet row
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,39 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Read-only connections shared by the workers of one parallel scan
+ * Connections are opened on demand, reused as workers release them, and all
+ * closed by closeAll() when the scan is over.
+ */
+class ReaderPool {
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Connection> opened = new ConcurrentLinkedQueue<>();
+    
+    Connection take() throws DatabaseConnectionException {
+        Connection connection = idle.poll();
+        if (connection == null) {
+            connection = DBConnection.getInstance().openReadOnlyConnection();
+            opened.add(connection);
+        }
+        return connection;
+    }
+    
+    void release(Connection connection) {
+        idle.add(connection);
+    }
+    
+    void closeAll() {
+        for (Connection connection : opened) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close reader connection: " + e.getMessage());
+            }
+        }
+    }
+}
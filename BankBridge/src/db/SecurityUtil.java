@@ -3,42 +3,145 @@ package db;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
 
 /**
  * Utility class for security operations
- * Handles password hashing using SHA-256
+ * Passwords are hashed with salted PBKDF2-HMAC-SHA256 and stored as
+ * pbkdf2-sha256$<iterations>$<salt>$<hash> (Base64). The cost is set with
+ * -Dbankbridge.password.iterations (default 310000); older SHA-256 hex hashes
+ * still verify and are upgraded on the next successful login.
  */
 public class SecurityUtil {
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PBKDF2_PREFIX = "pbkdf2-sha256$";
+    private static final int DEFAULT_ITERATIONS = 310_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
     
-    /**
-     * Hash a password using SHA-256
-     */
-    public static String hashPassword(String password) {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static volatile String dummyHash;
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-            
-            // Convert byte array to hex string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 algorithm not available", e);
         }
+    });
+    
+    /**
+     * Hash a password with a fresh salt at the configured cost
+     */
+    public static String hashPassword(String password) {
+        return hashPassword(password, getIterations());
+    }
+    
+    /**
+     * Hash a password with a fresh salt at an explicit cost
+     */
+    public static String hashPassword(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PBKDF2_PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
     }
     
     /**
-     * Verify a password against a hash
+     * Verify a password against a stored hash (PBKDF2 or legacy SHA-256)
      */
     public static boolean verifyPassword(String password, String hash) {
-        String passwordHash = hashPassword(password);
-        return passwordHash.equals(hash);
+        if (hash == null) {
+            return false;
+        }
+        if (!hash.startsWith(PBKDF2_PREFIX)) {
+            byte[] expected = hash.getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(legacyHash(password).getBytes(StandardCharsets.US_ASCII), expected);
+        }
+        
+        String[] parts = hash.substring(PBKDF2_PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            // Constant-time comparison so timing does not leak how much of the hash matched
+            return MessageDigest.isEqual(pbkdf2(password, salt, iterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Hash of a random password at the configured cost, computed once
+     * Logins for unknown usernames are checked against it, so they take as long as a real
+     * check and response times do not reveal which usernames exist.
+     */
+    public static String getDummyHash() {
+        String hash = dummyHash;
+        if (hash == null || !hash.startsWith(PBKDF2_PREFIX + getIterations() + "$")) {
+            byte[] password = new byte[SALT_BYTES];
+            RANDOM.nextBytes(password);
+            hash = hashPassword(Base64.getEncoder().encodeToString(password));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+    
+    /**
+     * Whether a stored hash is legacy or weaker than the configured cost
+     */
+    public static boolean needsRehash(String hash) {
+        if (hash == null || !hash.startsWith(PBKDF2_PREFIX)) {
+            return true;
+        }
+        int end = hash.indexOf('$', PBKDF2_PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(hash.substring(PBKDF2_PREFIX.length(), end)) < getIterations();
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+    
+    /**
+     * Configured PBKDF2 iteration count
+     */
+    public static int getIterations() {
+        return Integer.getInteger("bankbridge.password.iterations", DEFAULT_ITERATIONS);
+    }
+    
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new RuntimeException(PBKDF2_ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+    
+    /**
+     * Unsalted SHA-256 hex hash used before PBKDF2; only kept to verify old rows
+     */
+    private static String legacyHash(String password) {
+        byte[] hash = SHA256.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        
+        // Convert byte array to hex string
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
     }
     
     /**
@@ -0,0 +1,56 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import model.EpochTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Data Access Object for named application settings
+ * Meant for small one-time state, such as marking that startup seeding has already run.
+ */
+public class SettingsDAO {
+    public static final String DEFAULT_USERS_SEEDED = "default_users_seeded";
+    
+    private Connection connection;
+    
+    public SettingsDAO() throws DatabaseConnectionException {
+        this(DBConnection.getInstance().getConnection());
+    }
+    
+    public SettingsDAO(Connection connection) {
+        this.connection = connection;
+    }
+    
+    /**
+     * Value of a setting, or null if it was never set
+     */
+    public String get(String name) throws DatabaseConnectionException {
+        String sql = "SELECT value FROM app_settings WHERE name = ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read setting: " + e.getMessage(), e);
+        }
+    }
+    
+    public void put(String name, String value) throws DatabaseConnectionException {
+        String sql = "INSERT INTO app_settings (name, value, updated_at) VALUES (?, ?, ?) " +
+                     "ON CONFLICT (name) DO UPDATE SET value = excluded.value, updated_at = excluded.updated_at";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, name);
+            pstmt.setString(2, value);
+            pstmt.setLong(3, EpochTime.now());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to save setting: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import java.sql.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only aggregate queries for audit and admin statistics
+ * Counts and totals are computed by SQLite with SUM/COUNT/GROUP BY, so no
+ * User, Account or Transaction objects are built for them.
+ */
+public class StatisticsDAO {
+    /** Amount above which a transaction is reported as large */
+    public static final double LARGE_TRANSACTION_THRESHOLD = 10000.0;
+    
+    private Connection connection;
+    
+    public StatisticsDAO() throws DatabaseConnectionException {
+        this(DBConnection.getInstance().getConnection());
+    }
+    
+    /**
+     * DAO on a specific connection, e.g. a reader connection of a background loader
+     */
+    public StatisticsDAO(Connection connection) {
+        this.connection = connection;
+    }
+    
+    /**
+     * Get user, account and transaction totals in two queries
+     */
+    public Summary getSummary() throws DatabaseConnectionException {
+        String accountsSql = "SELECT " +
+                             "(SELECT COUNT(*) FROM users) AS user_count, " +
+                             "(SELECT COALESCE(SUM(is_admin), 0) FROM users) AS admin_count, " +
+                             "COUNT(*) AS account_count, " +
+                             "COALESCE(SUM(is_active), 0) AS active_count, " +
+                             "COALESCE(SUM(balance), 0) AS total_balance, " +
+                             "COALESCE(SUM(CASE WHEN is_active = 1 THEN balance END), 0) AS active_balance, " +
+                             "MAX(created_at) AS newest_account " +
+                             "FROM accounts";
+        // Daily totals cover archived history too, and are far smaller than the ledger
+        String volumeSql = "SELECT transaction_type, SUM(total_amount) AS total, SUM(transaction_count) AS count " +
+                           "FROM transaction_daily_totals GROUP BY transaction_type ORDER BY transaction_type";
+        Summary summary = new Summary();
+        
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(accountsSql)) {
+                if (rs.next()) {
+                    summary.userCount = rs.getLong("user_count");
+                    summary.adminCount = rs.getLong("admin_count");
+                    summary.accountCount = rs.getLong("account_count");
+                    summary.activeAccountCount = rs.getLong("active_count");
+                    summary.totalBalance = rs.getDouble("total_balance");
+                    summary.activeBalance = rs.getDouble("active_balance");
+                    summary.newestAccountCreatedAt = rs.getLong("newest_account");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(volumeSql)) {
+                while (rs.next()) {
+                    String type = rs.getString("transaction_type");
+                    summary.volumeByType.put(type, rs.getDouble("total"));
+                    summary.countByType.put(type, rs.getLong("count"));
+                    summary.transactionCount += rs.getLong("count");
+                }
+            }
+            return summary;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to calculate statistics: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Count transactions above an amount in the live table
+     * (the rows themselves come from TransactionDAO.findLargeTransactions, which is bounded)
+     */
+    public long countLargeTransactions(double threshold) throws DatabaseConnectionException {
+        String sql = "SELECT COUNT(*) FROM transactions WHERE amount > ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDouble(1, threshold);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to count large transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Snapshot of system-wide totals
+     */
+    public static class Summary {
+        private long userCount;
+        private long adminCount;
+        private long accountCount;
+        private long activeAccountCount;
+        private double totalBalance;
+        private double activeBalance;
+        private long newestAccountCreatedAt;
+        private long transactionCount;
+        private Map<String, Double> volumeByType = new LinkedHashMap<>();
+        private Map<String, Long> countByType = new LinkedHashMap<>();
+        
+        public long getUserCount() {
+            return userCount;
+        }
+        
+        public long getAdminCount() {
+            return adminCount;
+        }
+        
+        public long getAccountCount() {
+            return accountCount;
+        }
+        
+        public long getActiveAccountCount() {
+            return activeAccountCount;
+        }
+        
+        /**
+         * Balance over all accounts, active or not
+         */
+        public double getTotalBalance() {
+            return totalBalance;
+        }
+        
+        /**
+         * Balance over active accounts only
+         */
+        public double getActiveBalance() {
+            return activeBalance;
+        }
+        
+        /**
+         * created_at (epoch micros) of the newest account, 0 if there are none
+         */
+        public long getNewestAccountCreatedAt() {
+            return newestAccountCreatedAt;
+        }
+        
+        public long getTransactionCount() {
+            return transactionCount;
+        }
+        
+        public Map<String, Double> getVolumeByType() {
+            return Collections.unmodifiableMap(volumeByType);
+        }
+        
+        public Map<String, Long> getCountByType() {
+            return Collections.unmodifiableMap(countByType);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package db;
+
+import model.EpochTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts an ISO-8601 TEXT timestamp column to INTEGER epoch microseconds
+ * SQLite cannot change a column type in place, so rows are copied chunk by chunk
+ * into a rebuilt table, which is swapped in when the copy is complete.
+ * An interrupted run resumes safely: rows already copied are ignored.
+ */
+public class TimestampColumnMigration extends BackfillMigration {
+    private final String table;
+    private final String tableDefinition;
+    private final String column;
+    private final String newTable;
+    private final String[] indexDefinitions;
+    private boolean needed;
+    private long lastRowId;
+    
+    /**
+     * @param tableDefinition CREATE TABLE statement with %s in place of the table name
+     * @param indexDefinitions indexes to recreate after the rebuilt table is swapped in
+     */
+    public TimestampColumnMigration(int version, String table, String tableDefinition, String column,
+                                    String... indexDefinitions) {
+        super(version, "Convert " + table + "." + column + " to epoch microseconds");
+        this.table = table;
+        this.tableDefinition = tableDefinition;
+        this.column = column;
+        this.newTable = table + "_new";
+        this.indexDefinitions = indexDefinitions;
+    }
+    
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        needed = hasTextColumn(connection);
+        lastRowId = 0;
+        if (needed) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(String.format(tableDefinition, newTable));
+            }
+        }
+    }
+    
+    @Override
+    public int backfillChunk(Connection connection, int chunkSize) throws SQLException {
+        if (!needed) {
+            return 0;
+        }
+        
+        String select = "SELECT rowid AS migration_rowid, * FROM " + table +
+                        " WHERE rowid > ? ORDER BY rowid LIMIT ?";
+        int copied = 0;
+        
+        try (PreparedStatement selectStmt = connection.prepareStatement(select)) {
+            selectStmt.setLong(1, lastRowId);
+            selectStmt.setInt(2, chunkSize);
+            
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columnCount = meta.getColumnCount() - 1;
+                int timestampIndex = -1;
+                StringBuilder placeholders = new StringBuilder();
+                for (int i = 1; i <= columnCount; i++) {
+                    if (column.equalsIgnoreCase(meta.getColumnLabel(i + 1))) {
+                        timestampIndex = i;
+                    }
+                    placeholders.append(i == 1 ? "?" : ", ?");
+                }
+                
+                String insert = "INSERT OR IGNORE INTO " + newTable + " VALUES (" + placeholders + ")";
+                try (PreparedStatement insertStmt = connection.prepareStatement(insert)) {
+                    while (rs.next()) {
+                        lastRowId = rs.getLong(1);
+                        for (int i = 1; i <= columnCount; i++) {
+                            Object value = rs.getObject(i + 1);
+                            if (i == timestampIndex && value instanceof String) {
+                                value = parseLegacyTimestamp((String) value, lastRowId);
+                            }
+                            insertStmt.setObject(i, value);
+                        }
+                        insertStmt.addBatch();
+                        copied++;
+                    }
+                    insertStmt.executeBatch();
+                }
+            }
+        }
+        return copied;
+    }
+    
+    @Override
+    public void finish(Connection connection) throws SQLException {
+        if (!needed) {
+            return;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE " + table);
+            stmt.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+            for (String index : indexDefinitions) {
+                stmt.execute(index);
+            }
+        }
+    }
+    
+    @Override
+    public boolean requiresForeignKeysOff() {
+        return true;
+    }
+    
+    private boolean hasTextColumn(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return "TEXT".equalsIgnoreCase(rs.getString("type"));
+                }
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Parse an ISO-8601 (or SQLite datetime()) string into epoch microseconds
+     * A value that cannot be parsed fails the migration rather than inventing a time, which
+     * would move the row in history, daily totals and archive months. Fix or remove the row
+     * and start again; rows copied so far are kept.
+     * @throws SQLException if the value is not a timestamp
+     */
+    private long parseLegacyTimestamp(String value, long rowId) throws SQLException {
+        try {
+            return EpochTime.toMicros(LocalDateTime.parse(value.trim().replace(' ', 'T')));
+        } catch (DateTimeParseException e) {
+            throw new SQLException("Unparseable " + table + "." + column + " '" + value + "' at rowid " + rowId, e);
+        }
+    }
+}
\ No newline at end of file
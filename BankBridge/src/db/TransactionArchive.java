@@ -0,0 +1,358 @@
+package db;
+
+import exceptions.DatabaseConnectionException;
+import model.EpochTime;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hot/cold storage for the transactions table
+ * Transactions older than a horizon are moved, one calendar month per file, into
+ * compact read-only SQLite segments under database/archive. Segments are listed in
+ * the transaction_archives table and ATTACHed only while a query reads from them.
+ */
+public class TransactionArchive {
+    private static final String ARCHIVE_DIR = "database/archive";
+    private static final int ARCHIVE_CHUNK_SIZE = 5000;
+    
+    private Connection connection;
+    
+    /**
+     * Archive access on a specific connection; segments are attached to that connection
+     * Archiving needs a connection of its own (see DBConnection.openWriterConnection()), since
+     * it ATTACHes, commits in chunks and VACUUMs; none of that may share a connection with
+     * other writers.
+     */
+    public TransactionArchive(Connection connection) {
+        this.connection = connection;
+    }
+    
+    /**
+     * Connection the segments are attached to, for statements run inside a SegmentQuery
+     */
+    Connection getConnection() {
+        return connection;
+    }
+    
+    /**
+     * Move every whole month older than horizonDays into its archive segment
+     * @return number of transactions archived
+     */
+    public int archiveOlderThan(int horizonDays) throws DatabaseConnectionException {
+        YearMonth cutoffMonth = YearMonth.from(LocalDate.now().minusDays(horizonDays));
+        long cutoff = EpochTime.toMicros(cutoffMonth.atDay(1).atStartOfDay());
+        
+        try {
+            // Jump from one populated month to the next, so empty months get no file
+            int archived = 0;
+            Long oldest;
+            while ((oldest = findOldestBefore(cutoff)) != null) {
+                archived += archiveMonth(YearMonth.from(EpochTime.toLocalDateTime(oldest)));
+            }
+            return archived;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to archive transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get archive segments overlapping a time range, newest first
+     */
+    public List<Segment> findSegments(long fromMicros, long toMicros) throws DatabaseConnectionException {
+        return findSegments(connection, fromMicros, toMicros);
+    }
+    
+    /**
+     * Get archive segments overlapping a time range, newest first, through any connection
+     */
+    static List<Segment> findSegments(Connection connection, long fromMicros, long toMicros)
+            throws DatabaseConnectionException {
+        String sql = "SELECT * FROM transaction_archives WHERE max_timestamp >= ? AND min_timestamp <= ? " +
+                     "ORDER BY period DESC";
+        List<Segment> segments = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, fromMicros);
+            pstmt.setLong(2, toMicros);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    segments.add(extractSegmentFromResultSet(rs));
+                }
+            }
+            return segments;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to list archive segments: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get archive segments holding ids after a transaction id, oldest first
+     */
+    static List<Segment> findSegmentsAfterId(Connection connection, long transactionId)
+            throws DatabaseConnectionException {
+        String sql = "SELECT * FROM transaction_archives WHERE max_transaction_id > ? ORDER BY min_transaction_id";
+        List<Segment> segments = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, transactionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    segments.add(extractSegmentFromResultSet(rs));
+                }
+            }
+            return segments;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to list archive segments: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get the segment holding a transaction id, or null if it is not archived
+     */
+    public Segment findSegmentForId(long transactionId) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM transaction_archives WHERE ? BETWEEN min_transaction_id AND max_transaction_id";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, transactionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? extractSegmentFromResultSet(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to find archive segment: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Attach a segment read-only, run a query against its schema, and detach it again
+     */
+    public <T> T query(Segment segment, SegmentQuery<T> query) throws DatabaseConnectionException {
+        String schema = segment.getSchemaName();
+        
+        try {
+            execute(attachReadOnlySql(segment));
+            try {
+                return query.run(schema);
+            } finally {
+                execute("DETACH DATABASE " + schema);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read archive " + segment.getPeriod() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Copy one month into its segment file and delete it from the hot table
+     * Rows move in id-ordered chunks. A commit spanning main and an attached file is not
+     * atomic in WAL mode, so each chunk takes three commits: copy into the segment, upsert
+     * the segment's transaction_archives row, then delete from main only the rows found in
+     * the segment. A run interrupted in between leaves the rows in both places (readers may
+     * see them twice) until the month is archived again, which repeats the chunk.
+     */
+    private int archiveMonth(YearMonth month) throws SQLException {
+        long from = EpochTime.toMicros(month.atDay(1).atStartOfDay());
+        long to = EpochTime.toMicros(month.plusMonths(1).atDay(1).atStartOfDay());
+        Segment segment = new Segment(month.toString());
+        
+        File dir = new File(ARCHIVE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new SQLException("Cannot create archive directory " + dir.getAbsolutePath());
+        }
+        File file = new File(dir, segment.getFileName());
+        if (file.exists()) {
+            file.setWritable(true);
+        }
+        
+        String schema = segment.getSchemaName();
+        int archived = 0;
+        execute("ATTACH DATABASE '" + sqlPath(file) + "' AS " + schema);
+        try {
+            execute("CREATE TABLE IF NOT EXISTS " + schema + ".transactions (" +
+                    "transaction_id INTEGER PRIMARY KEY," +
+                    "account_number TEXT NOT NULL," +
+                    "transaction_type TEXT NOT NULL," +
+                    "amount REAL NOT NULL," +
+                    "to_account TEXT," +
+                    "description TEXT," +
+                    "timestamp INTEGER NOT NULL" +
+                    ")");
+            // Indexed up front: the segment is readable as soon as its first chunk is registered
+            execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_account ON transactions(account_number)");
+            execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_to_account ON transactions(to_account)");
+            execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_timestamp ON transactions(timestamp)");
+            
+            String bound = "SELECT MAX(transaction_id) FROM (SELECT transaction_id FROM main.transactions " +
+                           "WHERE timestamp >= ? AND timestamp < ? ORDER BY transaction_id LIMIT ?)";
+            String copy = "INSERT OR IGNORE INTO " + schema + ".transactions " +
+                          "SELECT transaction_id, account_number, transaction_type, amount, to_account, description, timestamp " +
+                          "FROM main.transactions WHERE timestamp >= ? AND timestamp < ? AND transaction_id <= ?";
+            String verify = "SELECT COUNT(*), COUNT(a.transaction_id) FROM main.transactions m " +
+                            "LEFT JOIN " + schema + ".transactions a ON a.transaction_id = m.transaction_id " +
+                            "WHERE m.timestamp >= ? AND m.timestamp < ? AND m.transaction_id <= ?";
+            String delete = "DELETE FROM main.transactions WHERE timestamp >= ? AND timestamp < ? AND transaction_id <= ? " +
+                            "AND transaction_id IN (SELECT transaction_id FROM " + schema + ".transactions)";
+            
+            try (PreparedStatement boundStmt = connection.prepareStatement(bound);
+                 PreparedStatement copyStmt = connection.prepareStatement(copy);
+                 PreparedStatement verifyStmt = connection.prepareStatement(verify);
+                 PreparedStatement deleteStmt = connection.prepareStatement(delete)) {
+                while (true) {
+                    long maxId;
+                    boundStmt.setLong(1, from);
+                    boundStmt.setLong(2, to);
+                    boundStmt.setInt(3, ARCHIVE_CHUNK_SIZE);
+                    try (ResultSet rs = boundStmt.executeQuery()) {
+                        if (!rs.next() || rs.getObject(1) == null) {
+                            break;
+                        }
+                        maxId = rs.getLong(1);
+                    }
+                    for (PreparedStatement pstmt : new PreparedStatement[] {copyStmt, verifyStmt, deleteStmt}) {
+                        pstmt.setLong(1, from);
+                        pstmt.setLong(2, to);
+                        pstmt.setLong(3, maxId);
+                    }
+                    
+                    // Each statement commits on its own and writes to one database file only
+                    copyStmt.executeUpdate();
+                    registerSegment(segment, schema);
+                    try (ResultSet rs = verifyStmt.executeQuery()) {
+                        rs.next();
+                        if (rs.getLong(1) != rs.getLong(2)) {
+                            throw new SQLException("Archive " + segment.getPeriod() + " holds " + rs.getLong(2) +
+                                                   " of " + rs.getLong(1) + " rows up to id " + maxId);
+                        }
+                    }
+                    archived += deleteStmt.executeUpdate();
+                }
+            }
+            
+            if (archived > 0) {
+                execute("VACUUM " + schema);
+                System.out.println("Archived " + archived + " transactions to " + file.getName());
+            }
+        } finally {
+            execute("DETACH DATABASE " + schema);
+            file.setReadOnly();
+        }
+        return archived;
+    }
+    
+    private Long findOldestBefore(long cutoff) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT MIN(timestamp) FROM transactions WHERE timestamp < ?")) {
+            pstmt.setLong(1, cutoff);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getObject(1) != null ? rs.getLong(1) : null;
+            }
+        }
+    }
+    
+    private void registerSegment(Segment segment, String schema) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO transaction_archives " +
+                     "(period, file_name, min_transaction_id, max_transaction_id, min_timestamp, max_timestamp, " +
+                     "row_count, archived_at) " +
+                     "SELECT ?, ?, MIN(transaction_id), MAX(transaction_id), MIN(timestamp), MAX(timestamp), " +
+                     "COUNT(*), ? FROM " + schema + ".transactions";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, segment.getPeriod());
+            pstmt.setString(2, segment.getFileName());
+            pstmt.setLong(3, EpochTime.now());
+            pstmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * ATTACH statement that opens a segment read-only under its schema name
+     */
+    static String attachReadOnlySql(Segment segment) {
+        String path = sqlPath(new File(ARCHIVE_DIR, segment.getFileName()));
+        return "ATTACH DATABASE 'file:" + path + "?mode=ro' AS " + segment.getSchemaName();
+    }
+    
+    /**
+     * Absolute path usable inside an ATTACH string literal (and file: URI)
+     */
+    private static String sqlPath(File file) {
+        return file.getAbsolutePath().replace('\\', '/').replace("'", "''");
+    }
+    
+    private void execute(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+    
+    private static Segment extractSegmentFromResultSet(ResultSet rs) throws SQLException {
+        Segment segment = new Segment(rs.getString("period"));
+        segment.minTransactionId = rs.getLong("min_transaction_id");
+        segment.maxTransactionId = rs.getLong("max_transaction_id");
+        segment.minTimestamp = rs.getLong("min_timestamp");
+        segment.maxTimestamp = rs.getLong("max_timestamp");
+        segment.rowCount = rs.getLong("row_count");
+        return segment;
+    }
+    
+    /**
+     * Query run against an attached segment schema
+     */
+    public interface SegmentQuery<T> {
+        T run(String schema) throws SQLException;
+    }
+    
+    /**
+     * One archived calendar month
+     */
+    public static class Segment {
+        private String period; // yyyy-MM
+        private long minTransactionId;
+        private long maxTransactionId;
+        private long minTimestamp;
+        private long maxTimestamp;
+        private long rowCount;
+        
+        public Segment(String period) {
+            this.period = period;
+        }
+        
+        public String getPeriod() {
+            return period;
+        }
+        
+        public String getFileName() {
+            return "transactions-" + period + ".db";
+        }
+        
+        public String getSchemaName() {
+            return "archive_" + period.replace('-', '_');
+        }
+        
+        public long getMinTransactionId() {
+            return minTransactionId;
+        }
+        
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+        
+        public long getMinTimestamp() {
+            return minTimestamp;
+        }
+        
+        public long getMaxTimestamp() {
+            return maxTimestamp;
+        }
+        
+        public long getRowCount() {
+            return rowCount;
+        }
+    }
+}
\ No newline at end of file
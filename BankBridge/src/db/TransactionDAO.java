@@ -3,26 +3,46 @@ package db;
 import exceptions.DatabaseConnectionException;
 import model.*;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for Transaction operations
  */
 public class TransactionDAO implements Repository<Transaction> {
+    private static final int HISTORY_LIMIT = 100;
+    private static final int RECENT_LIMIT = 1000;
+    
     private Connection connection;
+    private TransactionArchive archive;
     
     public TransactionDAO() throws DatabaseConnectionException {
-        this.connection = DBConnection.getInstance().getConnection();
+        this(DBConnection.getInstance().getConnection());
+    }
+    
+    /**
+     * DAO on a specific connection, e.g. a reader connection of a background loader
+     */
+    public TransactionDAO(Connection connection) {
+        this.connection = connection;
+        this.archive = new TransactionArchive(connection);
     }
     
     @Override
     public boolean create(Transaction transaction) throws DatabaseConnectionException {
         String sql = "INSERT INTO transactions (account_number, transaction_type, amount, to_account, description, timestamp) " +
                      "VALUES (?, ?, ?, ?, ?, ?)";
+        long timestamp = EpochTime.now();
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        // Ledger row and daily totals are written in the same commit
+        Connection writer = writeConnection();
+        boolean ownTransaction = false;
+        try (PreparedStatement pstmt = writer.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ownTransaction = beginIfAutoCommit(writer);
+            
             pstmt.setString(1, transaction.getAccountNumber());
             pstmt.setString(2, transaction.getTransactionType());
             pstmt.setDouble(3, transaction.getAmount());
@@ -35,27 +55,122 @@ public class TransactionDAO implements Repository<Transaction> {
             }
             
             pstmt.setString(5, transaction.getDescription());
-            pstmt.setString(6, LocalDateTime.now().toString());
+            pstmt.setLong(6, timestamp);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                // Hand the stored id and time back to the caller's object
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        transaction.setTransactionId(keys.getInt(1));
+                    }
+                }
+                transaction.setTimestampMicros(timestamp);
+                
+                updateDailyTotals(writer, transaction.getAccountNumber(), transaction.getTransactionType(),
+                                  timestamp, transaction.getAmount(), 1);
+            }
+            
+            if (ownTransaction) {
+                writer.commit();
+            }
+            if (rowsAffected > 0) {
+                // Hashed into the audit chain and published to the change feed later, off the commit path
+                AuditChain.getInstance().commitSignal();
+                ChangeFeed.getInstance().commitSignal();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
+            rollbackIfOwned(writer, ownTransaction);
             throw new DatabaseConnectionException("Failed to create transaction: " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit(writer, ownTransaction);
+        }
+    }
+    
+    /**
+     * Insert many transactions in one commit, e.g. a chunk of a batch file
+     * One prepared insert is reused for every row and the daily totals are added once per
+     * account, type and day instead of once per row. Joins the caller's transaction if one
+     * is open; stored ids and times are handed back to the objects as with create.
+     */
+    public int createAll(List<? extends Transaction> transactions) throws DatabaseConnectionException {
+        String sql = "INSERT INTO transactions (account_number, transaction_type, amount, to_account, description, timestamp) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        
+        Connection writer = writeConnection();
+        boolean ownTransaction = false;
+        try (PreparedStatement pstmt = writer.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ownTransaction = beginIfAutoCommit(writer);
+            
+            Map<String, DailyTotal> dailyTotals = new LinkedHashMap<>();
+            int inserted = 0;
+            for (Transaction transaction : transactions) {
+                long timestamp = EpochTime.now();
+                pstmt.setString(1, transaction.getAccountNumber());
+                pstmt.setString(2, transaction.getTransactionType());
+                pstmt.setDouble(3, transaction.getAmount());
+                pstmt.setString(4, transaction instanceof Transfer ? ((Transfer) transaction).getToAccountNumber() : null);
+                pstmt.setString(5, transaction.getDescription());
+                pstmt.setLong(6, timestamp);
+                if (pstmt.executeUpdate() == 0) {
+                    continue;
+                }
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        transaction.setTransactionId(keys.getInt(1));
+                    }
+                }
+                transaction.setTimestampMicros(timestamp);
+                inserted++;
+                
+                String key = transaction.getAccountNumber() + '\0' + transaction.getTransactionType() + '\0' +
+                             EpochTime.toEpochDay(timestamp);
+                DailyTotal total = dailyTotals.get(key);
+                if (total == null) {
+                    total = new DailyTotal(transaction.getAccountNumber(), transaction.getTransactionType(), timestamp);
+                    dailyTotals.put(key, total);
+                }
+                total.amount += transaction.getAmount();
+                total.count++;
+            }
+            for (DailyTotal total : dailyTotals.values()) {
+                updateDailyTotals(writer, total.accountNumber, total.transactionType, total.timestampMicros,
+                                  total.amount, total.count);
+            }
+            
+            if (ownTransaction) {
+                writer.commit();
+            }
+            if (inserted > 0) {
+                AuditChain.getInstance().commitSignal();
+                ChangeFeed.getInstance().commitSignal();
+            }
+            return inserted;
+        } catch (SQLException e) {
+            rollbackIfOwned(writer, ownTransaction);
+            throw new DatabaseConnectionException("Failed to create transactions: " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit(writer, ownTransaction);
         }
     }
     
     @Override
     public Transaction findById(String id) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM transactions WHERE transaction_id = ?";
+        String sql = "SELECT * FROM %s.transactions WHERE transaction_id = ?";
+        int transactionId = Integer.parseInt(id);
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, Integer.parseInt(id));
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return extractTransactionFromResultSet(rs);
+        try {
+            List<Transaction> found = queryTransactions(String.format(sql, "main"), transactionId);
+            if (found.isEmpty()) {
+                TransactionArchive segments = archiveReads();
+                TransactionArchive.Segment segment = segments.findSegmentForId(transactionId);
+                if (segment != null) {
+                    found = segments.query(segment, schema ->
+                        queryTransactions(segments.getConnection(), String.format(sql, schema), transactionId));
+                }
             }
-            return null;
+            return found.isEmpty() ? null : found.get(0);
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to find transaction: " + e.getMessage(), e);
         }
@@ -65,17 +180,59 @@ public class TransactionDAO implements Repository<Transaction> {
      * Find all transactions for a specific account
      */
     public List<Transaction> findByAccountNumber(String accountNumber) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM transactions WHERE account_number = ? OR to_account = ? " +
-                     "ORDER BY timestamp DESC LIMIT 100";
-        List<Transaction> transactions = new ArrayList<>();
+        String sql = "SELECT * FROM %s.transactions WHERE account_number = ? OR to_account = ? " +
+                     "ORDER BY timestamp DESC LIMIT ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, accountNumber);
-            pstmt.setString(2, accountNumber);
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            List<Transaction> transactions = queryTransactions(String.format(sql, "main"),
+                                                               accountNumber, accountNumber, HISTORY_LIMIT);
             
-            while (rs.next()) {
-                transactions.add(extractTransactionFromResultSet(rs));
+            // Only reach into archived months when the hot table cannot fill the page
+            if (transactions.size() < HISTORY_LIMIT) {
+                long openedAt = getAccountCreatedAt(accountNumber);
+                TransactionArchive segments = archiveReads();
+                for (TransactionArchive.Segment segment : segments.findSegments(openedAt, Long.MAX_VALUE)) {
+                    int remaining = HISTORY_LIMIT - transactions.size();
+                    transactions.addAll(segments.query(segment, schema ->
+                        queryTransactions(segments.getConnection(), String.format(sql, schema),
+                                          accountNumber, accountNumber, remaining)));
+                    if (transactions.size() >= HISTORY_LIMIT) {
+                        break;
+                    }
+                }
+            }
+            return transactions;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Find recent transactions for an account once every engine task up to minSequence
+     * has finished (read-your-writes; see CommitBarrier)
+     */
+    public List<Transaction> findByAccountNumber(String accountNumber, long minSequence)
+            throws DatabaseConnectionException {
+        CommitBarrier.getInstance().awaitSequence(minSequence);
+        return findByAccountNumber(accountNumber);
+    }
+    
+    /**
+     * Find all transactions for an account within a time range (epoch microseconds, inclusive)
+     */
+    public List<Transaction> findByAccountNumber(String accountNumber, long fromMicros, long toMicros)
+            throws DatabaseConnectionException {
+        String sql = "SELECT * FROM %s.transactions WHERE (account_number = ? OR to_account = ?) " +
+                     "AND timestamp BETWEEN ? AND ? ORDER BY timestamp DESC";
+        
+        try {
+            List<Transaction> transactions = queryTransactions(String.format(sql, "main"),
+                                                               accountNumber, accountNumber, fromMicros, toMicros);
+            TransactionArchive segments = archiveReads();
+            for (TransactionArchive.Segment segment : segments.findSegments(fromMicros, toMicros)) {
+                transactions.addAll(segments.query(segment, schema ->
+                    queryTransactions(segments.getConnection(), String.format(sql, schema),
+                                      accountNumber, accountNumber, fromMicros, toMicros)));
             }
             return transactions;
         } catch (SQLException e) {
@@ -103,25 +260,57 @@ public class TransactionDAO implements Repository<Transaction> {
     public boolean delete(String id) throws DatabaseConnectionException {
         String sql = "DELETE FROM transactions WHERE transaction_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        Connection writer = writeConnection();
+        boolean ownTransaction = false;
+        try (PreparedStatement pstmt = writer.prepareStatement(sql)) {
+            ownTransaction = beginIfAutoCommit(writer);
+            
+            // Remove the row's contribution from the daily totals (archived rows are immutable)
+            List<Transaction> existing = queryTransactions(writer,
+                "SELECT * FROM main.transactions WHERE transaction_id = ?", Integer.parseInt(id));
             pstmt.setInt(1, Integer.parseInt(id));
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0 && !existing.isEmpty()) {
+                Transaction deleted = existing.get(0);
+                updateDailyTotals(writer, deleted.getAccountNumber(), deleted.getTransactionType(),
+                                  deleted.getTimestampMicros(), -deleted.getAmount(), -1);
+            }
+            
+            if (ownTransaction) {
+                writer.commit();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
+            rollbackIfOwned(writer, ownTransaction);
             throw new DatabaseConnectionException("Failed to delete transaction: " + e.getMessage(), e);
+        } finally {
+            restoreAutoCommit(writer, ownTransaction);
         }
     }
     
     @Override
     public List<Transaction> findAll() throws DatabaseConnectionException {
-        String sql = "SELECT * FROM transactions ORDER BY timestamp DESC LIMIT 1000";
-        List<Transaction> transactions = new ArrayList<>();
+        return findRecent(RECENT_LIMIT);
+    }
+    
+    /**
+     * Find the most recent transactions, newest first
+     */
+    public List<Transaction> findRecent(int limit) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM %s.transactions ORDER BY timestamp DESC LIMIT ?";
         
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                transactions.add(extractTransactionFromResultSet(rs));
+        try {
+            List<Transaction> transactions = queryTransactions(String.format(sql, "main"), limit);
+            if (transactions.size() < limit) {
+                TransactionArchive segments = archiveReads();
+                for (TransactionArchive.Segment segment : segments.findSegments(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    int remaining = limit - transactions.size();
+                    transactions.addAll(segments.query(segment, schema ->
+                        queryTransactions(segments.getConnection(), String.format(sql, schema), remaining)));
+                    if (transactions.size() >= limit) {
+                        break;
+                    }
+                }
             }
             return transactions;
         } catch (SQLException e) {
@@ -130,11 +319,65 @@ public class TransactionDAO implements Repository<Transaction> {
     }
     
     /**
-     * Get transaction statistics
+     * Page-at-a-time view of the hot transactions table, filtered by account or type
+     * Archived months are not included; they stay reachable through account history.
+     */
+    public PagedQuery<Transaction> pages() {
+        return new PagedQuery<>(connection, "main.transactions",
+            Arrays.asList("transaction_id", "account_number", "transaction_type", "amount", "to_account", "timestamp"),
+            Arrays.asList("account_number", "to_account", "transaction_type"),
+            this::extractTransactionFromResultSet);
+    }
+    
+    /**
+     * Find transactions recorded after a transaction id, oldest first
+     * Ids only grow (AUTOINCREMENT) and new rows are never archived, so only the hot table is read.
+     */
+    public List<Transaction> findAfterId(long transactionId, int limit) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM transactions WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?";
+        
+        try {
+            return queryTransactions(sql, transactionId, limit);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch new transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Find the most recent transactions above an amount, newest first (hot table only)
+     */
+    public List<Transaction> findLargeTransactions(double threshold, int limit) throws DatabaseConnectionException {
+        String sql = "SELECT * FROM transactions WHERE amount > ? ORDER BY transaction_id DESC LIMIT ?";
+        
+        try {
+            return queryTransactions(sql, threshold, limit);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to fetch large transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get the highest transaction id ever assigned (0 if none)
+     */
+    public long getMaxTransactionId() throws DatabaseConnectionException {
+        // sqlite_sequence still holds the last id after rows are archived or deleted
+        String sql = "SELECT COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'transactions'), " +
+                     "(SELECT MAX(transaction_id) FROM transactions), 0)";
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read last transaction id: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get transaction statistics (served from the daily totals table)
      */
     public double getTotalTransactionAmount(String accountNumber, String transactionType) 
             throws DatabaseConnectionException {
-        String sql = "SELECT COALESCE(SUM(amount), 0) as total FROM transactions " +
+        String sql = "SELECT COALESCE(SUM(total_amount), 0) as total FROM transaction_daily_totals " +
                      "WHERE account_number = ? AND transaction_type = ?";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -151,17 +394,163 @@ public class TransactionDAO implements Repository<Transaction> {
         }
     }
     
+    /**
+     * Get the total number of recorded transactions
+     */
+    public long getTransactionCount() throws DatabaseConnectionException {
+        String sql = "SELECT COALESCE(SUM(transaction_count), 0) as total FROM transaction_daily_totals";
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong("total") : 0;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to count transactions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get total transaction amount per transaction type
+     */
+    public Map<String, Double> getTotalAmountByType() throws DatabaseConnectionException {
+        String sql = "SELECT transaction_type, SUM(total_amount) as total FROM transaction_daily_totals " +
+                     "GROUP BY transaction_type ORDER BY transaction_type";
+        Map<String, Double> totals = new LinkedHashMap<>();
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                totals.put(rs.getString("transaction_type"), rs.getDouble("total"));
+            }
+            return totals;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to calculate transaction totals: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Add an amount and count to the daily totals row for an account, type and day
+     */
+    private static void updateDailyTotals(Connection writer, String accountNumber, String transactionType,
+                                          long timestampMicros, double amount, int count) throws SQLException {
+        String sql = "INSERT INTO transaction_daily_totals " +
+                     "(account_number, transaction_type, day, total_amount, transaction_count) " +
+                     "VALUES (?, ?, ?, ?, ?) " +
+                     "ON CONFLICT (account_number, transaction_type, day) DO UPDATE SET " +
+                     "total_amount = total_amount + excluded.total_amount, " +
+                     "transaction_count = transaction_count + excluded.transaction_count";
+        
+        try (PreparedStatement pstmt = writer.prepareStatement(sql)) {
+            pstmt.setString(1, accountNumber);
+            pstmt.setString(2, transactionType);
+            pstmt.setLong(3, EpochTime.toEpochDay(timestampMicros));
+            pstmt.setDouble(4, amount);
+            pstmt.setInt(5, count);
+            pstmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Run a transaction query with positional parameters
+     */
+    private List<Transaction> queryTransactions(String sql, Object... params) throws SQLException {
+        return queryTransactions(connection, sql, params);
+    }
+    
+    private List<Transaction> queryTransactions(Connection on, String sql, Object... params) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        
+        try (PreparedStatement pstmt = on.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(extractTransactionFromResultSet(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+    
+    /**
+     * Archive access for reading segments
+     * Segments are ATTACHed for each query, which fails inside an open transaction and would
+     * otherwise interleave with writers, so a DAO on the shared connection reads them through
+     * the calling thread's read-only reader connection.
+     */
+    private TransactionArchive archiveReads() throws DatabaseConnectionException {
+        DBConnection db = DBConnection.getInstance();
+        return connection == db.getConnection() ? new TransactionArchive(db.getReaderConnection()) : archive;
+    }
+    
+    /**
+     * Account opening time, used to skip archive segments that predate the account
+     */
+    private long getAccountCreatedAt(String accountNumber) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT created_at FROM accounts WHERE account_number = ?")) {
+            pstmt.setString(1, accountNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : Long.MIN_VALUE;
+            }
+        }
+    }
+    
+    /**
+     * Connection for writes that span several statements
+     * A DAO on the shared connection writes through the calling thread's own writer
+     * connection instead, so its transaction never takes in other threads' statements;
+     * a DAO given a connection joins whatever transaction its caller has open there.
+     */
+    private Connection writeConnection() throws DatabaseConnectionException {
+        DBConnection db = DBConnection.getInstance();
+        return connection == db.getConnection() ? db.getWriterConnection() : connection;
+    }
+    
+    /**
+     * Start a local transaction unless the caller already has one open
+     * @return true if this DAO owns the transaction and must commit it
+     */
+    private static boolean beginIfAutoCommit(Connection writer) throws SQLException {
+        if (writer.getAutoCommit()) {
+            writer.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+    
+    private static void rollbackIfOwned(Connection writer, boolean ownTransaction) {
+        if (ownTransaction) {
+            try {
+                writer.rollback();
+            } catch (SQLException rollbackEx) {
+                System.err.println("Failed to rollback transaction: " + rollbackEx.getMessage());
+            }
+        }
+    }
+    
+    private static void restoreAutoCommit(Connection writer, boolean ownTransaction) {
+        if (ownTransaction) {
+            try {
+                writer.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Failed to restore auto-commit: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Extract Transaction object from ResultSet (Polymorphism)
      */
-    private Transaction extractTransactionFromResultSet(ResultSet rs) throws SQLException {
+    Transaction extractTransactionFromResultSet(ResultSet rs) throws SQLException {
         int transactionId = rs.getInt("transaction_id");
         String accountNumber = rs.getString("account_number");
         String transactionType = rs.getString("transaction_type");
         double amount = rs.getDouble("amount");
         String toAccount = rs.getString("to_account");
         String description = rs.getString("description");
-        LocalDateTime timestamp = LocalDateTime.parse(rs.getString("timestamp"));
+        long timestampMicros = rs.getLong("timestamp");
         
         Transaction transaction;
         switch (transactionType) {
@@ -179,7 +568,24 @@ public class TransactionDAO implements Repository<Transaction> {
         }
         
         transaction.setDescription(description);
-        transaction.setTimestamp(timestamp);
+        transaction.setTimestampMicros(timestampMicros);
         return transaction;
     }
+    
+    /**
+     * Running daily total of one account, type and day within a createAll call
+     */
+    private static final class DailyTotal {
+        final String accountNumber;
+        final String transactionType;
+        final long timestampMicros;
+        double amount;
+        int count;
+        
+        DailyTotal(String accountNumber, String transactionType, long timestampMicros) {
+            this.accountNumber = accountNumber;
+            this.transactionType = transactionType;
+            this.timestampMicros = timestampMicros;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package db;
+
+import model.User;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded username-to-user cache for the login path, shared by all UserDAO instances
+ * Unknown usernames are cached too (negative entries) with a shorter lifetime, so
+ * repeated failed logins do not hit the database. Size and lifetimes can be set with
+ * -Dbankbridge.userCache.maxSize (default 500), -Dbankbridge.userCache.ttlSeconds
+ * (default 300) and -Dbankbridge.userCache.negativeTtlSeconds (default 30).
+ */
+public class UserCache {
+    private static final int DEFAULT_MAX_SIZE = 500;
+    private static final int DEFAULT_TTL_SECONDS = 300;
+    private static final int DEFAULT_NEGATIVE_TTL_SECONDS = 30;
+    
+    private static UserCache instance;
+    
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LinkedHashMap<String, Entry> users;
+    
+    // Bumped on every write; a load that started before a write must not be cached
+    private long generation;
+    
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    
+    private UserCache(int maxSize, long ttlSeconds, long negativeTtlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.negativeTtlNanos = negativeTtlSeconds * 1_000_000_000L;
+        this.users = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserCache.this.maxSize;
+            }
+        };
+    }
+    
+    /**
+     * Get the shared cache instance
+     */
+    public static synchronized UserCache getInstance() {
+        if (instance == null) {
+            instance = new UserCache(
+                Integer.getInteger("bankbridge.userCache.maxSize", DEFAULT_MAX_SIZE),
+                Integer.getInteger("bankbridge.userCache.ttlSeconds", DEFAULT_TTL_SECONDS),
+                Integer.getInteger("bankbridge.userCache.negativeTtlSeconds", DEFAULT_NEGATIVE_TTL_SECONDS)
+            );
+        }
+        return instance;
+    }
+    
+    /**
+     * Look up a username
+     * @return the cached entry, or null on a miss; a negative entry has a null user
+     */
+    public synchronized Entry get(String username) {
+        Entry entry = users.get(username);
+        if (entry != null && entry.isExpired()) {
+            users.remove(username);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else if (entry.user == null) {
+            negativeHits++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+    
+    /**
+     * Start a database load; pass the returned stamp to put
+     */
+    public synchronized long beginLoad() {
+        return generation;
+    }
+    
+    /**
+     * Cache a loaded user, or a negative entry when user is null
+     */
+    public synchronized void put(String username, User user, long loadStamp) {
+        if (loadStamp == generation && maxSize > 0) {
+            users.put(username, new Entry(copyOf(user), user == null ? negativeTtlNanos : ttlNanos));
+        }
+    }
+    
+    /**
+     * Drop a username (e.g. a negative entry for a name that was just registered)
+     */
+    public synchronized void invalidate(String username) {
+        generation++;
+        users.remove(username);
+    }
+    
+    /**
+     * Drop every entry for a user id (update may have changed the username)
+     */
+    public synchronized void invalidateUser(int userId) {
+        generation++;
+        users.values().removeIf(entry -> entry.user != null && entry.user.getUserId() == userId);
+    }
+    
+    public synchronized void clear() {
+        generation++;
+        users.clear();
+    }
+    
+    public synchronized String getStats() {
+        long lookups = hits + negativeHits + misses;
+        double hitRate = lookups == 0 ? 0.0 : (double) (hits + negativeHits) / lookups;
+        return String.format("%d/%d entries, hit rate %.1f%% (%d hits, %d negative hits, %d misses)",
+                             users.size(), maxSize, hitRate * 100, hits, negativeHits, misses);
+    }
+    
+    static User copyOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User(user.getUserId(), user.getUsername(), user.getPasswordHash(),
+                             user.getFullName(), user.getEmail(), user.isAdmin());
+        copy.setCreatedAtMicros(user.getCreatedAtMicros());
+        return copy;
+    }
+    
+    /**
+     * Cached lookup result; user is null for a username that does not exist
+     */
+    public static class Entry {
+        private final User user;
+        private final long expiresAt;
+        
+        Entry(User user, long ttlNanos) {
+            this.user = user;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+        }
+        
+        /**
+         * Copy of the cached user, or null for a negative entry
+         */
+        public User getUser() {
+            return copyOf(user);
+        }
+        
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
\ No newline at end of file
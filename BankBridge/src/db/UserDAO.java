@@ -1,21 +1,32 @@
 package db;
 
 import exceptions.DatabaseConnectionException;
+import model.EpochTime;
 import model.User;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Data Access Object for User operations
  * Implements Repository pattern with JDBC
+ * Username lookups go through the shared UserCache.
  */
 public class UserDAO implements Repository<User> {
     private Connection connection;
+    private UserCache cache;
     
     public UserDAO() throws DatabaseConnectionException {
-        this.connection = DBConnection.getInstance().getConnection();
+        this(DBConnection.getInstance().getConnection());
+    }
+    
+    /**
+     * DAO on a specific connection, e.g. a reader connection of a background loader
+     */
+    public UserDAO(Connection connection) {
+        this.connection = connection;
+        this.cache = UserCache.getInstance();
     }
     
     @Override
@@ -29,9 +40,11 @@ public class UserDAO implements Repository<User> {
             pstmt.setString(3, user.getFullName());
             pstmt.setString(4, user.getEmail());
             pstmt.setInt(5, user.isAdmin() ? 1 : 0);
-            pstmt.setString(6, LocalDateTime.now().toString());
+            pstmt.setLong(6, EpochTime.now());
             
             int rowsAffected = pstmt.executeUpdate();
+            // Clear a negative entry left by an earlier lookup of this name
+            cache.invalidate(user.getUsername());
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to create user: " + e.getMessage(), e);
@@ -59,16 +72,21 @@ public class UserDAO implements Repository<User> {
      * Find user by username
      */
     public User findByUsername(String username) throws DatabaseConnectionException {
+        UserCache.Entry cached = cache.get(username);
+        if (cached != null) {
+            return cached.getUser();
+        }
+        
         String sql = "SELECT * FROM users WHERE username = ?";
+        long loadStamp = cache.beginLoad();
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return extractUserFromResultSet(rs);
-            }
-            return null;
+            User user = rs.next() ? extractUserFromResultSet(rs) : null;
+            cache.put(username, user, loadStamp);
+            return user;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to find user: " + e.getMessage(), e);
         }
@@ -76,15 +94,42 @@ public class UserDAO implements Repository<User> {
     
     /**
      * Authenticate user
+     * A legacy or below-cost hash is re-hashed at the current cost on success. An unknown
+     * username is still checked against a dummy hash, so it costs as much as a wrong password.
      */
     public User authenticate(String username, String password) throws DatabaseConnectionException {
         User user = findByUsername(username);
-        if (user != null && SecurityUtil.verifyPassword(password, user.getPasswordHash())) {
+        if (user == null) {
+            SecurityUtil.verifyPassword(password, SecurityUtil.getDummyHash());
+            return null;
+        }
+        if (SecurityUtil.verifyPassword(password, user.getPasswordHash())) {
+            if (SecurityUtil.needsRehash(user.getPasswordHash())) {
+                updatePasswordHash(user.getUserId(), SecurityUtil.hashPassword(password));
+            }
             return user;
         }
         return null;
     }
     
+    /**
+     * Replace a user's stored password hash
+     */
+    public boolean updatePasswordHash(int userId, String passwordHash) throws DatabaseConnectionException {
+        String sql = "UPDATE users SET password_hash = ? WHERE user_id = ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, passwordHash);
+            pstmt.setInt(2, userId);
+            
+            int rowsAffected = pstmt.executeUpdate();
+            cache.invalidateUser(userId);
+            return rowsAffected > 0;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to update password: " + e.getMessage(), e);
+        }
+    }
+    
     @Override
     public boolean update(User user) throws DatabaseConnectionException {
         String sql = "UPDATE users SET username = ?, full_name = ?, email = ?, is_admin = ? " +
@@ -98,6 +143,8 @@ public class UserDAO implements Repository<User> {
             pstmt.setInt(5, user.getUserId());
             
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidateUser(user.getUserId());
+            cache.invalidate(user.getUsername());
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to update user: " + e.getMessage(), e);
@@ -111,6 +158,9 @@ public class UserDAO implements Repository<User> {
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, Integer.parseInt(id));
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidateUser(Integer.parseInt(id));
+            // Accounts are removed by ON DELETE CASCADE
+            AccountCache.getInstance().invalidateUser(Integer.parseInt(id));
             return rowsAffected > 0;
         } catch (SQLException e) {
             throw new DatabaseConnectionException("Failed to delete user: " + e.getMessage(), e);
@@ -134,10 +184,20 @@ public class UserDAO implements Repository<User> {
         }
     }
     
+    /**
+     * Page-at-a-time view of all users, filtered by username, name or email
+     */
+    public PagedQuery<User> pages() {
+        return new PagedQuery<>(connection, "users",
+            Arrays.asList("user_id", "username", "full_name", "email", "is_admin", "created_at"),
+            Arrays.asList("username", "full_name", "email"),
+            this::extractUserFromResultSet);
+    }
+    
     /**
      * Extract User object from ResultSet
      */
-    private User extractUserFromResultSet(ResultSet rs) throws SQLException {
+    User extractUserFromResultSet(ResultSet rs) throws SQLException {
         User user = new User(
             rs.getInt("user_id"),
             rs.getString("username"),
@@ -146,7 +206,7 @@ public class UserDAO implements Repository<User> {
             rs.getString("email"),
             rs.getInt("is_admin") == 1
         );
-        user.setCreatedAt(LocalDateTime.parse(rs.getString("created_at")));
+        user.setCreatedAtMicros(rs.getLong("created_at"));
         return user;
     }
 }
\ No newline at end of file
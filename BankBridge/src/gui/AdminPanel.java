@@ -1,29 +1,60 @@
 package gui;
 
+import db.AccountCache;
 import db.AccountDAO;
+import db.AuditChain;
+import db.ChangeFeed;
+import db.CommitBarrier;
+import db.LedgerReconciler;
+import db.StatisticsDAO;
+import db.UserCache;
 import db.UserDAO;
 import db.TransactionDAO;
 import exceptions.DatabaseConnectionException;
 import model.Account;
+import model.EpochTime;
 import model.User;
 import model.Transaction;
+import model.Transfer;
+import threads.AuthenticationService;
+import threads.BalanceEventBus;
+import threads.FraudDetector;
+import threads.JobScheduler;
+import threads.ReconciliationJob;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.Connection;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Admin panel to view all users, accounts, and transactions
  */
 public class AdminPanel extends JFrame {
+    private static final DateTimeFormatter REFRESHED_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int FILTER_DELAY_MILLIS = 300;
+    
     private User adminUser;
-    private UserDAO userDAO;
-    private AccountDAO accountDAO;
-    private TransactionDAO transactionDAO;
+    private PagedTableModel<User> usersModel;
+    private PagedTableModel<Account> accountsModel;
+    private PagedTableModel<Transaction> transactionsModel;
+    private AsyncLoader<String> statisticsLoader;
+    private int pendingLoads;
     private JTabbedPane tabbedPane;
+    private JLabel statusLabel;
     
     public AdminPanel(User admin) {
         this.adminUser = admin;
+        createModels();
         
         if (!admin.isAdmin()) {
             JOptionPane.showMessageDialog(this,
@@ -33,16 +64,6 @@ public class AdminPanel extends JFrame {
             return;
         }
         
-        try {
-            userDAO = new UserDAO();
-            accountDAO = new AccountDAO();
-            transactionDAO = new TransactionDAO();
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Database error: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
-        
         initializeUI();
     }
     
@@ -102,6 +123,10 @@ public class AdminPanel extends JFrame {
         closeButton.addActionListener(e -> dispose());
         bottomPanel.add(closeButton);
         
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+        bottomPanel.add(statusLabel);
+        
         mainPanel.add(bottomPanel, BorderLayout.SOUTH);
         
         add(mainPanel);
@@ -111,75 +136,72 @@ public class AdminPanel extends JFrame {
     }
     
     private JPanel createUsersPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        String[] columns = {"ID", "Username", "Full Name", "Email", "Role", "Created At"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
-        JTable table = new JTable(model);
-        table.setFont(new Font("Arial", Font.PLAIN, 13));
-        table.setRowHeight(25);
-        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
-        
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        
-        // Store reference for refresh
-        panel.putClientProperty("table", table);
-        panel.putClientProperty("model", model);
-        
-        return panel;
+        return createGridPanel(usersModel, 13);
     }
     
     private JPanel createAccountsPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        String[] columns = {"Account Number", "User ID", "Type", "Balance", "Status", "Created"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
-        JTable table = new JTable(model);
-        table.setFont(new Font("Arial", Font.PLAIN, 13));
-        table.setRowHeight(25);
-        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
-        
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        
-        panel.putClientProperty("table", table);
-        panel.putClientProperty("model", model);
-        
-        return panel;
+        return createGridPanel(accountsModel, 13);
     }
     
     private JPanel createTransactionsPanel() {
+        return createGridPanel(transactionsModel, 12);
+    }
+    
+    /**
+     * Grid with a filter box; clicking a header sorts by that column in the database
+     */
+    private JPanel createGridPanel(PagedTableModel<?> model, int fontSize) {
         JPanel panel = new JPanel(new BorderLayout());
         
-        String[] columns = {"ID", "Account", "Type", "Amount", "To Account", "Timestamp"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
         JTable table = new JTable(model);
-        table.setFont(new Font("Arial", Font.PLAIN, 12));
+        table.setFont(new Font("Arial", Font.PLAIN, fontSize));
         table.setRowHeight(25);
-        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, fontSize));
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setDefaultRenderer(Object.class, model.createRenderer());
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column >= 0 && model.sortBy(column)) {
+                    for (int i = 0; i < table.getColumnCount(); i++) {
+                        table.getColumnModel().getColumn(i).setHeaderValue(model.getColumnName(i));
+                    }
+                    table.getTableHeader().repaint();
+                }
+            }
+        });
+        
+        // Filter box; the query runs once typing pauses
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField filterField = new JTextField(20);
+        JLabel rowsLabel = new JLabel();
+        Timer filterTimer = new Timer(FILTER_DELAY_MILLIS, e -> model.setFilter(filterField.getText()));
+        filterTimer.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        });
+        model.addTableModelListener(e -> rowsLabel.setText(model.getRowCount() + " rows"));
+        filterPanel.add(new JLabel("Filter:"));
+        filterPanel.add(filterField);
+        filterPanel.add(rowsLabel);
         
+        panel.add(filterPanel, BorderLayout.NORTH);
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
         
-        panel.putClientProperty("table", table);
-        panel.putClientProperty("model", model);
-        
         return panel;
     }
     
@@ -200,93 +222,175 @@ public class AdminPanel extends JFrame {
     }
     
     private void refreshAllData() {
-        try {
-            // Refresh Users
-            JPanel usersPanel = (JPanel) tabbedPane.getComponentAt(0);
-            DefaultTableModel usersModel = (DefaultTableModel) usersPanel.getClientProperty("model");
-            usersModel.setRowCount(0);
-            
-            List<User> users = userDAO.findAll();
-            for (User user : users) {
-                Object[] row = {
-                    user.getUserId(),
-                    user.getUsername(),
-                    user.getFullName(),
-                    user.getEmail(),
-                    user.isAdmin() ? "Admin" : "User",
-                    user.getCreatedAt().toString().substring(0, 10)
-                };
-                usersModel.addRow(row);
-            }
-            
-            // Refresh Accounts
-            JPanel accountsPanel = (JPanel) tabbedPane.getComponentAt(1);
-            DefaultTableModel accountsModel = (DefaultTableModel) accountsPanel.getClientProperty("model");
-            accountsModel.setRowCount(0);
-            
-            List<Account> accounts = accountDAO.findAll();
-            double totalBalance = 0;
-            for (Account account : accounts) {
-                totalBalance += account.getBalance();
-                Object[] row = {
-                    account.getAccountNumber(),
-                    account.getUserId(),
-                    account.getAccountType(),
-                    String.format("$%.2f", account.getBalance()),
-                    account.isActive() ? "Active" : "Inactive",
-                    account.getCreatedAt().toString().substring(0, 10)
-                };
-                accountsModel.addRow(row);
-            }
-            
-            // Refresh Transactions
-            JPanel transactionsPanel = (JPanel) tabbedPane.getComponentAt(2);
-            DefaultTableModel transactionsModel = (DefaultTableModel) transactionsPanel.getClientProperty("model");
-            transactionsModel.setRowCount(0);
-            
-            List<Transaction> transactions = transactionDAO.findAll();
-            for (Transaction t : transactions) {
-                Object[] row = {
-                    t.getTransactionId(),
-                    t.getAccountNumber(),
-                    t.getTransactionType(),
-                    String.format("$%.2f", t.getAmount()),
-                    t instanceof model.Transfer ? ((model.Transfer) t).getToAccountNumber() : "-",
-                    t.getTimestamp().toString().substring(0, 19).replace("T", " ")
-                };
-                transactionsModel.addRow(row);
+        // Independent loads: each runs on its own loader thread and reader connection
+        usersModel.refresh();
+        accountsModel.refresh();
+        transactionsModel.refresh();
+        statisticsLoader.load();
+    }
+    
+    private void createModels() {
+        usersModel = new PagedTableModel<>(reader -> new UserDAO(reader).pages(), Arrays.asList(
+            PagedTableModel.<User, Integer>column("ID", "user_id", User::getUserId, null),
+            PagedTableModel.<User, String>column("Username", "username", User::getUsername, null),
+            PagedTableModel.<User, String>column("Full Name", "full_name", User::getFullName, null),
+            PagedTableModel.<User, String>column("Email", "email", User::getEmail, null),
+            PagedTableModel.<User, Boolean>column("Role", "is_admin", User::isAdmin,
+                                                  admin -> admin ? "Admin" : "User"),
+            PagedTableModel.<User, Long>column("Created At", "created_at", User::getCreatedAtMicros,
+                                               AdminPanel::formatDate)
+        ), 5, false, this::showLoadError, this::setLoading);
+        
+        accountsModel = new PagedTableModel<>(reader -> new AccountDAO(reader).pages(), Arrays.asList(
+            PagedTableModel.<Account, String>column("Account Number", "account_number",
+                                                    Account::getAccountNumber, null),
+            PagedTableModel.<Account, Integer>column("User ID", "user_id", Account::getUserId, null),
+            PagedTableModel.<Account, String>column("Type", "account_type", Account::getAccountType, null),
+            PagedTableModel.<Account, Double>column("Balance", "balance", Account::getBalance,
+                                                    AdminPanel::formatMoney),
+            PagedTableModel.<Account, Boolean>column("Status", "is_active", Account::isActive,
+                                                     active -> active ? "Active" : "Inactive"),
+            PagedTableModel.<Account, Long>column("Created", "created_at", Account::getCreatedAtMicros,
+                                                  AdminPanel::formatDate)
+        ), 5, false, this::showLoadError, this::setLoading);
+        
+        transactionsModel = new PagedTableModel<>(reader -> new TransactionDAO(reader).pages(), Arrays.asList(
+            PagedTableModel.<Transaction, Integer>column("ID", "transaction_id",
+                                                         Transaction::getTransactionId, null),
+            PagedTableModel.<Transaction, String>column("Account", "account_number",
+                                                        Transaction::getAccountNumber, null),
+            PagedTableModel.<Transaction, String>column("Type", "transaction_type",
+                                                        Transaction::getTransactionType, null),
+            PagedTableModel.<Transaction, Double>column("Amount", "amount", Transaction::getAmount,
+                                                        AdminPanel::formatMoney),
+            PagedTableModel.<Transaction, String>column("To Account", "to_account",
+                t -> t instanceof Transfer ? ((Transfer) t).getToAccountNumber() : "-", null),
+            PagedTableModel.<Transaction, Long>column("Timestamp", "timestamp",
+                                                      Transaction::getTimestampMicros, AdminPanel::formatDateTime)
+        ), 5, false, this::showLoadError, this::setLoading);
+        
+        statisticsLoader = new AsyncLoader<>(this::buildStatistics,
+                                             this::showStatistics, this::showLoadError, this::setLoading);
+    }
+    
+    private static String formatMoney(double amount) {
+        return String.format("$%.2f", amount);
+    }
+    
+    private static String formatDate(long micros) {
+        return EpochTime.toLocalDateTime(micros).format(DATE_FORMAT);
+    }
+    
+    private static String formatDateTime(long micros) {
+        return EpochTime.toLocalDateTime(micros).format(DATE_TIME_FORMAT);
+    }
+    
+    /**
+     * Build the statistics text (runs on a loader thread)
+     */
+    private String buildStatistics(Connection reader) throws DatabaseConnectionException {
+        StatisticsDAO statisticsDAO = new StatisticsDAO(reader);
+        TransactionDAO transactionDAO = new TransactionDAO(reader);
+        StatisticsDAO.Summary summary = statisticsDAO.getSummary();
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append("\n========================================\n");
+        stats.append("      BANKBRIDGE SYSTEM STATISTICS      \n");
+        stats.append("========================================\n\n");
+        stats.append("Total Users:        ").append(summary.getUserCount()).append("\n");
+        stats.append("Total Accounts:     ").append(summary.getAccountCount()).append("\n");
+        stats.append("Total Transactions: ").append(summary.getTransactionCount()).append("\n");
+        stats.append("Total Balance:      $").append(String.format("%.2f", summary.getTotalBalance())).append("\n\n");
+        stats.append("Active Accounts:    ").append(summary.getActiveAccountCount()).append("\n");
+        stats.append("Admin Users:        ").append(summary.getAdminCount()).append("\n\n");
+        stats.append("Transaction Volume by Type:\n");
+        for (Map.Entry<String, Double> entry : summary.getVolumeByType().entrySet()) {
+            stats.append(String.format("  %-17s $%.2f (%d)%n", entry.getKey() + ":", entry.getValue(),
+                                       summary.getCountByType().get(entry.getKey())));
+        }
+        stats.append("\n");
+        double threshold = StatisticsDAO.LARGE_TRANSACTION_THRESHOLD;
+        stats.append(String.format("Large Transactions (over $%.0f): %d%n", threshold,
+                                   statisticsDAO.countLargeTransactions(threshold)));
+        for (Transaction t : transactionDAO.findLargeTransactions(threshold, 5)) {
+            stats.append("  - ").append(t.getDisplayInfo()).append("\n");
+        }
+        stats.append("\n");
+        stats.append("Caches:\n");
+        stats.append("  Accounts: ").append(AccountCache.getInstance().getStats()).append("\n");
+        stats.append("  Users:    ").append(UserCache.getInstance().getStats()).append("\n\n");
+        stats.append("Sign-in Verifier Pool:\n");
+        stats.append("  ").append(AuthenticationService.getInstance().getStats()).append("\n\n");
+        stats.append("Scheduled Jobs:\n");
+        for (JobScheduler.Job job : JobScheduler.getInstance().getJobs()) {
+            stats.append("  ").append(job.getStats()).append("\n");
+        }
+        stats.append("\n");
+        LedgerReconciler.Report reconciliation = ReconciliationJob.getLastReport();
+        stats.append("Ledger Reconciliation:\n");
+        if (reconciliation == null) {
+            stats.append("  Not run yet\n");
+        } else {
+            stats.append("  ").append(reconciliation).append("\n");
+            for (LedgerReconciler.Mismatch mismatch : reconciliation.getMismatches().subList(
+                    0, Math.min(5, reconciliation.getMismatches().size()))) {
+                stats.append("  ⚠️ ").append(mismatch).append("\n");
             }
-            
-            // Update Statistics
-            JPanel statsPanel = (JPanel) tabbedPane.getComponentAt(3);
-            JTextArea statsArea = (JTextArea) statsPanel.getClientProperty("statsArea");
-            
-            StringBuilder stats = new StringBuilder();
-            stats.append("\n========================================\n");
-            stats.append("      BANKBRIDGE SYSTEM STATISTICS      \n");
-            stats.append("========================================\n\n");
-            stats.append("Total Users:        ").append(users.size()).append("\n");
-            stats.append("Total Accounts:     ").append(accounts.size()).append("\n");
-            stats.append("Total Transactions: ").append(transactions.size()).append("\n");
-            stats.append("Total Balance:      $").append(String.format("%.2f", totalBalance)).append("\n\n");
-            stats.append("Active Accounts:    ").append(
-                accounts.stream().filter(Account::isActive).count()
-            ).append("\n");
-            stats.append("Admin Users:        ").append(
-                users.stream().filter(User::isAdmin).count()
-            ).append("\n\n");
-            stats.append("========================================\n");
-            
-            statsArea.setText(stats.toString());
-            
-            JOptionPane.showMessageDialog(this,
-                "Data refreshed successfully",
-                "Success", JOptionPane.INFORMATION_MESSAGE);
-            
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error refreshing data: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
         }
+        stats.append("\n");
+        stats.append("Live Balance Updates:\n");
+        stats.append("  ").append(BalanceEventBus.getInstance().getStats()).append("\n\n");
+        stats.append("Read-Your-Writes:\n");
+        stats.append("  ").append(CommitBarrier.getInstance().getStats()).append("\n\n");
+        stats.append("Change Feed:\n");
+        stats.append("  ").append(ChangeFeed.getInstance().getStats()).append("\n\n");
+        stats.append("Audit Chain:\n");
+        stats.append("  ").append(AuditChain.getInstance().getStats()).append("\n\n");
+        FraudDetector fraudDetector = FraudDetector.getInstance();
+        List<String> alerts = fraudDetector.getRecentAlerts();
+        stats.append("Fraud Detector:\n");
+        stats.append("  ").append(fraudDetector.getStats()).append("\n");
+        for (String alert : alerts.subList(0, Math.min(5, alerts.size()))) {
+            stats.append("  ⚠️ ").append(alert).append("\n");
+        }
+        stats.append("\n");
+        stats.append("========================================\n");
+        
+        return stats.toString();
+    }
+    
+    private void showStatistics(String stats) {
+        JPanel statsPanel = (JPanel) tabbedPane.getComponentAt(3);
+        JTextArea statsArea = (JTextArea) statsPanel.getClientProperty("statsArea");
+        statsArea.setText(stats);
+    }
+    
+    private void showLoadError(Exception e) {
+        JOptionPane.showMessageDialog(this,
+            "Error refreshing data: " + e.getMessage(),
+            "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    /**
+     * Busy indicator shared by the grids' row counts and the statistics; idle once all have finished
+     */
+    private void setLoading(boolean loading) {
+        pendingLoads += loading ? 1 : -1;
+        if (pendingLoads > 0) {
+            statusLabel.setText("Loading...");
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        } else {
+            statusLabel.setText("Last refreshed " + LocalTime.now().format(REFRESHED_FORMAT));
+            setCursor(Cursor.getDefaultCursor());
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        usersModel.cancel();
+        accountsModel.cancel();
+        transactionsModel.cancel();
+        statisticsLoader.cancel();
+        super.dispose();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package gui;
+
+import db.DBConnection;
+import java.sql.Connection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads data for a Swing view off the EDT and hands the result back on the EDT
+ * All loaders share a small pool of daemon threads (-Dbankbridge.ui.loaderThreads,
+ * default 4). Each pool thread queries through its own read-only connection
+ * (DBConnection.getReaderConnection), so independent loads run side by side and
+ * never queue behind the transaction engine on the shared connection.
+ *
+ * load(), cancel() and all callbacks run on the EDT. A load() while one is in flight
+ * is coalesced: however often refresh is clicked, at most one more query runs once the
+ * current one finishes. cancel() discards the result of the running load. The busy
+ * callback switches loading indicators on and off.
+ */
+public class AsyncLoader<T> {
+    private static final ExecutorService EXECUTOR = createExecutor();
+    
+    private final Query<T> query;
+    private final Consumer<T> onLoaded;
+    private final Consumer<Exception> onFailed;
+    private final Consumer<Boolean> busy;
+    
+    // EDT-confined
+    private Future<?> running;
+    private boolean reloadRequested;
+    private int generation;
+    
+    public AsyncLoader(Query<T> query, Consumer<T> onLoaded, Consumer<Exception> onFailed, Consumer<Boolean> busy) {
+        this.query = query;
+        this.onLoaded = onLoaded;
+        this.onFailed = onFailed;
+        this.busy = busy;
+    }
+    
+    /**
+     * Start loading, or queue one reload if a load is already running
+     */
+    public void load() {
+        if (running != null) {
+            reloadRequested = true;
+            return;
+        }
+        busy.accept(true);
+        start();
+    }
+    
+    /**
+     * Drop the running load (if any) and any queued reload
+     */
+    public void cancel() {
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+            generation++;
+            busy.accept(false);
+        }
+        reloadRequested = false;
+    }
+    
+    public boolean isLoading() {
+        return running != null;
+    }
+    
+    private void start() {
+        int current = ++generation;
+        running = EXECUTOR.submit(() -> {
+            T result = null;
+            Exception failure = null;
+            try {
+                result = query.run(DBConnection.getInstance().getReaderConnection());
+            } catch (Exception e) {
+                failure = e;
+            }
+            T loaded = result;
+            Exception failed = failure;
+            SwingUtilities.invokeLater(() -> finish(current, loaded, failed));
+        });
+    }
+    
+    private void finish(int loadGeneration, T result, Exception failure) {
+        if (loadGeneration != generation) {
+            return; // cancelled
+        }
+        running = null;
+        if (reloadRequested) {
+            // This result is already stale; stay busy and show the newer one instead
+            reloadRequested = false;
+            start();
+            return;
+        }
+        busy.accept(false);
+        if (failure != null) {
+            onFailed.accept(failure);
+        } else {
+            onLoaded.accept(result);
+        }
+    }
+    
+    private static ExecutorService createExecutor() {
+        int threads = Math.max(1, Integer.getInteger("bankbridge.ui.loaderThreads", 4));
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "UiLoader-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Work run on a loader thread, given that thread's read-only connection
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        T run(Connection reader) throws Exception;
+    }
+}
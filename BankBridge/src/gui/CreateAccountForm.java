@@ -7,6 +7,7 @@ import model.Account;
 import model.SavingsAccount;
 import model.CurrentAccount;
 import model.User;
+import threads.BalanceEventBus;
 import javax.swing.*;
 import java.awt.*;
 
@@ -18,6 +19,7 @@ public class CreateAccountForm extends JDialog {
     private AccountDAO accountDAO;
     private JComboBox<String> accountTypeCombo;
     private JTextField initialBalanceField;
+    private JButton createButton;
     
     public CreateAccountForm(JFrame parent, User user) {
         super(parent, "Create New Account", true);
@@ -97,7 +99,7 @@ public class CreateAccountForm extends JDialog {
         mainPanel.add(initialBalanceField);
         
         // Buttons
-        JButton createButton = new JButton("Create Account");
+        createButton = new JButton("Create Account");
         createButton.setBounds(80, 360, 140, 35);
         createButton.setBackground(new Color(46, 204, 113));
         createButton.setForeground(Color.WHITE);
@@ -156,22 +158,32 @@ public class CreateAccountForm extends JDialog {
                 infoText.setText(account.getAccountFeatures());
             }
             
-            // Save to database
-            boolean success = accountDAO.create(account);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this,
-                    "Account created successfully!\n\n" +
-                    "Account Number: " + accountNumber + "\n" +
-                    "Type: " + accountType + "\n" +
-                    "Initial Balance: $" + String.format("%.2f", initialBalance),
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Failed to create account. Please try again.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // Save to database off the EDT (a write, so it goes through the shared connection)
+            new AsyncLoader<Boolean>(
+                reader -> accountDAO.create(account),
+                success -> {
+                    if (success) {
+                        BalanceEventBus.getInstance().publish(account);
+                        JOptionPane.showMessageDialog(this,
+                            "Account created successfully!\n\n" +
+                            "Account Number: " + accountNumber + "\n" +
+                            "Type: " + accountType + "\n" +
+                            "Initial Balance: $" + String.format("%.2f", initialBalance),
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                        dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(this,
+                            "Failed to create account. Please try again.",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                },
+                e -> JOptionPane.showMessageDialog(this,
+                    "Error: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE),
+                creating -> {
+                    createButton.setEnabled(!creating);
+                    createButton.setText(creating ? "Creating..." : "Create Account");
+                }).load();
             
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this,
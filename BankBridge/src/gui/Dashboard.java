@@ -1,48 +1,56 @@
 package gui;
 
 import db.AccountDAO;
+import db.CommitBarrier;
 import exceptions.DatabaseConnectionException;
 import model.Account;
 import model.User;
-import threads.AuditThread;
+import threads.AuditJob;
+import threads.BalanceEventBus;
 import threads.TransactionEngine;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Main dashboard after login
+ * Balances are kept current by the BalanceEventBus: committed changes for the user's
+ * accounts are applied to the table at most once per frame, without re-querying.
  */
 public class Dashboard extends JFrame {
     private User currentUser;
-    private AccountDAO accountDAO;
     private JTable accountsTable;
     private DefaultTableModel tableModel;
+    private AsyncLoader<List<Account>> accountsLoader;
+    private Map<String, Integer> rowsByAccount = new HashMap<>();
+    // Latest pushed balances; newer than any query that was in flight when they arrived
+    private Map<String, Double> liveBalances = new HashMap<>();
+    private FrameCoalescer<String, Double> balanceUpdates;
+    private BalanceEventBus.BalanceListener balanceListener;
     private TransactionEngine transactionEngine;
-    private AuditThread auditThread;
+    private AuditJob auditJob;
+    // Commit sequence of this user's latest engine transaction; reads wait until it has finished
+    private volatile long lastWriteSequence = CommitBarrier.NONE;
     
     public Dashboard(User user) {
         this.currentUser = user;
         
-        try {
-            accountDAO = new AccountDAO();
-            
-            // Start background threads
-            transactionEngine = new TransactionEngine();
-            transactionEngine.start();
-            
-            // Start audit thread (every 60 seconds)
-            auditThread = new AuditThread(60);
-            auditThread.startAudit();
-            
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Database connection failed: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
-        
         initializeUI();
+        accountsLoader = new AsyncLoader<>(
+            reader -> new AccountDAO(reader).findByUserId(currentUser.getUserId(), lastWriteSequence),
+            this::showAccounts,
+            e -> JOptionPane.showMessageDialog(this,
+                "Error loading accounts: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE),
+            this::setLoading);
+        
+        // Subscribe before the first load so no commit falls between the two
+        balanceUpdates = new FrameCoalescer<>(this::applyBalances);
+        balanceListener = balanceUpdates::offer;
+        BalanceEventBus.getInstance().subscribe(currentUser.getUserId(), balanceListener);
         loadAccounts();
     }
     
@@ -151,11 +159,6 @@ public class Dashboard extends JFrame {
             buttonPanel.add(adminBtn);
         }
         
-        // Refresh Button
-        JButton refreshBtn = createStyledButton("Refresh", new Color(127, 140, 141));
-        refreshBtn.addActionListener(e -> loadAccounts());
-        buttonPanel.add(refreshBtn);
-        
         // Logout Button
         JButton logoutBtn = createStyledButton("Logout", new Color(231, 76, 60));
         logoutBtn.addActionListener(e -> handleLogout());
@@ -176,40 +179,61 @@ public class Dashboard extends JFrame {
     }
     
     private void loadAccounts() {
-        try {
-            List<Account> accounts = accountDAO.findByUserId(currentUser.getUserId());
-            
-            // Clear table
-            tableModel.setRowCount(0);
-            
-            // Populate table
-            for (Account account : accounts) {
-                Object[] row = {
-                    account.getAccountNumber(),
-                    account.getAccountType(),
-                    String.format("$%.2f", account.getBalance()),
-                    account.isActive() ? "Active" : "Inactive",
-                    account.getCreatedAt().toString().substring(0, 10)
-                };
-                tableModel.addRow(row);
-            }
-            
-            if (accounts.isEmpty()) {
-                JOptionPane.showMessageDialog(this,
-                    "You don't have any accounts yet. Create one to get started!",
-                    "No Accounts", JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (DatabaseConnectionException e) {
+        accountsLoader.load();
+    }
+    
+    private void showAccounts(List<Account> accounts) {
+        // Clear table
+        tableModel.setRowCount(0);
+        rowsByAccount.clear();
+        
+        // Populate table
+        for (Account account : accounts) {
+            rowsByAccount.put(account.getAccountNumber(), tableModel.getRowCount());
+            Object[] row = {
+                account.getAccountNumber(),
+                account.getAccountType(),
+                String.format("$%.2f", liveBalances.getOrDefault(account.getAccountNumber(),
+                                                                 account.getBalance())),
+                account.isActive() ? "Active" : "Inactive",
+                account.getCreatedAt().toString().substring(0, 10)
+            };
+            tableModel.addRow(row);
+        }
+        
+        if (accounts.isEmpty()) {
             JOptionPane.showMessageDialog(this,
-                "Error loading accounts: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
+                "You don't have any accounts yet. Create one to get started!",
+                "No Accounts", JOptionPane.INFORMATION_MESSAGE);
         }
     }
     
+    /**
+     * Apply a batch of committed balances; an account not in the table was just opened
+     */
+    private void applyBalances(Map<String, Double> balances) {
+        boolean newAccount = false;
+        liveBalances.putAll(balances);
+        for (Map.Entry<String, Double> entry : balances.entrySet()) {
+            Integer row = rowsByAccount.get(entry.getKey());
+            if (row == null) {
+                newAccount = true;
+            } else {
+                tableModel.setValueAt(String.format("$%.2f", entry.getValue()), row, 2);
+            }
+        }
+        if (newAccount) {
+            loadAccounts();
+        }
+    }
+    
+    private void setLoading(boolean loading) {
+        accountsTable.setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+    
     private void openCreateAccountForm() {
         CreateAccountForm form = new CreateAccountForm(this, currentUser);
         form.setVisible(true);
-        loadAccounts(); // Refresh after closing
     }
     
     private void openTransactionForm() {
@@ -220,9 +244,36 @@ public class Dashboard extends JFrame {
             accountNumber = (String) tableModel.getValueAt(selectedRow, 0);
         }
         
-        TransactionForm form = new TransactionForm(this, currentUser, accountNumber, transactionEngine);
+        TransactionEngine engine = getTransactionEngine();
+        if (engine == null) {
+            return;
+        }
+        
+        TransactionForm form = new TransactionForm(this, currentUser, accountNumber, engine);
         form.setVisible(true);
-        loadAccounts(); // Refresh after closing
+        lastWriteSequence = Math.max(lastWriteSequence, form.getLastSubmittedSequence());
+    }
+    
+    /**
+     * Start the transaction engine and the audit job the first time a transaction is made
+     * Sessions that only look at balances and history never start them.
+     */
+    private TransactionEngine getTransactionEngine() {
+        if (transactionEngine == null) {
+            try {
+                transactionEngine = new TransactionEngine();
+                transactionEngine.start();
+                
+                // Schedule the audit job (every 60 seconds)
+                auditJob = new AuditJob();
+                auditJob.schedule(60);
+            } catch (DatabaseConnectionException e) {
+                JOptionPane.showMessageDialog(this,
+                    "Database connection failed: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+        return transactionEngine;
     }
     
     private void openTransactionHistory() {
@@ -236,7 +287,7 @@ public class Dashboard extends JFrame {
         }
         
         String accountNumber = (String) tableModel.getValueAt(selectedRow, 0);
-        TransactionHistoryDialog dialog = new TransactionHistoryDialog(this, accountNumber);
+        TransactionHistoryDialog dialog = new TransactionHistoryDialog(this, accountNumber, lastWriteSequence);
         dialog.setVisible(true);
     }
     
@@ -252,11 +303,14 @@ public class Dashboard extends JFrame {
         
         if (confirm == JOptionPane.YES_OPTION) {
             // Stop background threads
+            BalanceEventBus.getInstance().unsubscribe(currentUser.getUserId(), balanceListener);
+            balanceUpdates.stop();
+            accountsLoader.cancel();
             if (transactionEngine != null) {
                 transactionEngine.stop();
             }
-            if (auditThread != null) {
-                auditThread.stopAudit();
+            if (auditJob != null) {
+                auditJob.cancel();
             }
             
             LoginFrame loginFrame = new LoginFrame();
@@ -0,0 +1,67 @@
+package gui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Collects keyed updates from any thread and applies them on the EDT in batches
+ * Only the latest value per key is kept, and a batch is applied at most once per frame
+ * interval (-Dbankbridge.ui.frameMillis, default 16), so a burst of updates costs one
+ * repaint instead of one per update.
+ */
+public class FrameCoalescer<K, V> {
+    private static final int FRAME_MILLIS = Math.max(1, Integer.getInteger("bankbridge.ui.frameMillis", 16));
+    
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Consumer<Map<K, V>> apply;
+    private final Timer timer;
+    
+    /**
+     * @param apply receives each batch on the EDT
+     */
+    public FrameCoalescer(Consumer<Map<K, V>> apply) {
+        this.apply = apply;
+        this.timer = new Timer(FRAME_MILLIS, e -> flush());
+        this.timer.setRepeats(false);
+    }
+    
+    /**
+     * Queue an update; replaces any pending value for the same key (any thread)
+     */
+    public void offer(K key, V value) {
+        pending.put(key, value);
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(timer::restart);
+        }
+    }
+    
+    /**
+     * Drop pending updates and stop applying new ones until the next offer
+     */
+    public void stop() {
+        timer.stop();
+        pending.clear();
+        scheduled.set(false);
+    }
+    
+    private void flush() {
+        // Clear the flag first: an update that arrives while applying schedules the next frame
+        scheduled.set(false);
+        Map<K, V> batch = new LinkedHashMap<>();
+        for (K key : pending.keySet()) {
+            V value = pending.remove(key);
+            if (value != null) {
+                batch.put(key, value);
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply.accept(batch);
+        }
+    }
+}
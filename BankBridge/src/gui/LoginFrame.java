@@ -1,9 +1,9 @@
 package gui;
 
-import db.UserDAO;
 import db.SecurityUtil;
 import exceptions.DatabaseConnectionException;
 import model.User;
+import threads.AuthenticationService;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -17,21 +17,30 @@ public class LoginFrame extends JFrame {
     private JPasswordField passwordField;
     private JButton loginButton;
     private JButton registerButton;
-    private UserDAO userDAO;
+    private AuthenticationService authService;
     
     public LoginFrame() {
-        try {
-            userDAO = new UserDAO();
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this, 
-                "Database connection failed: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
-        }
-        
         initializeUI();
     }
     
+    /**
+     * Authentication service, looked up on first use so the window can open while the
+     * database is still starting
+     */
+    private AuthenticationService getAuthService() {
+        if (authService == null) {
+            try {
+                authService = AuthenticationService.getInstance();
+            } catch (DatabaseConnectionException e) {
+                JOptionPane.showMessageDialog(this, 
+                    "Database connection failed: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            }
+        }
+        return authService;
+    }
+    
     private void initializeUI() {
         setTitle("BankBridge - Login");
         setSize(450, 350);
@@ -156,32 +165,43 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        try {
-            User user = userDAO.authenticate(username, password);
-            
-            if (user != null) {
-                JOptionPane.showMessageDialog(this,
-                    "Welcome, " + user.getFullName() + "!",
-                    "Login Successful", JOptionPane.INFORMATION_MESSAGE);
+        // Verify on the verifier pool and come back to the EDT with the result
+        setLoginInProgress(true);
+        getAuthService().authenticate(username, password).whenComplete((user, error) ->
+            SwingUtilities.invokeLater(() -> {
+                setLoginInProgress(false);
                 
-                // Open dashboard
-                Dashboard dashboard = new Dashboard(user);
-                dashboard.setVisible(true);
-                this.dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Invalid username or password",
-                    "Login Failed", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Login error: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Login error: " + AuthenticationService.errorMessage(error),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (user != null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Welcome, " + user.getFullName() + "!",
+                        "Login Successful", JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // Open dashboard
+                    Dashboard dashboard = new Dashboard(user);
+                    dashboard.setVisible(true);
+                    this.dispose();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Invalid username or password",
+                        "Login Failed", JOptionPane.ERROR_MESSAGE);
+                }
+            })
+        );
+    }
+    
+    private void setLoginInProgress(boolean inProgress) {
+        loginButton.setEnabled(!inProgress);
+        loginButton.setText(inProgress ? "Signing in..." : "Login");
+        passwordField.setEnabled(!inProgress);
+        setCursor(inProgress ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
     
     private void openRegisterDialog() {
-        RegisterDialog dialog = new RegisterDialog(this, userDAO);
+        RegisterDialog dialog = new RegisterDialog(this, getAuthService());
         dialog.setVisible(true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package gui;
+
+import db.PagedQuery;
+import exceptions.DatabaseConnectionException;
+import java.awt.Component;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Table model that holds only the pages of rows the table has actually shown
+ * The row count comes from a COUNT query; rows are fetched a page at a time through a
+ * PagedQuery when the table first paints them, so memory and refresh time depend on the
+ * viewport rather than the table size. The most recently used pages are kept
+ * (-Dbankbridge.ui.pageSize rows per page, default 200; -Dbankbridge.ui.cachedPages,
+ * default 20). Sorting and filtering are done by the database.
+ *
+ * Cells hold raw values (numbers, timestamps); the model's renderer formats them when a
+ * cell is painted. All methods run on the EDT; queries run on the AsyncLoader pool.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("bankbridge.ui.pageSize", 200));
+    private static final int MAX_PAGES = Math.max(2, Integer.getInteger("bankbridge.ui.cachedPages", 20));
+    // Requests beyond this are for pages already scrolled past; the oldest is dropped
+    private static final int MAX_PENDING_PAGES = 4;
+    
+    private final Source<T> source;
+    private final List<Column<T>> columns;
+    private final Consumer<Exception> onFailed;
+    private final AsyncLoader<Integer> countLoader;
+    private final LinkedHashMap<Integer, List<T>> pages;
+    private final LinkedHashMap<Integer, AsyncLoader<List<T>>> pendingPages = new LinkedHashMap<>();
+    
+    // Read by the count query on a loader thread
+    private volatile String filter = "";
+    private int sortColumn;
+    private boolean ascending;
+    private int rowCount;
+    private boolean failed;
+    
+    /**
+     * @param sortColumn index of the column the rows are first sorted by
+     * @param busy switched on while the row count is loading
+     */
+    public PagedTableModel(Source<T> source, List<Column<T>> columns, int sortColumn, boolean ascending,
+                           Consumer<Exception> onFailed, Consumer<Boolean> busy) {
+        this.source = source;
+        this.columns = new ArrayList<>(columns);
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        this.onFailed = onFailed;
+        this.countLoader = new AsyncLoader<>(reader -> source.open(reader).count(filter),
+                                             this::countLoaded, onFailed, busy);
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > MAX_PAGES;
+            }
+        };
+    }
+    
+    /**
+     * Column factory; value extracts the raw cell value and format turns it into text
+     * @param sortColumn database column to sort by, or null if the column is not sortable
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, V> Column<T> column(String name, String sortColumn, Function<T, V> value,
+                                          Function<V, String> format) {
+        return new Column<>(name, sortColumn, (Function<T, Object>) value, (Function<Object, String>) format);
+    }
+    
+    /**
+     * Drop all loaded pages and reload the row count; visible pages reload as they repaint
+     */
+    public void refresh() {
+        cancel();
+        pages.clear();
+        failed = false;
+        fireTableDataChanged();
+        countLoader.load();
+    }
+    
+    /**
+     * Stop all outstanding queries
+     */
+    public void cancel() {
+        countLoader.cancel();
+        for (AsyncLoader<List<T>> loader : pendingPages.values()) {
+            loader.cancel();
+        }
+        pendingPages.clear();
+    }
+    
+    public void setFilter(String filter) {
+        String trimmed = filter == null ? "" : filter.trim();
+        if (!trimmed.equals(this.filter)) {
+            this.filter = trimmed;
+            refresh();
+        }
+    }
+    
+    /**
+     * Sort by a column, or reverse the order if it is already the sort column
+     * @return false if the column cannot be sorted
+     */
+    public boolean sortBy(int column) {
+        if (columns.get(column).sortColumn == null) {
+            return false;
+        }
+        ascending = column == sortColumn ? !ascending : true;
+        sortColumn = column;
+        refresh();
+        return true;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+    
+    /**
+     * Column name with an arrow on the sort column
+     */
+    @Override
+    public String getColumnName(int column) {
+        String name = columns.get(column).name;
+        return column == sortColumn ? name + (ascending ? " ▲" : " ▼") : name;
+    }
+    
+    /**
+     * Raw cell value, or null while its page is loading
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageNumber = row / PAGE_SIZE;
+        List<T> page = pages.get(pageNumber);
+        if (page == null) {
+            requestPage(pageNumber);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        return index < page.size() ? columns.get(column).value.apply(page.get(index)) : null;
+    }
+    
+    /**
+     * Renderer that formats each cell with its column's formatter as it is painted
+     */
+    public DefaultTableCellRenderer createRenderer() {
+        return new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                           boolean hasFocus, int row, int column) {
+                Function<Object, String> format = columns.get(table.convertColumnIndexToModel(column)).format;
+                Object text = value == null ? "" : format == null ? value : format.apply(value);
+                return super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+            }
+        };
+    }
+    
+    private void requestPage(int pageNumber) {
+        if (failed || pendingPages.containsKey(pageNumber)) {
+            return;
+        }
+        String pageFilter = filter;
+        String orderBy = columns.get(sortColumn).sortColumn;
+        boolean pageAscending = ascending;
+        AsyncLoader<List<T>> loader = new AsyncLoader<>(
+            reader -> source.open(reader).fetch(pageFilter, orderBy, pageAscending,
+                                                pageNumber * PAGE_SIZE, PAGE_SIZE),
+            rows -> pageLoaded(pageNumber, rows),
+            e -> pageFailed(pageNumber, e),
+            loading -> { });
+        pendingPages.put(pageNumber, loader);
+        loader.load();
+        
+        if (pendingPages.size() > MAX_PENDING_PAGES) {
+            Iterator<AsyncLoader<List<T>>> oldest = pendingPages.values().iterator();
+            oldest.next().cancel();
+            oldest.remove();
+        }
+    }
+    
+    private void pageLoaded(int pageNumber, List<T> rows) {
+        if (pendingPages.remove(pageNumber) == null) {
+            return; // dropped by a refresh
+        }
+        pages.put(pageNumber, rows);
+        int first = pageNumber * PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+    
+    private void pageFailed(int pageNumber, Exception e) {
+        pendingPages.remove(pageNumber);
+        // Stop requesting pages until the next refresh rather than failing on every repaint
+        failed = true;
+        onFailed.accept(e);
+    }
+    
+    private void countLoaded(int count) {
+        if (count != rowCount) {
+            rowCount = count;
+            fireTableDataChanged();
+        }
+    }
+    
+    /**
+     * Opens the paged query for a loader thread's reader connection
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        PagedQuery<T> open(Connection reader) throws DatabaseConnectionException;
+    }
+    
+    /**
+     * One grid column: header, optional sort column, raw value and its formatter
+     */
+    public static final class Column<T> {
+        private final String name;
+        private final String sortColumn;
+        private final Function<T, Object> value;
+        private final Function<Object, String> format;
+        
+        private Column(String name, String sortColumn, Function<T, Object> value, Function<Object, String> format) {
+            this.name = name;
+            this.sortColumn = sortColumn;
+            this.value = value;
+            this.format = format;
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package gui;
 
-import db.UserDAO;
-import db.SecurityUtil;
-import exceptions.DatabaseConnectionException;
-import model.User;
+import threads.AuthenticationService;
 import javax.swing.*;
 import java.awt.*;
 
@@ -16,11 +13,12 @@ public class RegisterDialog extends JDialog {
     private JPasswordField confirmPasswordField;
     private JTextField fullNameField;
     private JTextField emailField;
-    private UserDAO userDAO;
+    private JButton registerButton;
+    private AuthenticationService authService;
     
-    public RegisterDialog(JFrame parent, UserDAO userDAO) {
+    public RegisterDialog(JFrame parent, AuthenticationService authService) {
         super(parent, "Register New User", true);
-        this.userDAO = userDAO;
+        this.authService = authService;
         initializeUI();
     }
     
@@ -85,7 +83,7 @@ public class RegisterDialog extends JDialog {
         mainPanel.add(confirmPasswordField);
         
         // Buttons
-        JButton registerButton = new JButton("Register");
+        registerButton = new JButton("Register");
         registerButton.setBounds(80, 400, 110, 35);
         registerButton.setBackground(new Color(46, 204, 113));
         registerButton.setForeground(Color.WHITE);
@@ -140,35 +138,29 @@ public class RegisterDialog extends JDialog {
             return;
         }
         
-        try {
-            // Check if username exists
-            if (userDAO.findByUsername(username) != null) {
-                JOptionPane.showMessageDialog(this,
-                    "Username already exists. Please choose another.",
-                    "Registration Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            
-            // Create new user
-            String passwordHash = SecurityUtil.hashPassword(password);
-            User newUser = new User(username, passwordHash, fullName, email);
-            
-            boolean success = userDAO.create(newUser);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this,
-                    "Registration successful! You can now login.",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                    "Registration failed. Please try again.",
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Database error: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        // Duplicate check, hashing and insert run on the verifier pool
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        registerButton.setEnabled(false);
+        authService.register(username, password, fullName, email).whenComplete((created, error) ->
+            SwingUtilities.invokeLater(() -> {
+                setCursor(Cursor.getDefaultCursor());
+                registerButton.setEnabled(true);
+                
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this,
+                        AuthenticationService.errorMessage(error),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (!created) {
+                    JOptionPane.showMessageDialog(this,
+                        "Username already exists. Please choose another.",
+                        "Registration Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Registration successful! You can now login.",
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                }
+            })
+        );
     }
 }
\ No newline at end of file
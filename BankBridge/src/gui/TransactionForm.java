@@ -1,6 +1,7 @@
 package gui;
 
 import db.AccountDAO;
+import db.CommitBarrier;
 import exceptions.DatabaseConnectionException;
 import model.*;
 import threads.TransactionEngine;
@@ -21,6 +22,7 @@ public class TransactionForm extends JDialog {
     private JTextField amountField;
     private JComboBox<String> toAccountCombo;
     private JLabel toAccountLabel;
+    private long lastSubmittedSequence = CommitBarrier.NONE;
     
     public TransactionForm(JFrame parent, User user, String accountNumber, TransactionEngine engine) {
         super(parent, "Perform Transaction", true);
@@ -216,7 +218,7 @@ public class TransactionForm extends JDialog {
             }
             
             // Submit to transaction engine
-            transactionEngine.submitTransaction(transaction, new TransactionEngine.TransactionCallback() {
+            long sequence = transactionEngine.submitTransaction(transaction, new TransactionEngine.TransactionCallback() {
                 @Override
                 public void onSuccess(String message) {
                     SwingUtilities.invokeLater(() -> {
@@ -236,6 +238,7 @@ public class TransactionForm extends JDialog {
                     });
                 }
             });
+            lastSubmittedSequence = Math.max(lastSubmittedSequence, sequence);
             
             JOptionPane.showMessageDialog(this,
                 "Transaction submitted for processing...",
@@ -251,4 +254,11 @@ public class TransactionForm extends JDialog {
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Commit sequence of the last transaction submitted from this form, for read-your-writes
+     */
+    public long getLastSubmittedSequence() {
+        return lastSubmittedSequence;
+    }
+}
@@ -1,5 +1,7 @@
 package gui;
 
+import db.ChangeFeed;
+import db.CommitBarrier;
 import db.TransactionDAO;
 import exceptions.DatabaseConnectionException;
 import model.Transaction;
@@ -10,27 +12,53 @@ import java.util.List;
 
 /**
  * Dialog to show transaction history
+ * Stays current while open: a change feed subscription reloads the history whenever a
+ * committed transaction touches the account.
  */
 public class TransactionHistoryDialog extends JDialog {
     private String accountNumber;
-    private TransactionDAO transactionDAO;
     private JTable transactionTable;
     private DefaultTableModel tableModel;
+    private JLabel statusLabel;
+    private AsyncLoader<List<Transaction>> transactionsLoader;
+    private ChangeFeed.Subscription changes;
     
     public TransactionHistoryDialog(JFrame parent, String accountNumber) {
+        this(parent, accountNumber, CommitBarrier.NONE);
+    }
+    
+    /**
+     * @param minSequence commit sequence the first load waits for, so the caller's own
+     *                    recent transactions are included
+     */
+    public TransactionHistoryDialog(JFrame parent, String accountNumber, long minSequence) {
         super(parent, "Transaction History", true);
         this.accountNumber = accountNumber;
         
+        initializeUI();
+        transactionsLoader = new AsyncLoader<>(
+            reader -> new TransactionDAO(reader).findByAccountNumber(accountNumber, minSequence),
+            this::showTransactions,
+            e -> JOptionPane.showMessageDialog(this,
+                "Error loading transactions: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE),
+            loading -> {
+                statusLabel.setText(loading ? "Loading transactions..." : " ");
+                setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+            });
+        transactionsLoader.load();
+        
         try {
-            transactionDAO = new TransactionDAO();
+            // Only new commits matter here; if they pile up, skipping some still triggers a reload
+            changes = ChangeFeed.getInstance().subscribe("history-" + accountNumber, ChangeFeed.LATEST, 64,
+                ChangeFeed.Overflow.DROP, event -> {
+                    if (event.touches(accountNumber)) {
+                        SwingUtilities.invokeLater(this::reloadIfOpen);
+                    }
+                });
         } catch (DatabaseConnectionException e) {
-            JOptionPane.showMessageDialog(this,
-                "Database error: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
+            System.err.println("Live history updates unavailable: " + e.getMessage());
         }
-        
-        initializeUI();
-        loadTransactions();
     }
     
     private void initializeUI() {
@@ -77,8 +105,12 @@ public class TransactionHistoryDialog extends JDialog {
         JScrollPane scrollPane = new JScrollPane(transactionTable);
         mainPanel.add(scrollPane, BorderLayout.CENTER);
         
-        // Close button
+        // Loading indicator and close button
         JPanel buttonPanel = new JPanel();
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Arial", Font.ITALIC, 13));
+        buttonPanel.add(statusLabel);
+        
         JButton closeButton = new JButton("Close");
         closeButton.setFont(new Font("Arial", Font.BOLD, 14));
         closeButton.setBackground(new Color(231, 76, 60));
@@ -92,33 +124,42 @@ public class TransactionHistoryDialog extends JDialog {
         add(mainPanel);
     }
     
-    private void loadTransactions() {
-        try {
-            List<Transaction> transactions = transactionDAO.findByAccountNumber(accountNumber);
-            
-            tableModel.setRowCount(0);
-            
-            for (Transaction t : transactions) {
-                Object[] row = {
-                    t.getTransactionId(),
-                    t.getTransactionType(),
-                    String.format("$%.2f", t.getAmount()),
-                    t instanceof model.Transfer ? ((model.Transfer) t).getToAccountNumber() : "-",
-                    t.getTimestamp().toString().substring(0, 19).replace("T", " "),
-                    t.getDescription() != null ? t.getDescription() : "-"
-                };
-                tableModel.addRow(row);
-            }
-            
-            if (transactions.isEmpty()) {
-                JOptionPane.showMessageDialog(this,
-                    "No transactions found for this account",
-                    "No Transactions", JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (DatabaseConnectionException e) {
+    private void showTransactions(List<Transaction> transactions) {
+        tableModel.setRowCount(0);
+        
+        for (Transaction t : transactions) {
+            Object[] row = {
+                t.getTransactionId(),
+                t.getTransactionType(),
+                String.format("$%.2f", t.getAmount()),
+                t instanceof model.Transfer ? ((model.Transfer) t).getToAccountNumber() : "-",
+                t.getFormattedTimestamp(),
+                t.getDescription() != null ? t.getDescription() : "-"
+            };
+            tableModel.addRow(row);
+        }
+        
+        if (transactions.isEmpty()) {
             JOptionPane.showMessageDialog(this,
-                "Error loading transactions: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
+                "No transactions found for this account",
+                "No Transactions", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    private void reloadIfOpen() {
+        if (changes != null) {
+            transactionsLoader.load();
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        // Closing before the history arrives drops the load
+        transactionsLoader.cancel();
+        if (changes != null) {
+            changes.close();
+            changes = null;
         }
+        super.dispose();
     }
 }
\ No newline at end of file
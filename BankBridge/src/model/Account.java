@@ -12,7 +12,8 @@ public abstract class Account implements BankEntity {
     protected int userId;
     protected double balance;
     protected String accountType;
-    protected LocalDateTime createdAt;
+    protected long createdAtMicros;
+    private LocalDateTime createdAt; // built lazily from createdAtMicros
     protected boolean isActive;
     
     // Constructor with all parameters
@@ -21,7 +22,7 @@ public abstract class Account implements BankEntity {
         this.userId = userId;
         this.balance = balance;
         this.accountType = accountType;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMicros = EpochTime.now();
         this.isActive = true;
     }
     
@@ -79,9 +80,16 @@ public abstract class Account implements BankEntity {
     
     @Override
     public LocalDateTime getCreatedAt() {
+        if (createdAt == null) {
+            createdAt = EpochTime.toLocalDateTime(createdAtMicros);
+        }
         return createdAt;
     }
     
+    public long getCreatedAtMicros() {
+        return createdAtMicros;
+    }
+    
     @Override
     public String getDisplayInfo() {
         return String.format("%s - %s (Balance: $%.2f)", accountNumber, accountType, balance);
@@ -117,6 +125,12 @@ public abstract class Account implements BankEntity {
     }
     
     public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAtMicros = EpochTime.toMicros(createdAt);
         this.createdAt = createdAt;
     }
+    
+    public void setCreatedAtMicros(long createdAtMicros) {
+        this.createdAtMicros = createdAtMicros;
+        this.createdAt = null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversion helpers for timestamps stored as epoch microseconds
+ * Entities keep the raw value and only build a LocalDateTime when displayed
+ */
+public final class EpochTime {
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    
+    private EpochTime() {
+    }
+    
+    /**
+     * Current time in epoch microseconds
+     */
+    public static long now() {
+        return toMicros(Instant.now());
+    }
+    
+    /**
+     * Convert a local date-time (system time zone) to epoch microseconds
+     */
+    public static long toMicros(LocalDateTime dateTime) {
+        return toMicros(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+    
+    /**
+     * Convert epoch microseconds to a local date-time (system time zone)
+     */
+    public static LocalDateTime toLocalDateTime(long micros) {
+        Instant instant = Instant.ofEpochSecond(
+            Math.floorDiv(micros, MICROS_PER_SECOND),
+            Math.floorMod(micros, MICROS_PER_SECOND) * 1000L);
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+    
+    /**
+     * Local calendar day (days since 1970-01-01) of an epoch-microsecond timestamp
+     */
+    public static long toEpochDay(long micros) {
+        return toLocalDateTime(micros).toLocalDate().toEpochDay();
+    }
+    
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * MICROS_PER_SECOND + instant.getNano() / 1000;
+    }
+}
\ No newline at end of file
@@ -1,17 +1,21 @@
 package model;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Abstract base class for all transaction types
  * Demonstrates Abstraction in OOP
  */
 public abstract class Transaction implements BankEntity {
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
     protected int transactionId;
     protected String accountNumber;
     protected double amount;
     protected String transactionType;
-    protected LocalDateTime timestamp;
+    protected long timestampMicros;
+    private LocalDateTime timestamp; // built lazily from timestampMicros
     protected String description;
     
     public Transaction(int transactionId, String accountNumber, double amount, String transactionType) {
@@ -19,7 +23,7 @@ public abstract class Transaction implements BankEntity {
         this.accountNumber = accountNumber;
         this.amount = amount;
         this.transactionType = transactionType;
-        this.timestamp = LocalDateTime.now();
+        this.timestampMicros = EpochTime.now();
     }
     
     // Constructor overloading
@@ -47,13 +51,20 @@ public abstract class Transaction implements BankEntity {
     
     @Override
     public LocalDateTime getCreatedAt() {
-        return timestamp;
+        return getTimestamp();
     }
     
     @Override
     public String getDisplayInfo() {
-        return String.format("%s - $%.2f on %s", transactionType, amount, 
-                           timestamp.toString().substring(0, 19));
+        return String.format("%s - $%.2f on %s", transactionType, amount, getFormattedTimestamp());
+    }
+    
+    /**
+     * Timestamp to the second, e.g. 2024-05-01 09:30:00
+     * Always the full width, unlike LocalDateTime.toString(), which drops zero seconds.
+     */
+    public String getFormattedTimestamp() {
+        return getTimestamp().format(DISPLAY_FORMAT);
     }
     
     // Getters
@@ -74,9 +85,16 @@ public abstract class Transaction implements BankEntity {
     }
     
     public LocalDateTime getTimestamp() {
+        if (timestamp == null) {
+            timestamp = EpochTime.toLocalDateTime(timestampMicros);
+        }
         return timestamp;
     }
     
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+    
     public String getDescription() {
         return description;
     }
@@ -90,6 +108,12 @@ public abstract class Transaction implements BankEntity {
     }
     
     public void setTimestamp(LocalDateTime timestamp) {
+        this.timestampMicros = EpochTime.toMicros(timestamp);
         this.timestamp = timestamp;
     }
+    
+    public void setTimestampMicros(long timestampMicros) {
+        this.timestampMicros = timestampMicros;
+        this.timestamp = null;
+    }
 }
\ No newline at end of file
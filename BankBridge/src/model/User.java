@@ -13,7 +13,8 @@ public class User implements BankEntity {
     private String fullName;
     private String email;
     private boolean isAdmin;
-    private LocalDateTime createdAt;
+    private long createdAtMicros;
+    private LocalDateTime createdAt; // built lazily from createdAtMicros
     
     public User(int userId, String username, String passwordHash, String fullName, String email, boolean isAdmin) {
         this.userId = userId;
@@ -22,7 +23,7 @@ public class User implements BankEntity {
         this.fullName = fullName;
         this.email = email;
         this.isAdmin = isAdmin;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMicros = EpochTime.now();
     }
     
     public User(String username, String passwordHash, String fullName, String email) {
@@ -36,6 +37,9 @@ public class User implements BankEntity {
     
     @Override
     public LocalDateTime getCreatedAt() {
+        if (createdAt == null) {
+            createdAt = EpochTime.toLocalDateTime(createdAtMicros);
+        }
         return createdAt;
     }
     
@@ -90,7 +94,17 @@ public class User implements BankEntity {
         isAdmin = admin;
     }
     
+    public long getCreatedAtMicros() {
+        return createdAtMicros;
+    }
+    
     public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAtMicros = EpochTime.toMicros(createdAt);
         this.createdAt = createdAt;
     }
+    
+    public void setCreatedAtMicros(long createdAtMicros) {
+        this.createdAtMicros = createdAtMicros;
+        this.createdAt = null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,623 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import db.AccountDAO;
+import db.CommitBarrier;
+import db.DBConnection;
+import db.SecurityUtil;
+import db.TransactionDAO;
+import exceptions.DatabaseConnectionException;
+import model.Account;
+import model.CurrentAccount;
+import model.Deposit;
+import model.SavingsAccount;
+import model.Transaction;
+import model.Transfer;
+import model.User;
+import model.Withdraw;
+import threads.AuthenticationService;
+import threads.BalanceEventBus;
+import threads.TransactionEngine;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP/JSON API over the DAOs and transaction engine, for headless mode
+ * Built on the JDK HttpServer with one virtual thread per request (JDK 21+; older JDKs
+ * fall back to a bounded pool of -Dbankbridge.server.threads platform threads, default 64).
+ * Listens on -Dbankbridge.server.host:-Dbankbridge.server.port (default 127.0.0.1:8080).
+ *
+ * POST /api/login with {"username", "password"} checks the credentials through UserDAO
+ * (on the AuthenticationService pool) and returns a session token, sent back as
+ * "Authorization: Bearer <token>". Sessions expire after -Dbankbridge.server.sessionMinutes
+ * of inactivity (default 30). Endpoints:
+ *   GET  /api/health                                 engine and server stats (no token)
+ *   POST /api/logout
+ *   GET  /api/accounts[?userId=n]                     own accounts (admins: any user)
+ *   POST /api/accounts                                {"type": SAVINGS|CURRENT, "initialBalance"}
+ *   GET  /api/accounts/{number}
+ *   GET  /api/accounts/{number}/transactions[?minSequence=n]
+ *   POST /api/transactions                            {"type": DEPOSIT|WITHDRAW|TRANSFER,
+ *                                                      "account", "amount", "toAccount"}
+ *
+ * Reads borrow one of -Dbankbridge.server.readers read-only connections (default one per
+ * core), so a burst of requests queues for a connection instead of opening one each.
+ * Writes go through the shared TransactionEngine; the request waits up to
+ * -Dbankbridge.server.writeTimeoutMillis (default 10000) for the commit and returns its
+ * commit sequence. Reads by the same session wait for that sequence (read-your-writes).
+ */
+public class ApiServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PLATFORM_THREADS = 64;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final String executorName;
+    private final TransactionEngine engine;
+    private final BlockingQueue<Connection> readers;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long sessionNanos;
+    private final long writeTimeoutMillis;
+    
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    /**
+     * Bind the server; it accepts requests once started
+     * @param engine started engine that processes submitted transactions
+     */
+    public ApiServer(TransactionEngine engine) throws DatabaseConnectionException, IOException {
+        this.engine = engine;
+        this.sessionNanos = TimeUnit.MINUTES.toNanos(Math.max(1, Integer.getInteger("bankbridge.server.sessionMinutes", 30)));
+        this.writeTimeoutMillis = Math.max(1, Long.getLong("bankbridge.server.writeTimeoutMillis", 10_000));
+        
+        int readerCount = Math.max(1, Integer.getInteger("bankbridge.server.readers",
+                                                         Runtime.getRuntime().availableProcessors()));
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        for (int i = 0; i < readerCount; i++) {
+            readers.add(DBConnection.getInstance().openReadOnlyConnection());
+        }
+        
+        // Headers and body go out in separate writes; without TCP_NODELAY every reply
+        // waits for the client's delayed ACK (about 40 ms). Read when the server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        String host = System.getProperty("bankbridge.server.host", "127.0.0.1");
+        int port = Integer.getInteger("bankbridge.server.port", DEFAULT_PORT);
+        this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.httpServer.createContext("/api/", this::handle);
+        
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        if (virtualThreads != null) {
+            this.executor = virtualThreads;
+            this.executorName = "virtual thread per request";
+        } else {
+            int threads = Math.max(1, Integer.getInteger("bankbridge.server.threads", DEFAULT_PLATFORM_THREADS));
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ApiServer-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.executorName = threads + " platform threads";
+        }
+        this.httpServer.setExecutor(executor);
+    }
+    
+    public void start() {
+        httpServer.start();
+        System.out.println("API server listening on http://" + httpServer.getAddress().getHostString() + ":" +
+                           getPort() + "/api/ (" + executorName + ")");
+    }
+    
+    /**
+     * Stop accepting requests, let running ones finish (up to a second) and close the readers
+     */
+    public void stop() {
+        httpServer.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Connection reader;
+        while ((reader = readers.poll()) != null) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close reader connection: " + e.getMessage());
+            }
+        }
+        System.out.println("API server stopped. " + getStats());
+    }
+    
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+    
+    public String getStats() {
+        long count = requests.get();
+        return String.format("%d requests, %d errors, latency avg %.2f ms (max %.1f), %d sessions, %s",
+                             count, errors.get(), count == 0 ? 0.0 : totalNanos.get() / 1e6 / count,
+                             maxNanos.get() / 1e6, sessions.size(), executorName);
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when the running JDK has it (21+)
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Reply reply;
+        try {
+            reply = route(exchange);
+        } catch (ApiException e) {
+            reply = Reply.error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            reply = Reply.error(400, e.getMessage());
+        } catch (DatabaseConnectionException e) {
+            reply = Reply.error(500, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("API request failed: " + e);
+            reply = Reply.error(500, "Internal server error");
+        }
+        
+        try {
+            byte[] body = reply.body == null ? null : Json.write(reply.body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(reply.status, body == null ? -1 : body.length);
+            if (body != null) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            exchange.close();
+            long elapsed = System.nanoTime() - start;
+            requests.incrementAndGet();
+            if (reply.status >= 400) {
+                errors.incrementAndGet();
+            }
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+    
+    private Reply route(HttpExchange exchange) throws IOException, DatabaseConnectionException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        
+        if (path.length == 1 && path[0].equals("health") && method.equals("GET")) {
+            return health();
+        }
+        if (path.length == 1 && path[0].equals("login") && method.equals("POST")) {
+            return login(Json.parseObject(readBody(exchange)));
+        }
+        
+        Session session = session(exchange);
+        if (path.length == 1 && path[0].equals("logout") && method.equals("POST")) {
+            sessions.remove(session.token);
+            return new Reply(204, null);
+        }
+        if (path[0].equals("accounts")) {
+            if (path.length == 1 && method.equals("GET")) {
+                return listAccounts(session, query.get("userId"));
+            }
+            if (path.length == 1 && method.equals("POST")) {
+                return openAccount(session, Json.parseObject(readBody(exchange)));
+            }
+            if (path.length == 2 && method.equals("GET")) {
+                return new Reply(200, toJson(readOwnedAccount(session, path[1])));
+            }
+            if (path.length == 3 && path[2].equals("transactions") && method.equals("GET")) {
+                return history(session, path[1], query.get("minSequence"));
+            }
+        }
+        if (path.length == 1 && path[0].equals("transactions") && method.equals("POST")) {
+            return submitTransaction(session, Json.parseObject(readBody(exchange)));
+        }
+        throw new ApiException(404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+    }
+    
+    private Reply health() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", "ok");
+        health.put("engineQueue", engine.getQueueSize());
+        health.put("committedSequence", CommitBarrier.getInstance().getWatermark());
+        health.put("server", getStats());
+        return new Reply(200, health);
+    }
+    
+    private Reply login(Map<String, Object> body) {
+        String username = requiredString(body, "username");
+        String password = requiredString(body, "password");
+        User user;
+        try {
+            user = AuthenticationService.getInstance().authenticate(username, password).get();
+        } catch (DatabaseConnectionException e) {
+            throw new ApiException(500, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "Interrupted");
+        } catch (ExecutionException e) {
+            throw new ApiException(503, AuthenticationService.errorMessage(e.getCause()));
+        }
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        
+        expireSessions();
+        byte[] tokenBytes = new byte[32];
+        random.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        sessions.put(token, new Session(token, user));
+        
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("token", token);
+        reply.put("user", toJson(user));
+        return new Reply(200, reply);
+    }
+    
+    private Reply listAccounts(Session session, String userIdParam) throws DatabaseConnectionException {
+        int userId = session.user.getUserId();
+        if (userIdParam != null) {
+            userId = parseInt(userIdParam, "userId");
+            if (userId != session.user.getUserId() && !session.user.isAdmin()) {
+                throw new ApiException(403, "Only administrators can list other users' accounts");
+            }
+        }
+        int owner = userId;
+        long minSequence = session.lastSequence.get();
+        List<Account> accounts = read(reader -> new AccountDAO(reader).findByUserId(owner, minSequence));
+        List<Object> reply = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            reply.add(toJson(account));
+        }
+        return new Reply(200, reply);
+    }
+    
+    private Reply openAccount(Session session, Map<String, Object> body) throws DatabaseConnectionException {
+        String type = requiredString(body, "type").toUpperCase();
+        double initialBalance = requiredNumber(body, "initialBalance");
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Initial balance cannot be negative");
+        }
+        
+        String accountNumber = SecurityUtil.generateAccountNumber();
+        Account account;
+        if (type.equals("SAVINGS")) {
+            if (initialBalance < 500) {
+                throw new IllegalArgumentException("Savings account requires minimum balance of $500");
+            }
+            account = new SavingsAccount(accountNumber, session.user.getUserId(), initialBalance);
+        } else if (type.equals("CURRENT")) {
+            account = new CurrentAccount(accountNumber, session.user.getUserId(), initialBalance);
+        } else {
+            throw new IllegalArgumentException("Account type must be SAVINGS or CURRENT");
+        }
+        
+        if (!new AccountDAO().create(account)) {
+            throw new ApiException(500, "Failed to create account");
+        }
+        BalanceEventBus.getInstance().publish(account);
+        return new Reply(201, toJson(account));
+    }
+    
+    private Reply history(Session session, String accountNumber, String minSequenceParam)
+            throws DatabaseConnectionException {
+        readOwnedAccount(session, accountNumber);
+        long minSequence = session.lastSequence.get();
+        if (minSequenceParam != null) {
+            minSequence = Math.max(minSequence, parseLong(minSequenceParam, "minSequence"));
+        }
+        long waitFor = minSequence;
+        List<Transaction> transactions = read(reader ->
+            new TransactionDAO(reader).findByAccountNumber(accountNumber, waitFor));
+        List<Object> reply = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            reply.add(toJson(transaction));
+        }
+        return new Reply(200, reply);
+    }
+    
+    private Reply submitTransaction(Session session, Map<String, Object> body) throws DatabaseConnectionException {
+        String type = requiredString(body, "type").toUpperCase();
+        String accountNumber = requiredString(body, "account");
+        double amount = requiredNumber(body, "amount");
+        
+        Transaction transaction;
+        switch (type) {
+            case "DEPOSIT":
+                transaction = new Deposit(accountNumber, amount);
+                break;
+            case "WITHDRAW":
+                transaction = new Withdraw(accountNumber, amount);
+                break;
+            case "TRANSFER":
+                String toAccount = requiredString(body, "toAccount");
+                if (toAccount.equals(accountNumber)) {
+                    throw new IllegalArgumentException("Cannot transfer to the same account");
+                }
+                transaction = new Transfer(accountNumber, toAccount, amount);
+                break;
+            default:
+                throw new IllegalArgumentException("Transaction type must be DEPOSIT, WITHDRAW or TRANSFER");
+        }
+        transaction.validate();
+        readOwnedAccount(session, accountNumber);
+        
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long sequence = engine.submitTransaction(transaction, new TransactionEngine.TransactionCallback() {
+            @Override
+            public void onSuccess(String message) {
+                result.complete(message);
+            }
+            
+            @Override
+            public void onFailure(String error) {
+                result.completeExceptionally(new ApiException(422, error));
+            }
+        });
+        session.lastSequence.accumulateAndGet(sequence, Math::max);
+        
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("sequence", sequence);
+        try {
+            reply.put("status", "COMMITTED");
+            reply.put("message", result.get(writeTimeoutMillis, TimeUnit.MILLISECONDS));
+            return new Reply(200, reply);
+        } catch (ExecutionException e) {
+            reply.put("status", "FAILED");
+            reply.put("error", e.getCause().getMessage());
+            return new Reply(422, reply);
+        } catch (TimeoutException e) {
+            // Still queued; the sequence lets the client read its result later
+            reply.put("status", "PENDING");
+            reply.remove("message");
+            return new Reply(202, reply);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "Interrupted");
+        }
+    }
+    
+    /**
+     * Load an account the session may see: its own, or any for administrators
+     * Another user's account is reported as missing rather than forbidden.
+     */
+    private Account readOwnedAccount(Session session, String accountNumber) throws DatabaseConnectionException {
+        Account account = read(reader -> new AccountDAO(reader).findById(accountNumber));
+        if (account == null || (account.getUserId() != session.user.getUserId() && !session.user.isAdmin())) {
+            throw new ApiException(404, "Account not found: " + accountNumber);
+        }
+        return account;
+    }
+    
+    /**
+     * Run a query on a borrowed reader connection, waiting for one if all are in use
+     */
+    private <T> T read(ReadQuery<T> query) throws DatabaseConnectionException {
+        Connection reader;
+        try {
+            reader = readers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseConnectionException("Interrupted waiting for a reader connection", e);
+        }
+        try {
+            return query.run(reader);
+        } finally {
+            readers.add(reader);
+        }
+    }
+    
+    private Session session(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new ApiException(401, "Missing bearer token; POST /api/login first");
+        }
+        Session session = sessions.get(header.substring("Bearer ".length()).trim());
+        long now = System.nanoTime();
+        if (session == null || now - session.lastUsedNanos > sessionNanos) {
+            if (session != null) {
+                sessions.remove(session.token);
+            }
+            throw new ApiException(401, "Session expired or unknown; POST /api/login again");
+        }
+        session.lastUsedNanos = now;
+        return session;
+    }
+    
+    private void expireSessions() {
+        long now = System.nanoTime();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUsedNanos > sessionNanos) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+    
+    private static String requiredString(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof String) || ((String) value).trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return ((String) value).trim();
+    }
+    
+    private static double requiredNumber(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        // JSON numbers only; amounts sent as strings are rejected rather than parsed
+        if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+            return ((Number) value).doubleValue();
+        }
+        throw new IllegalArgumentException("Missing or invalid number: " + field);
+    }
+    
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static Map<String, Object> toJson(User user) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("userId", user.getUserId());
+        json.put("username", user.getUsername());
+        json.put("fullName", user.getFullName());
+        json.put("email", user.getEmail());
+        json.put("admin", user.isAdmin());
+        return json;
+    }
+    
+    private static Map<String, Object> toJson(Account account) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("accountNumber", account.getAccountNumber());
+        json.put("userId", account.getUserId());
+        json.put("type", account.getAccountType());
+        json.put("balance", account.getBalance());
+        json.put("active", account.isActive());
+        json.put("createdAt", account.getCreatedAt().toString());
+        return json;
+    }
+    
+    private static Map<String, Object> toJson(Transaction transaction) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("transactionId", transaction.getTransactionId());
+        json.put("type", transaction.getTransactionType());
+        json.put("accountNumber", transaction.getAccountNumber());
+        if (transaction instanceof Transfer) {
+            json.put("toAccount", ((Transfer) transaction).getToAccountNumber());
+        }
+        json.put("amount", transaction.getAmount());
+        json.put("timestamp", transaction.getTimestamp().toString());
+        json.put("description", transaction.getDescription());
+        return json;
+    }
+    
+    @FunctionalInterface
+    private interface ReadQuery<T> {
+        T run(Connection reader) throws DatabaseConnectionException;
+    }
+    
+    private static final class Session {
+        private final String token;
+        private final User user;
+        private volatile long lastUsedNanos = System.nanoTime();
+        // Commit sequence of the session's latest transaction; its reads wait for it
+        private final AtomicLong lastSequence = new AtomicLong(CommitBarrier.NONE);
+        
+        private Session(String token, User user) {
+            this.token = token;
+            this.user = user;
+        }
+    }
+    
+    private static final class Reply {
+        private final int status;
+        private final Object body;
+        
+        private Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+        
+        private static Reply error(int status, String message) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", message);
+            return new Reply(status, body);
+        }
+    }
+    
+    /**
+     * Request failure with the HTTP status to report
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+        
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
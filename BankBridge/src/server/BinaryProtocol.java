@@ -0,0 +1,88 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the pipelined binary transaction protocol (BinaryServer)
+ * Every frame is a 4-byte length followed by that many bytes, all big-endian:
+ *   request:  opcode (1) | correlation id (8) | payload
+ *   response: status (1) | correlation id (8) | payload
+ * Strings are a 2-byte length and UTF-8 bytes. Responses carry the correlation id of
+ * their request and may arrive in any order.
+ *
+ * Requests and their OK payloads:
+ *   LOGIN    username, password          -> userId (4), admin (1), count (2), account numbers
+ *   DEPOSIT  account, amount (8)         -> commit sequence (8)
+ *   WITHDRAW account, amount (8)         -> commit sequence (8)
+ *   TRANSFER account, toAccount, amount  -> commit sequence (8)
+ *   BALANCE  account, minSequence (8)    -> balance (8)
+ *   HISTORY  account, minSequence (8)    -> count (2), then per transaction: id (8), type (1),
+ *                                           amount (8), timestamp micros (8), toAccount
+ * minSequence makes the read wait for that commit sequence first (0 = read right away).
+ * Any other status carries a message string; a FAILED submit also has its sequence first.
+ */
+public final class BinaryProtocol {
+    public static final int LENGTH_BYTES = 4;
+    public static final int HEADER_BYTES = 9;
+    public static final int MAX_FRAME_BYTES = 64 * 1024;
+    
+    public static final byte LOGIN = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte TRANSFER = 4;
+    public static final byte BALANCE = 5;
+    public static final byte HISTORY = 6;
+    
+    public static final byte OK = 0;
+    public static final byte FAILED = 1;
+    public static final byte UNAUTHORIZED = 2;
+    public static final byte NOT_FOUND = 3;
+    public static final byte BAD_REQUEST = 4;
+    
+    public static final byte TYPE_DEPOSIT = 1;
+    public static final byte TYPE_WITHDRAW = 2;
+    public static final byte TYPE_TRANSFER = 3;
+    
+    private BinaryProtocol() {
+    }
+    
+    /**
+     * Bytes putString may write for a string
+     */
+    public static int maxStringBytes(String value) {
+        return 2 + 3 * value.length();
+    }
+    
+    /**
+     * Write a length-prefixed UTF-8 string; ASCII is copied byte by byte without allocating
+     */
+    public static void putString(ByteBuffer buffer, String value) {
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            buffer.putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+    
+    /**
+     * Read a length-prefixed UTF-8 string
+     * @throws java.nio.BufferUnderflowException if the frame ends inside the string
+     */
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,697 @@
+package server;
+
+import db.AccountDAO;
+import db.CommitBarrier;
+import db.DBConnection;
+import db.TransactionDAO;
+import exceptions.DatabaseConnectionException;
+import model.Account;
+import model.Deposit;
+import model.Transaction;
+import model.Transfer;
+import model.User;
+import model.Withdraw;
+import threads.AuthenticationService;
+import threads.TransactionEngine;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NIO server for the pipelined binary transaction protocol (see BinaryProtocol)
+ * One selector thread does all socket I/O. Frames are decoded in place from each
+ * connection's direct read buffer, and responses are encoded straight into its direct
+ * write buffer, so framing allocates nothing per message. Submits go straight into the
+ * TransactionEngine; logins and reads run on a small worker pool
+ * (-Dbankbridge.binary.workers, default one per core), each worker with its own
+ * read-only connection.
+ *
+ * A connection may have up to -Dbankbridge.binary.maxInFlight requests outstanding
+ * (default 8192); beyond that the server stops reading from it until half have been
+ * answered. It also stops reading while more than WRITE_BUFFER_BYTES of responses are
+ * waiting to be written, until half of them have been, so a client that pipelines
+ * without reading is held back. Responses already in progress can still pile up; a
+ * connection whose unsent responses would exceed -Dbankbridge.binary.maxPendingBytes
+ * (default 16 MB) is closed instead of growing its buffer further. Listens on -Dbankbridge.server.host:-Dbankbridge.binary.port (default
+ * 127.0.0.1:8081). The first request on a connection must be LOGIN; it authenticates
+ * through UserDAO, and non-admin users may only use their own accounts.
+ */
+public class BinaryServer implements Runnable {
+    private static final int DEFAULT_PORT = 8081;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 8192;
+    private static final int DEFAULT_MAX_PENDING_BYTES = 16 * 1024 * 1024;
+    private static final int READ_BUFFER_BYTES = BinaryProtocol.LENGTH_BYTES + BinaryProtocol.MAX_FRAME_BYTES;
+    private static final int WRITE_BUFFER_BYTES = 256 * 1024;
+    
+    private final TransactionEngine engine;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ThreadPoolExecutor workers;
+    private final int maxInFlight;
+    private final int maxPendingBytes;
+    // Connections with responses to send; each is queued once until the I/O thread flushes it
+    private final Queue<Connection> dirty = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Thread ioThread;
+    
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    
+    /**
+     * Bind the server; it accepts connections once started
+     * @param engine started engine that processes submitted transactions
+     */
+    public BinaryServer(TransactionEngine engine) throws IOException {
+        this.engine = engine;
+        this.maxInFlight = Math.max(2, Integer.getInteger("bankbridge.binary.maxInFlight", DEFAULT_MAX_IN_FLIGHT));
+        this.maxPendingBytes = Math.max(WRITE_BUFFER_BYTES, Integer.getInteger("bankbridge.binary.maxPendingBytes",
+                                                                               DEFAULT_MAX_PENDING_BYTES));
+        int workerCount = Math.max(1, Integer.getInteger("bankbridge.binary.workers",
+                                                         Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "BinaryWorker-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        
+        String host = System.getProperty("bankbridge.server.host", "127.0.0.1");
+        int port = Integer.getInteger("bankbridge.binary.port", DEFAULT_PORT);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(host, port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+    
+    public void start() {
+        if (!running) {
+            running = true;
+            ioThread = new Thread(this, "BinaryServer-IO");
+            ioThread.setDaemon(true);
+            ioThread.start();
+            System.out.println("Binary protocol server listening on " + serverChannel.socket().getInetAddress()
+                               .getHostAddress() + ":" + getPort());
+        }
+    }
+    
+    /**
+     * Stop accepting and close all connections; outstanding responses are dropped
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        if (ioThread != null) {
+            try {
+                ioThread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.shutdownNow();
+        System.out.println("Binary protocol server stopped. " + getStats());
+    }
+    
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+    
+    public String getStats() {
+        return String.format("%d connections, %d requests, %d responses, %d submitted to the engine",
+                             connections.get(), requests.get(), responses.get(), submitted.get());
+    }
+    
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection flushed;
+                while ((flushed = dirty.poll()) != null) {
+                    flushed.flushScheduled.set(false);
+                    flush(flushed);
+                }
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isWritable()) {
+                        flush(connection);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        read(connection);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Binary protocol server failed: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close binary protocol server: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.incrementAndGet();
+    }
+    
+    private void read(Connection connection) {
+        try {
+            if (connection.channel.read(connection.in) < 0) {
+                close(connection);
+                return;
+            }
+        } catch (IOException e) {
+            close(connection);
+            return;
+        }
+        processFrames(connection);
+    }
+    
+    /**
+     * Decode and dispatch every complete frame in the read buffer, up to the in-flight and
+     * unsent-bytes limits; frames behind a LOGIN wait until it has been answered
+     */
+    private void processFrames(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (in.remaining() >= BinaryProtocol.LENGTH_BYTES && !backlogged(connection) &&
+               !connection.loginPending) {
+            int length = in.getInt(in.position());
+            if (length < BinaryProtocol.HEADER_BYTES || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                System.err.println("Closing binary connection: bad frame length " + length);
+                close(connection);
+                return;
+            }
+            if (in.remaining() < BinaryProtocol.LENGTH_BYTES + length) {
+                break;
+            }
+            int frameEnd = in.position() + BinaryProtocol.LENGTH_BYTES + length;
+            int limit = in.limit();
+            in.position(in.position() + BinaryProtocol.LENGTH_BYTES);
+            in.limit(frameEnd);
+            byte opcode = in.get();
+            long correlationId = in.getLong();
+            connection.inFlight.incrementAndGet();
+            requests.incrementAndGet();
+            try {
+                dispatch(connection, opcode, correlationId, in);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                respondError(connection, BinaryProtocol.BAD_REQUEST, correlationId,
+                             e.getMessage() == null ? "Malformed request" : e.getMessage());
+            } catch (RejectedExecutionException e) {
+                respondError(connection, BinaryProtocol.FAILED, correlationId, "Server is shutting down");
+            }
+            in.limit(limit);
+            in.position(frameEnd);
+        }
+        in.compact();
+        connection.readPaused = backlogged(connection) || connection.loginPending;
+        updateInterest(connection);
+    }
+    
+    /**
+     * Whether the connection has too many requests or too many response bytes outstanding
+     */
+    private boolean backlogged(Connection connection) {
+        return connection.inFlight.get() >= maxInFlight || connection.unsentBytes > WRITE_BUFFER_BYTES;
+    }
+    
+    private void dispatch(Connection connection, byte opcode, long correlationId, ByteBuffer payload) {
+        if (opcode == BinaryProtocol.LOGIN) {
+            String username = BinaryProtocol.getString(payload);
+            String password = BinaryProtocol.getString(payload);
+            // Set before the task is queued, since the worker may answer before execute returns
+            connection.loginPending = true;
+            try {
+                workers.execute(() -> login(connection, correlationId, username, password));
+            } catch (RejectedExecutionException e) {
+                connection.loginPending = false;
+                throw e;
+            }
+            return;
+        }
+        if (connection.user == null) {
+            respondError(connection, BinaryProtocol.UNAUTHORIZED, correlationId, "LOGIN first");
+            return;
+        }
+        switch (opcode) {
+            case BinaryProtocol.DEPOSIT: {
+                String account = BinaryProtocol.getString(payload);
+                submit(connection, correlationId, new Deposit(account, getAmount(payload)));
+                break;
+            }
+            case BinaryProtocol.WITHDRAW: {
+                String account = BinaryProtocol.getString(payload);
+                submit(connection, correlationId, new Withdraw(account, getAmount(payload)));
+                break;
+            }
+            case BinaryProtocol.TRANSFER: {
+                String account = BinaryProtocol.getString(payload);
+                String toAccount = BinaryProtocol.getString(payload);
+                if (toAccount.equals(account)) {
+                    throw new IllegalArgumentException("Cannot transfer to the same account");
+                }
+                submit(connection, correlationId, new Transfer(account, toAccount, getAmount(payload)));
+                break;
+            }
+            case BinaryProtocol.BALANCE: {
+                String account = BinaryProtocol.getString(payload);
+                long minSequence = payload.getLong();
+                workers.execute(() -> balance(connection, correlationId, account, minSequence));
+                break;
+            }
+            case BinaryProtocol.HISTORY: {
+                String account = BinaryProtocol.getString(payload);
+                long minSequence = payload.getLong();
+                workers.execute(() -> history(connection, correlationId, account, minSequence));
+                break;
+            }
+            default:
+                respondError(connection, BinaryProtocol.BAD_REQUEST, correlationId, "Unknown opcode " + opcode);
+        }
+    }
+    
+    /**
+     * Read an amount, rejecting NaN and infinities as a bad request
+     */
+    private static double getAmount(ByteBuffer payload) {
+        double amount = payload.getDouble();
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Amount is not a number: " + amount);
+        }
+        return amount;
+    }
+    
+    /**
+     * Queue a transaction on the engine; an account not known to be the user's is checked first
+     */
+    private void submit(Connection connection, long correlationId, Transaction transaction) {
+        transaction.validate();
+        String accountNumber = transaction.getAccountNumber();
+        if (connection.user.isAdmin() || connection.ownedAccounts.contains(accountNumber)) {
+            queue(connection, correlationId, transaction);
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                Account account = readAccount(accountNumber);
+                if (account == null || account.getUserId() != connection.user.getUserId()) {
+                    respondError(connection, BinaryProtocol.NOT_FOUND, correlationId,
+                                 "Account not found: " + accountNumber);
+                    return;
+                }
+                connection.ownedAccounts.add(accountNumber);
+                queue(connection, correlationId, transaction);
+            } catch (DatabaseConnectionException e) {
+                respondError(connection, BinaryProtocol.FAILED, correlationId, e.getMessage());
+            }
+        });
+    }
+    
+    private void queue(Connection connection, long correlationId, Transaction transaction) {
+        SubmitReply reply = new SubmitReply(connection, correlationId);
+        reply.submitted(engine.submitTransaction(transaction, reply));
+        submitted.incrementAndGet();
+    }
+    
+    private void login(Connection connection, long correlationId, String username, String password) {
+        try {
+            User user = AuthenticationService.getInstance().authenticate(username, password).get();
+            if (user == null) {
+                respondError(connection, BinaryProtocol.UNAUTHORIZED, correlationId, "Invalid username or password");
+                return;
+            }
+            List<Account> accounts = new AccountDAO(DBConnection.getInstance().getReaderConnection())
+                .findByUserId(user.getUserId());
+            connection.ownedAccounts.clear();
+            int size = 4 + 1 + 2;
+            for (Account account : accounts) {
+                connection.ownedAccounts.add(account.getAccountNumber());
+                size += BinaryProtocol.maxStringBytes(account.getAccountNumber());
+            }
+            connection.user = user;
+            
+            synchronized (connection) {
+                if (begin(connection, BinaryProtocol.OK, correlationId, size)) {
+                    ByteBuffer out = connection.out;
+                    out.putInt(user.getUserId());
+                    out.put((byte) (user.isAdmin() ? 1 : 0));
+                    out.putShort((short) accounts.size());
+                    for (Account account : accounts) {
+                        BinaryProtocol.putString(out, account.getAccountNumber());
+                    }
+                    end(connection);
+                }
+            }
+            sent(connection);
+        } catch (DatabaseConnectionException e) {
+            respondError(connection, BinaryProtocol.FAILED, correlationId, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respondError(connection, BinaryProtocol.FAILED, correlationId, "Interrupted");
+        } catch (ExecutionException e) {
+            respondError(connection, BinaryProtocol.FAILED, correlationId,
+                         AuthenticationService.errorMessage(e.getCause()));
+        } finally {
+            // The reply is in the write buffer, ahead of anything the following frames answer
+            connection.loginPending = false;
+            scheduleFlush(connection);
+        }
+    }
+    
+    private void balance(Connection connection, long correlationId, String accountNumber, long minSequence) {
+        try {
+            CommitBarrier.getInstance().awaitSequence(minSequence);
+            Account account = readOwnedAccount(connection, accountNumber);
+            if (account == null) {
+                respondError(connection, BinaryProtocol.NOT_FOUND, correlationId, "Account not found: " + accountNumber);
+                return;
+            }
+            synchronized (connection) {
+                if (begin(connection, BinaryProtocol.OK, correlationId, 8)) {
+                    connection.out.putDouble(account.getBalance());
+                    end(connection);
+                }
+            }
+            sent(connection);
+        } catch (DatabaseConnectionException e) {
+            respondError(connection, BinaryProtocol.FAILED, correlationId, e.getMessage());
+        }
+    }
+    
+    private void history(Connection connection, long correlationId, String accountNumber, long minSequence) {
+        try {
+            if (readOwnedAccount(connection, accountNumber) == null) {
+                respondError(connection, BinaryProtocol.NOT_FOUND, correlationId, "Account not found: " + accountNumber);
+                return;
+            }
+            List<Transaction> transactions = new TransactionDAO(DBConnection.getInstance().getReaderConnection())
+                .findByAccountNumber(accountNumber, minSequence);
+            int size = 2;
+            for (Transaction transaction : transactions) {
+                size += 8 + 1 + 8 + 8 + 2;
+                if (transaction instanceof Transfer) {
+                    size += BinaryProtocol.maxStringBytes(((Transfer) transaction).getToAccountNumber());
+                }
+            }
+            synchronized (connection) {
+                if (begin(connection, BinaryProtocol.OK, correlationId, size)) {
+                    ByteBuffer out = connection.out;
+                    out.putShort((short) transactions.size());
+                    for (Transaction transaction : transactions) {
+                        out.putLong(transaction.getTransactionId());
+                        out.put(typeCode(transaction));
+                        out.putDouble(transaction.getAmount());
+                        out.putLong(transaction.getTimestampMicros());
+                        BinaryProtocol.putString(out, transaction instanceof Transfer
+                            ? ((Transfer) transaction).getToAccountNumber() : "");
+                    }
+                    end(connection);
+                }
+            }
+            sent(connection);
+        } catch (DatabaseConnectionException e) {
+            respondError(connection, BinaryProtocol.FAILED, correlationId, e.getMessage());
+        }
+    }
+    
+    private static byte typeCode(Transaction transaction) {
+        if (transaction instanceof Transfer) {
+            return BinaryProtocol.TYPE_TRANSFER;
+        }
+        return transaction instanceof Withdraw ? BinaryProtocol.TYPE_WITHDRAW : BinaryProtocol.TYPE_DEPOSIT;
+    }
+    
+    /**
+     * Load an account on the worker's reader connection, or null if the user may not see it
+     */
+    private Account readOwnedAccount(Connection connection, String accountNumber) throws DatabaseConnectionException {
+        Account account = readAccount(accountNumber);
+        if (account == null || (account.getUserId() != connection.user.getUserId() && !connection.user.isAdmin())) {
+            return null;
+        }
+        return account;
+    }
+    
+    private static Account readAccount(String accountNumber) throws DatabaseConnectionException {
+        return new AccountDAO(DBConnection.getInstance().getReaderConnection()).findById(accountNumber);
+    }
+    
+    private void respondSequence(Connection connection, byte status, long correlationId, long sequence, String message) {
+        synchronized (connection) {
+            int size = 8 + (message == null ? 0 : BinaryProtocol.maxStringBytes(message));
+            if (begin(connection, status, correlationId, size)) {
+                connection.out.putLong(sequence);
+                if (message != null) {
+                    BinaryProtocol.putString(connection.out, message);
+                }
+                end(connection);
+            }
+        }
+        sent(connection);
+    }
+    
+    private void respondError(Connection connection, byte status, long correlationId, String message) {
+        synchronized (connection) {
+            if (begin(connection, status, correlationId, BinaryProtocol.maxStringBytes(message))) {
+                BinaryProtocol.putString(connection.out, message);
+                end(connection);
+            }
+        }
+        sent(connection);
+    }
+    
+    /**
+     * Start a response frame in the write buffer, growing it if needed (caller holds the lock)
+     * A connection whose unsent responses would exceed maxPendingBytes is closed.
+     * @return false if the connection is closed and the response should be dropped
+     */
+    private boolean begin(Connection connection, byte status, long correlationId, int payloadBytes) {
+        if (connection.closed) {
+            return false;
+        }
+        int needed = BinaryProtocol.LENGTH_BYTES + BinaryProtocol.HEADER_BYTES + payloadBytes;
+        if (connection.out.remaining() < needed) {
+            // Rare: only when the client reads slower than it pipelines, or for a long history
+            if ((long) connection.out.position() + needed > maxPendingBytes) {
+                System.err.println("Closing binary connection: more than " + maxPendingBytes +
+                                   " bytes of responses not read by the client");
+                close(connection);
+                return false;
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.min(Math.max(connection.out.capacity() * 2,
+                                                                           connection.out.position() + needed),
+                                                                  maxPendingBytes));
+            connection.out.flip();
+            grown.put(connection.out);
+            connection.out = grown;
+        }
+        connection.frameStart = connection.out.position();
+        connection.out.putInt(0);
+        connection.out.put(status);
+        connection.out.putLong(correlationId);
+        return true;
+    }
+    
+    /**
+     * Patch the length of the frame started by begin (caller holds the lock)
+     */
+    private static void end(Connection connection) {
+        ByteBuffer out = connection.out;
+        out.putInt(connection.frameStart, out.position() - connection.frameStart - BinaryProtocol.LENGTH_BYTES);
+        connection.unsentBytes = out.position();
+    }
+    
+    /**
+     * Count an answered request and have the I/O thread flush the connection
+     */
+    private void sent(Connection connection) {
+        connection.inFlight.decrementAndGet();
+        responses.incrementAndGet();
+        scheduleFlush(connection);
+    }
+    
+    private void scheduleFlush(Connection connection) {
+        if (connection.flushScheduled.compareAndSet(false, true)) {
+            dirty.add(connection);
+            selector.wakeup();
+        }
+    }
+    
+    /**
+     * Write out pending responses and resume reading once the backlog has drained and no
+     * LOGIN is pending (I/O thread)
+     */
+    private void flush(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        synchronized (connection) {
+            connection.out.flip();
+            try {
+                connection.channel.write(connection.out);
+            } catch (IOException e) {
+                connection.out.clear();
+                close(connection);
+                return;
+            }
+            connection.out.compact();
+            connection.unsentBytes = connection.out.position();
+            connection.writePending = connection.unsentBytes > 0;
+        }
+        if (connection.readPaused && !connection.loginPending &&
+                connection.inFlight.get() < maxInFlight / 2 && connection.unsentBytes <= WRITE_BUFFER_BYTES / 2) {
+            // Frames already buffered are dispatched before reading more
+            processFrames(connection);
+        } else {
+            updateInterest(connection);
+        }
+    }
+    
+    private void updateInterest(Connection connection) {
+        if (connection.key.isValid()) {
+            connection.key.interestOps((connection.readPaused ? 0 : SelectionKey.OP_READ) |
+                                       (connection.writePending ? SelectionKey.OP_WRITE : 0));
+        }
+    }
+    
+    private void close(Connection connection) {
+        synchronized (connection) {
+            if (connection.closed) {
+                return;
+            }
+            connection.closed = true;
+        }
+        closeQuietly(connection.key);
+        connections.decrementAndGet();
+    }
+    
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+    
+    /**
+     * Engine callback that answers once both the outcome and the commit sequence are known
+     * (the engine may finish the task before submitTransaction has returned its sequence)
+     */
+    private final class SubmitReply implements TransactionEngine.TransactionCallback {
+        private final Connection connection;
+        private final long correlationId;
+        private long sequence = -1;
+        private String failure;
+        private boolean done;
+        
+        SubmitReply(Connection connection, long correlationId) {
+            this.connection = connection;
+            this.correlationId = correlationId;
+        }
+        
+        synchronized void submitted(long sequence) {
+            this.sequence = sequence;
+            if (done) {
+                send();
+            }
+        }
+        
+        @Override
+        public synchronized void onSuccess(String message) {
+            done = true;
+            if (sequence >= 0) {
+                send();
+            }
+        }
+        
+        @Override
+        public synchronized void onFailure(String error) {
+            failure = error;
+            done = true;
+            if (sequence >= 0) {
+                send();
+            }
+        }
+        
+        private void send() {
+            respondSequence(connection, failure == null ? BinaryProtocol.OK : BinaryProtocol.FAILED,
+                            correlationId, sequence, failure);
+        }
+    }
+    
+    /**
+     * One client socket; out, frameStart and closed are guarded by the connection's lock
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        private ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final Set<String> ownedAccounts = ConcurrentHashMap.newKeySet();
+        private volatile User user;
+        // Set by the I/O thread when it hands a LOGIN to a worker, cleared once it is answered
+        private volatile boolean loginPending;
+        private SelectionKey key;
+        private int frameStart;
+        private boolean closed;
+        // Written under the lock, read by the I/O thread to pause reading
+        private volatile int unsentBytes;
+        // I/O thread only
+        private boolean readPaused;
+        private boolean writePending;
+        
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package threads;
+
+import db.DBConnection;
+import db.TransactionArchive;
+import exceptions.DatabaseConnectionException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that moves old transactions into read-only archive segments
+ * The horizon can be set with -Dbankbridge.archive.horizonDays (default 365)
+ * Each run archives on a writer connection of its own, closed afterwards, so its chunk
+ * transactions, ATTACH and VACUUM never mix with the engine's writes on the shared connection.
+ */
+public class ArchivalJob implements Runnable {
+    public static final String JOB_NAME = "archival";
+    private static final int DEFAULT_HORIZON_DAYS = 365;
+    
+    private int horizonDays;
+    
+    public ArchivalJob() {
+        this(Integer.getInteger("bankbridge.archive.horizonDays", DEFAULT_HORIZON_DAYS));
+    }
+    
+    public ArchivalJob(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+    
+    /**
+     * Archive now and then once a day, at the lowest priority
+     */
+    public void schedule() {
+        JobScheduler.getInstance().scheduleWithFixedDelay(JOB_NAME, this, 0, 24, TimeUnit.HOURS,
+                                                          0.1, Thread.MIN_PRIORITY);
+    }
+    
+    @Override
+    public void run() {
+        Connection connection = null;
+        try {
+            long start = System.currentTimeMillis();
+            connection = DBConnection.getInstance().openWriterConnection();
+            int archived = new TransactionArchive(connection).archiveOlderThan(horizonDays);
+            if (archived > 0) {
+                System.out.println("Archival job moved " + archived + " transactions older than " +
+                                   horizonDays + " days in " + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Archival failed: " + e.getMessage());
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    System.err.println("Error closing archival connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+}
\ No newline at end of file
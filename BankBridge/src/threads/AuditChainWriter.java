@@ -0,0 +1,83 @@
+package threads;
+
+import db.AuditChain;
+import exceptions.DatabaseConnectionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that appends committed transactions to the audit chain
+ * It wakes on each commit signal, lingers a few milliseconds so that a burst of
+ * commits is hashed and written as one batch (-Dbankbridge.auditChain.lingerMillis,
+ * default 20), and also polls every second for rows committed on other paths.
+ */
+public class AuditChainWriter implements Runnable {
+    private static final long POLL_MILLIS = 1000;
+    private static final long DEFAULT_LINGER_MILLIS = 20;
+    
+    private AuditChain chain;
+    private long lingerMillis;
+    private volatile boolean running;
+    private Thread writerThread;
+    
+    public AuditChainWriter() {
+        this.chain = AuditChain.getInstance();
+        this.lingerMillis = Math.max(0, Long.getLong("bankbridge.auditChain.lingerMillis", DEFAULT_LINGER_MILLIS));
+    }
+    
+    /**
+     * Start the writer thread
+     */
+    public void start() {
+        if (!running) {
+            running = true;
+            writerThread = new Thread(this, "AuditChainWriter");
+            writerThread.setDaemon(true);
+            writerThread.setPriority(Thread.NORM_PRIORITY - 1);
+            writerThread.start();
+        }
+    }
+    
+    /**
+     * Stop the writer thread after a final append
+     */
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+    }
+    
+    @Override
+    public void run() {
+        // Catch up on anything committed while the application was not running
+        append();
+        
+        while (running) {
+            try {
+                if (chain.awaitCommits(POLL_MILLIS, TimeUnit.MILLISECONDS) && lingerMillis > 0) {
+                    Thread.sleep(lingerMillis);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                Thread.currentThread().interrupt();
+            }
+            append();
+        }
+        
+        append();
+        chain.close();
+    }
+    
+    private void append() {
+        try {
+            int appended = chain.appendPending();
+            if (appended > 1000) {
+                System.out.println("Audit chain appended " + appended + " records");
+            }
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Audit chain append failed: " + e.getMessage());
+        }
+    }
+}
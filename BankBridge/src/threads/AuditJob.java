@@ -0,0 +1,291 @@
+package threads;
+
+import db.AccountDAO;
+import db.DBConnection;
+import db.StatisticsDAO;
+import db.TransactionDAO;
+import exceptions.DatabaseConnectionException;
+import model.Account;
+import model.Transaction;
+import model.Transfer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background audit job for monitoring and logging
+ * Runs on the JobScheduler under the name "audit" (see schedule()).
+ *
+ * The audit is incremental: it remembers the last transaction_id it has seen and
+ * applies only newer rows to its running totals. Changes that leave no transaction
+ * behind (deactivation, deletion, interest) are picked up by a full recompute, which
+ * runs every fullRecomputeEvery audits (-Dbankbridge.audit.fullRecomputeEvery,
+ * default 60) or on demand through requestFullRecompute().
+ */
+public class AuditJob implements Runnable {
+    public static final String JOB_NAME = "audit";
+    private static final double SUSPICIOUS_THRESHOLD = StatisticsDAO.LARGE_TRANSACTION_THRESHOLD;
+    private static final int RECENT_SHOWN = 5;
+    private static final int LARGE_KEPT = 20;
+    private static final int BATCH_SIZE = 500;
+    
+    private AccountDAO accountDAO;
+    private TransactionDAO transactionDAO;
+    private int fullRecomputeEvery; // in audits
+    
+    // Running totals, only touched by the running audit (the scheduler never overlaps runs)
+    private long lastTransactionId;
+    private long lastAccountCreatedAt;
+    private int auditsSinceFullRecompute;
+    private volatile boolean fullRecomputeRequested = true;
+    private volatile double totalBalance;
+    private volatile int totalAccounts;
+    private volatile int activeAccounts;
+    private volatile long transactionCount;
+    private final Deque<Transaction> recentTransactions = new ArrayDeque<>();
+    private final Deque<Transaction> largeTransactions = new ArrayDeque<>();
+    
+    public AuditJob() throws DatabaseConnectionException {
+        this.accountDAO = new AccountDAO();
+        this.transactionDAO = new TransactionDAO();
+        this.fullRecomputeEvery = Math.max(1, Integer.getInteger("bankbridge.audit.fullRecomputeEvery", 60));
+    }
+    
+    /**
+     * Audit now and then every interval, at a fixed rate with 10% jitter
+     */
+    public void schedule(int intervalSeconds) {
+        JobScheduler.getInstance().scheduleAtFixedRate(JOB_NAME, this, 0, intervalSeconds, TimeUnit.SECONDS,
+                                                       0.1, Thread.NORM_PRIORITY - 1);
+        System.out.println("Audit job scheduled every " + intervalSeconds + "s.");
+    }
+    
+    /**
+     * Stop the scheduled audits
+     */
+    public void cancel() {
+        JobScheduler.getInstance().cancel(JOB_NAME);
+        System.out.println("Audit job stopped.");
+    }
+    
+    @Override
+    public void run() {
+        performAudit();
+    }
+    
+    /**
+     * Perform audit operations
+     */
+    private void performAudit() {
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            String timestamp = LocalDateTime.now().format(formatter);
+            
+            List<Transaction> newLargeTransactions;
+            String mode;
+            if (fullRecomputeRequested || auditsSinceFullRecompute >= fullRecomputeEvery) {
+                newLargeTransactions = recomputeTotals();
+                mode = "full";
+            } else {
+                newLargeTransactions = applyNewActivity();
+                mode = "incremental";
+            }
+            
+            System.out.println("\n" + "=".repeat(60));
+            System.out.println("AUDIT REPORT - " + timestamp + " (" + mode + ")");
+            System.out.println("=".repeat(60));
+            
+            System.out.println("\nTotal Accounts: " + totalAccounts);
+            System.out.println("Active Accounts: " + activeAccounts);
+            System.out.println("Total System Balance: $" + String.format("%.2f", totalBalance));
+            
+            if (transactionCount > 0) {
+                System.out.println("\nTotal Transactions: " + transactionCount);
+                System.out.println("Recent Transactions (last " + RECENT_SHOWN + "):");
+                for (Transaction t : recentTransactions) {
+                    System.out.println("  - " + t.getDisplayInfo());
+                }
+            } else {
+                System.out.println("\nNo transactions recorded.");
+            }
+            
+            // Check for suspicious activity (large transactions)
+            checkSuspiciousActivity(newLargeTransactions);
+            
+            System.out.println("=".repeat(60) + "\n");
+        
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Audit failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Rebuild every running total from the database
+     * @return the large transactions now on record
+     */
+    private List<Transaction> recomputeTotals() throws DatabaseConnectionException {
+        // The high-water mark and the totals must come from the same snapshot: a row committed
+        // between the two reads would be counted in the totals and then applied again by the
+        // next incremental audit. Both are read in one read transaction on this thread's reader.
+        // The engine still commits a balance update and its ledger row separately, so a
+        // snapshot taken between the two can show the new balance without the row; the next
+        // incremental audit then applies that row's amount once more until the next recompute.
+        long highWaterMark;
+        StatisticsDAO.Summary summary;
+        try {
+            Connection reader = DBConnection.getInstance().getReaderConnection();
+            reader.setAutoCommit(false);
+            try {
+                highWaterMark = new TransactionDAO(reader).getMaxTransactionId();
+                // Totals are aggregated in SQL; no account rows are loaded
+                summary = new StatisticsDAO(reader).getSummary();
+            } finally {
+                reader.commit();
+                reader.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read audit totals: " + e.getMessage(), e);
+        }
+        
+        totalAccounts = (int) summary.getAccountCount();
+        activeAccounts = (int) summary.getActiveAccountCount();
+        totalBalance = summary.getActiveBalance();
+        transactionCount = summary.getTransactionCount();
+        lastTransactionId = highWaterMark;
+        lastAccountCreatedAt = summary.getNewestAccountCreatedAt();
+        
+        recentTransactions.clear();
+        recentTransactions.addAll(transactionDAO.findRecent(RECENT_SHOWN));
+        largeTransactions.clear();
+        largeTransactions.addAll(transactionDAO.findLargeTransactions(SUSPICIOUS_THRESHOLD, LARGE_KEPT));
+        
+        auditsSinceFullRecompute = 0;
+        fullRecomputeRequested = false;
+        return new ArrayList<>(largeTransactions);
+    }
+    
+    /**
+     * Fold transactions and accounts created since the last audit into the running totals
+     * @return large transactions seen in this audit
+     */
+    private List<Transaction> applyNewActivity() throws DatabaseConnectionException {
+        List<Transaction> newLargeTransactions = new ArrayList<>();
+        List<Transaction> batch;
+        List<Transaction> newTransactions = new ArrayList<>();
+        do {
+            batch = transactionDAO.findAfterId(lastTransactionId, BATCH_SIZE);
+            newTransactions.addAll(batch);
+            if (!batch.isEmpty()) {
+                lastTransactionId = batch.get(batch.size() - 1).getTransactionId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        
+        // New accounts are read after their transactions, so their balance already includes them
+        Set<String> newAccounts = new HashSet<>();
+        for (Account account : accountDAO.findCreatedAfter(lastAccountCreatedAt)) {
+            newAccounts.add(account.getAccountNumber());
+            totalAccounts++;
+            if (account.isActive()) {
+                activeAccounts++;
+                totalBalance += account.getBalance();
+            }
+            lastAccountCreatedAt = Math.max(lastAccountCreatedAt, account.getCreatedAtMicros());
+        }
+        
+        for (Transaction t : newTransactions) {
+            transactionCount++;
+            applyBalanceChange(t, newAccounts);
+            
+            recentTransactions.addFirst(t);
+            if (recentTransactions.size() > RECENT_SHOWN) {
+                recentTransactions.removeLast();
+            }
+            if (t.getAmount() > SUSPICIOUS_THRESHOLD) {
+                newLargeTransactions.add(t);
+                largeTransactions.addFirst(t);
+                if (largeTransactions.size() > LARGE_KEPT) {
+                    largeTransactions.removeLast();
+                }
+            }
+        }
+        
+        auditsSinceFullRecompute++;
+        return newLargeTransactions;
+    }
+    
+    /**
+     * Apply the balance legs of one transaction to the system balance
+     * Transfers move money between two accounts, so they only change the total
+     * when one side is an account whose balance was counted separately.
+     */
+    private void applyBalanceChange(Transaction t, Set<String> newAccounts) {
+        switch (t.getTransactionType()) {
+            case "DEPOSIT":
+                applyLeg(t.getAccountNumber(), t.getAmount(), newAccounts);
+                break;
+            case "WITHDRAW":
+                applyLeg(t.getAccountNumber(), -t.getAmount(), newAccounts);
+                break;
+            case "TRANSFER":
+                applyLeg(t.getAccountNumber(), -t.getAmount(), newAccounts);
+                if (t instanceof Transfer) {
+                    applyLeg(((Transfer) t).getToAccountNumber(), t.getAmount(), newAccounts);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void applyLeg(String accountNumber, double delta, Set<String> newAccounts) {
+        if (!newAccounts.contains(accountNumber)) {
+            totalBalance += delta;
+        }
+    }
+    
+    /**
+     * Check for suspicious transactions
+     */
+    private void checkSuspiciousActivity(List<Transaction> transactions) {
+        System.out.println("\nSecurity Check:");
+        
+        if (!transactions.isEmpty()) {
+            System.out.println("  ⚠️  Large transactions detected:");
+            for (Transaction t : transactions) {
+                System.out.println("    - " + t.getTransactionType() + ": $" + 
+                                 String.format("%.2f", t.getAmount()) + 
+                                 " (Account: " + t.getAccountNumber() + ")");
+            }
+        } else {
+            System.out.println("  ✓ No suspicious activity detected.");
+        }
+    }
+    
+    /**
+     * Rebuild the running totals from scratch at the next audit
+     */
+    public void requestFullRecompute() {
+        fullRecomputeRequested = true;
+        JobScheduler.getInstance().runNow(JOB_NAME);
+    }
+    
+    public double getTotalBalance() {
+        return totalBalance;
+    }
+    
+    public int getActiveAccounts() {
+        return activeAccounts;
+    }
+    
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+}
\ No newline at end of file
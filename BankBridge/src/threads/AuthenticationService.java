@@ -0,0 +1,169 @@
+package threads;
+
+import db.SecurityUtil;
+import db.UserDAO;
+import exceptions.DatabaseConnectionException;
+import model.User;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs password verification and registration off the Swing EDT
+ * Work is spread over a fixed pool of daemon verifier threads (one per core by
+ * default, -Dbankbridge.auth.threads to override), so password hashing never
+ * freezes the UI and concurrent logins scale with the available cores.
+ * The queue is bounded (-Dbankbridge.auth.queueCapacity, default 256); when it is
+ * full new attempts fail fast instead of piling up behind expensive hashes.
+ */
+public class AuthenticationService {
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+    
+    private static AuthenticationService instance;
+    
+    private final ThreadPoolExecutor verifierPool;
+    private final UserDAO userDAO;
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    
+    private AuthenticationService(int threads, int queueCapacity) throws DatabaseConnectionException {
+        this.userDAO = new UserDAO();
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.verifierPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "AuthVerifier-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    /**
+     * Get the shared service instance
+     */
+    public static synchronized AuthenticationService getInstance() throws DatabaseConnectionException {
+        if (instance == null) {
+            int threads = Integer.getInteger("bankbridge.auth.threads", Runtime.getRuntime().availableProcessors());
+            int queueCapacity = Integer.getInteger("bankbridge.auth.queueCapacity", DEFAULT_QUEUE_CAPACITY);
+            instance = new AuthenticationService(Math.max(1, threads), Math.max(1, queueCapacity));
+        }
+        return instance;
+    }
+    
+    /**
+     * Verify credentials on the verifier pool
+     * @return future completing with the user, or null for an invalid username/password
+     */
+    public CompletableFuture<User> authenticate(String username, String password) {
+        return submit(() -> {
+            try {
+                return userDAO.authenticate(username, password);
+            } catch (DatabaseConnectionException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+    
+    /**
+     * Check the username, hash the password and create the user on the verifier pool
+     * @return future completing with true when created, or false if the username is taken
+     */
+    public CompletableFuture<Boolean> register(String username, String password, String fullName, String email) {
+        return submit(() -> {
+            try {
+                if (userDAO.findByUsername(username) != null) {
+                    return false;
+                }
+                String passwordHash = SecurityUtil.hashPassword(password);
+                if (!userDAO.create(new User(username, passwordHash, fullName, email))) {
+                    throw new DatabaseConnectionException("Registration failed. Please try again.");
+                }
+                return true;
+            } catch (DatabaseConnectionException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+    
+    /**
+     * Unwrap the exception a future failed with, for display
+     */
+    public static String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+    
+    public void shutdown() {
+        verifierPool.shutdown();
+    }
+    
+    public int getQueueDepth() {
+        return verifierPool.getQueue().size();
+    }
+    
+    public int getActiveCount() {
+        return verifierPool.getActiveCount();
+    }
+    
+    public long getCompletedCount() {
+        return completed.get();
+    }
+    
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+    
+    /**
+     * Average time a request waited in the queue, in milliseconds
+     */
+    public double getAverageQueueMillis() {
+        long count = completed.get();
+        return count == 0 ? 0.0 : totalQueueNanos.get() / 1_000_000.0 / count;
+    }
+    
+    public String getStats() {
+        long count = completed.get();
+        double averageRunMillis = count == 0 ? 0.0 : totalRunNanos.get() / 1_000_000.0 / count;
+        return String.format("%d threads, queue %d/%d, %d active, %d done, %d rejected, " +
+                             "wait avg %.1f ms (max %.1f), verify avg %.1f ms",
+                             verifierPool.getMaximumPoolSize(), getQueueDepth(),
+                             getQueueDepth() + verifierPool.getQueue().remainingCapacity(),
+                             getActiveCount(), count, rejected.get(), getAverageQueueMillis(),
+                             maxQueueNanos.get() / 1_000_000.0, averageRunMillis);
+    }
+    
+    /**
+     * Queue work on the verifier pool, recording queue wait and run time
+     * A full queue completes the future exceptionally right away.
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                totalQueueNanos.addAndGet(startedAt - queuedAt);
+                maxQueueNanos.accumulateAndGet(startedAt - queuedAt, Math::max);
+                try {
+                    return work.get();
+                } finally {
+                    totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                    completed.incrementAndGet();
+                }
+            }, verifierPool);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            CompletableFuture<T> busy = new CompletableFuture<>();
+            busy.completeExceptionally(new RejectedExecutionException("Too many sign-in attempts in progress. Please try again."));
+            return busy;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package threads;
+
+import model.Account;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process publish/subscribe for committed account balances
+ * The transaction engine publishes the new balance of every account a committed
+ * transaction touched; views subscribe for one user's accounts instead of re-querying.
+ * Listeners run on the publishing thread and must only hand the update off.
+ */
+public class BalanceEventBus {
+    private static BalanceEventBus instance;
+    
+    private final Map<Integer, List<BalanceListener>> listenersByUser = new ConcurrentHashMap<>();
+    private final AtomicLong published = new AtomicLong();
+    
+    private BalanceEventBus() {
+    }
+    
+    /**
+     * Get the shared bus
+     */
+    public static synchronized BalanceEventBus getInstance() {
+        if (instance == null) {
+            instance = new BalanceEventBus();
+        }
+        return instance;
+    }
+    
+    /**
+     * Receive balance changes for all accounts of a user
+     */
+    public void subscribe(int userId, BalanceListener listener) {
+        listenersByUser.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+    
+    public void unsubscribe(int userId, BalanceListener listener) {
+        listenersByUser.computeIfPresent(userId, (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+    
+    /**
+     * Publish an account's balance after a commit (or after it was opened)
+     */
+    public void publish(Account account) {
+        published.incrementAndGet();
+        List<BalanceListener> listeners = listenersByUser.get(account.getUserId());
+        if (listeners == null) {
+            return;
+        }
+        for (BalanceListener listener : listeners) {
+            try {
+                listener.onBalanceChanged(account.getAccountNumber(), account.getBalance());
+            } catch (RuntimeException e) {
+                System.err.println("Balance listener failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    public String getStats() {
+        int subscribers = 0;
+        for (List<BalanceListener> listeners : listenersByUser.values()) {
+            subscribers += listeners.size();
+        }
+        return String.format("%d balance updates published, %d subscribers", published.get(), subscribers);
+    }
+    
+    /**
+     * Notified on the publishing thread with an account's committed balance
+     */
+    public interface BalanceListener {
+        void onBalanceChanged(String accountNumber, double balance);
+    }
+}
@@ -0,0 +1,69 @@
+package threads;
+
+import db.ChangeFeed;
+import exceptions.DatabaseConnectionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that publishes committed transactions to the change feed
+ * It wakes on each commit signal and also polls every second for rows committed on
+ * other paths (batch tools, other processes).
+ */
+public class ChangeFeedDispatcher implements Runnable {
+    private static final long POLL_MILLIS = 1000;
+    
+    private ChangeFeed feed;
+    private volatile boolean running;
+    private Thread dispatcherThread;
+    
+    public ChangeFeedDispatcher() {
+        this.feed = ChangeFeed.getInstance();
+    }
+    
+    /**
+     * Start the dispatcher thread
+     */
+    public void start() {
+        if (!running) {
+            running = true;
+            dispatcherThread = new Thread(this, "ChangeFeedDispatcher");
+            dispatcherThread.setDaemon(true);
+            dispatcherThread.start();
+        }
+    }
+    
+    /**
+     * Stop the dispatcher thread and close all subscriptions
+     */
+    public void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                feed.awaitCommits(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                Thread.currentThread().interrupt();
+            }
+            dispatch();
+        }
+        
+        feed.close();
+    }
+    
+    private void dispatch() {
+        try {
+            feed.dispatchPending();
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Change feed dispatch failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package threads;
+
+import db.DBConnection;
+import exceptions.DatabaseConnectionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that checkpoints the write-ahead log and refreshes planner statistics
+ * Checkpointing copies committed WAL pages back into the database file, so the log does
+ * not keep growing between restarts. The interval can be set with -Dbankbridge.checkpoint.intervalMinutes (default 5)
+ */
+public class CheckpointJob implements Runnable {
+    public static final String JOB_NAME = "checkpoint";
+    private static final int DEFAULT_INTERVAL_MINUTES = 5;
+    
+    private int intervalMinutes;
+    
+    public CheckpointJob() {
+        this.intervalMinutes = Math.max(1, Integer.getInteger("bankbridge.checkpoint.intervalMinutes",
+                                                              DEFAULT_INTERVAL_MINUTES));
+    }
+    
+    /**
+     * Checkpoint every interval, waiting a full interval after each run
+     */
+    public void schedule() {
+        JobScheduler.getInstance().scheduleWithFixedDelay(JOB_NAME, this, intervalMinutes, intervalMinutes,
+                                                          TimeUnit.MINUTES, 0.2, Thread.MIN_PRIORITY);
+    }
+    
+    @Override
+    public void run() {
+        try {
+            String result = DBConnection.getInstance().checkpoint();
+            System.out.println("Checkpoint: " + result);
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+    
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+}
\ No newline at end of file
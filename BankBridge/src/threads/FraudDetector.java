@@ -0,0 +1,289 @@
+package threads;
+
+import model.Transaction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Real-time fraud detection on committed engine transactions
+ * Every account gets three sliding windows (1 minute, 1 hour, 24 hours) holding the
+ * count and sum of its transactions. Windows are rings of fixed time buckets in
+ * primitive arrays, so memory per account is constant and each event costs O(1).
+ * Rules are checked on every event; they can be replaced with -Dbankbridge.fraud.rules,
+ * e.g. "velocity=1m:count>5,burst=1h:sum>20000,single=amount>10000".
+ */
+public class FraudDetector implements TransactionEngine.TransactionListener {
+    public static final int ONE_MINUTE = 0;
+    public static final int ONE_HOUR = 1;
+    public static final int ONE_DAY = 2;
+    
+    private static final String DEFAULT_RULES =
+        "single-large=amount>10000,velocity-1m=1m:count>5,burst-1h=1h:sum>20000,daily-volume=24h:sum>50000";
+    private static final int ALERTS_KEPT = 50;
+    private static final long IDLE_SWEEP_EVENTS = 10_000;
+    
+    private static FraudDetector instance;
+    
+    private final List<Rule> rules;
+    private final Map<String, AccountWindows> windows = new HashMap<>();
+    private final Deque<String> recentAlerts = new ArrayDeque<>();
+    private long eventsProcessed;
+    private long alertsRaised;
+    private long totalNanos;
+    
+    public FraudDetector(List<Rule> rules) {
+        this.rules = new ArrayList<>(rules);
+    }
+    
+    /**
+     * Get the shared detector, configured from system properties
+     */
+    public static synchronized FraudDetector getInstance() {
+        if (instance == null) {
+            instance = new FraudDetector(Rule.parseAll(System.getProperty("bankbridge.fraud.rules", DEFAULT_RULES)));
+        }
+        return instance;
+    }
+    
+    @Override
+    public void onCommitted(Transaction transaction) {
+        for (String alert : evaluate(transaction.getAccountNumber(), transaction.getAmount(),
+                                     transaction.getTimestampMicros() / 1000)) {
+            System.out.println("⚠️  FRAUD ALERT: " + alert + " (" + transaction.getDisplayInfo() + ")");
+        }
+    }
+    
+    /**
+     * Record one transaction and check every rule against the account's windows
+     * @return descriptions of the rules that fired (empty if none)
+     */
+    public synchronized List<String> evaluate(String accountNumber, double amount, long timeMillis) {
+        long start = System.nanoTime();
+        
+        AccountWindows account = windows.get(accountNumber);
+        if (account == null) {
+            account = new AccountWindows();
+            windows.put(accountNumber, account);
+        }
+        account.add(timeMillis, amount);
+        
+        List<String> fired = null;
+        for (Rule rule : rules) {
+            double value = rule.window < 0 ? amount : account.value(rule.window, rule.sum);
+            if (value > rule.threshold) {
+                if (fired == null) {
+                    fired = new ArrayList<>(2);
+                }
+                String format = rule.window >= 0 && !rule.sum ? "%s on %s (%s %.0f > %.0f)" : "%s on %s (%s %.2f > %.2f)";
+                String alert = String.format(format, rule.name, accountNumber, rule.describeMetric(), value, rule.threshold);
+                fired.add(alert);
+                recentAlerts.addFirst(alert);
+                if (recentAlerts.size() > ALERTS_KEPT) {
+                    recentAlerts.removeLast();
+                }
+                alertsRaised++;
+            }
+        }
+        
+        if (++eventsProcessed % IDLE_SWEEP_EVENTS == 0) {
+            dropIdleAccounts(timeMillis);
+        }
+        totalNanos += System.nanoTime() - start;
+        return fired == null ? List.of() : fired;
+    }
+    
+    public synchronized List<String> getRecentAlerts() {
+        return new ArrayList<>(recentAlerts);
+    }
+    
+    public synchronized int getTrackedAccounts() {
+        return windows.size();
+    }
+    
+    public synchronized String getStats() {
+        double averageNanos = eventsProcessed == 0 ? 0.0 : (double) totalNanos / eventsProcessed;
+        return String.format("%d events, %d alerts, %d accounts tracked, %.0f ns/event",
+                             eventsProcessed, alertsRaised, windows.size(), averageNanos);
+    }
+    
+    /**
+     * Forget accounts with nothing left in their 24 hour window
+     */
+    private void dropIdleAccounts(long nowMillis) {
+        Iterator<AccountWindows> it = windows.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isIdle(nowMillis)) {
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * The three sliding windows of one account
+     */
+    private static class AccountWindows {
+        private final SlidingWindow[] windows = {
+            new SlidingWindow(5_000L, 12),       // 1 minute in 5 second buckets
+            new SlidingWindow(60_000L, 60),      // 1 hour in 1 minute buckets
+            new SlidingWindow(3_600_000L, 24)    // 24 hours in 1 hour buckets
+        };
+        
+        void add(long timeMillis, double amount) {
+            for (SlidingWindow window : windows) {
+                window.add(timeMillis, amount);
+            }
+        }
+        
+        double value(int window, boolean sum) {
+            return sum ? windows[window].getSum() : windows[window].getCount();
+        }
+        
+        boolean isIdle(long nowMillis) {
+            SlidingWindow day = windows[ONE_DAY];
+            day.advance(nowMillis);
+            return day.getCount() == 0;
+        }
+    }
+    
+    /**
+     * Count and sum over a trailing time window, kept as a ring of fixed-width buckets
+     * Precision is one bucket: an event leaves the window when its whole bucket does.
+     */
+    static class SlidingWindow {
+        private final long bucketMillis;
+        private final int[] counts;
+        private final double[] sums;
+        private long lastBucket = Long.MIN_VALUE;
+        private int count;
+        private double sum;
+        
+        SlidingWindow(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.counts = new int[buckets];
+            this.sums = new double[buckets];
+        }
+        
+        void add(long timeMillis, double amount) {
+            long bucket = advance(timeMillis);
+            int slot = (int) Math.floorMod(bucket, (long) counts.length);
+            counts[slot]++;
+            sums[slot] += amount;
+            count++;
+            sum += amount;
+        }
+        
+        /**
+         * Move the window forward to a time, expiring buckets that fell out of it
+         * Late events (clock going backwards) land in the current bucket.
+         */
+        long advance(long timeMillis) {
+            long bucket = Math.floorDiv(timeMillis, bucketMillis);
+            if (bucket <= lastBucket) {
+                return lastBucket;
+            }
+            long steps = lastBucket == Long.MIN_VALUE ? counts.length : Math.min(bucket - lastBucket, counts.length);
+            for (long b = bucket - steps + 1; b <= bucket; b++) {
+                int slot = (int) Math.floorMod(b, (long) counts.length);
+                count -= counts[slot];
+                sum -= sums[slot];
+                counts[slot] = 0;
+                sums[slot] = 0.0;
+            }
+            if (count == 0) {
+                sum = 0.0; // drop accumulated floating point error
+            }
+            lastBucket = bucket;
+            return bucket;
+        }
+        
+        int getCount() {
+            return count;
+        }
+        
+        double getSum() {
+            return sum;
+        }
+    }
+    
+    /**
+     * A threshold on the transaction amount or on one window's count or sum
+     */
+    public static class Rule {
+        private final String name;
+        private final int window; // -1 for the single transaction amount
+        private final boolean sum;
+        private final double threshold;
+        
+        public Rule(String name, int window, boolean sum, double threshold) {
+            this.name = name;
+            this.window = window;
+            this.sum = sum;
+            this.threshold = threshold;
+        }
+        
+        /**
+         * Parse "name=amount>N" or "name=<1m|1h|24h>:<count|sum>>N", comma separated
+         */
+        public static List<Rule> parseAll(String spec) {
+            List<Rule> rules = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                String trimmed = part.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                try {
+                    rules.add(parse(trimmed));
+                } catch (RuntimeException e) {
+                    System.err.println("Ignoring fraud rule '" + trimmed + "': " + e.getMessage());
+                }
+            }
+            return rules;
+        }
+        
+        private static Rule parse(String spec) {
+            int eq = spec.indexOf('=');
+            int gt = spec.lastIndexOf('>');
+            if (eq <= 0 || gt < eq) {
+                throw new IllegalArgumentException("expected name=metric>threshold");
+            }
+            String name = spec.substring(0, eq);
+            String metric = spec.substring(eq + 1, gt);
+            double threshold = Double.parseDouble(spec.substring(gt + 1));
+            
+            if (metric.equals("amount")) {
+                return new Rule(name, -1, true, threshold);
+            }
+            String[] parts = metric.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("expected window:count or window:sum");
+            }
+            int window;
+            switch (parts[0]) {
+                case "1m": window = ONE_MINUTE; break;
+                case "1h": window = ONE_HOUR; break;
+                case "24h": window = ONE_DAY; break;
+                default: throw new IllegalArgumentException("unknown window " + parts[0]);
+            }
+            if (!parts[1].equals("count") && !parts[1].equals("sum")) {
+                throw new IllegalArgumentException("unknown metric " + parts[1]);
+            }
+            return new Rule(name, window, parts[1].equals("sum"), threshold);
+        }
+        
+        String describeMetric() {
+            if (window < 0) {
+                return "amount";
+            }
+            return new String[] {"1m", "1h", "24h"}[window] + (sum ? " sum" : " count");
+        }
+        
+        public String getName() {
+            return name;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,325 @@
+package threads;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs named background jobs (audit, checkpointing, archival, ...) on a small shared pool
+ *
+ * Fixed-rate jobs keep their cadence no matter how long a run takes; fixed-delay jobs
+ * wait a full period after each run ends. A random jitter of up to a fraction of the
+ * period spreads jobs out so they do not all hit the database at once. A trigger that
+ * fires while the same job is still running is skipped rather than queued.
+ *
+ * The pool is kept small (-Dbankbridge.scheduler.threads, default 2) and its threads
+ * run below normal priority, so maintenance work cannot crowd out the transaction
+ * engine or the Swing EDT. Each job records run time and lag (how late it started).
+ */
+public class JobScheduler {
+    private static final int DEFAULT_THREADS = 2;
+    
+    public enum Mode {
+        FIXED_RATE,
+        FIXED_DELAY
+    }
+    
+    private static JobScheduler instance;
+    
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    
+    private JobScheduler(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "JobScheduler-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+    
+    /**
+     * Get the shared scheduler instance
+     */
+    public static synchronized JobScheduler getInstance() {
+        if (instance == null) {
+            int threads = Integer.getInteger("bankbridge.scheduler.threads", DEFAULT_THREADS);
+            instance = new JobScheduler(Math.max(1, threads));
+        }
+        return instance;
+    }
+    
+    /**
+     * Run a job every period, measured from the previous scheduled start
+     * @param jitter fraction of the period (0 to 1) to delay each run by at random
+     * @param priority thread priority while the job runs, capped at Thread.NORM_PRIORITY
+     */
+    public Job scheduleAtFixedRate(String name, Runnable task, long initialDelay, long period,
+                                   TimeUnit unit, double jitter, int priority) {
+        return schedule(new Job(name, task, Mode.FIXED_RATE, unit.toNanos(period), jitter, priority),
+                        unit.toNanos(initialDelay));
+    }
+    
+    /**
+     * Run a job repeatedly, waiting a period after each run finishes
+     * @param jitter fraction of the period (0 to 1) to delay each run by at random
+     * @param priority thread priority while the job runs, capped at Thread.NORM_PRIORITY
+     */
+    public Job scheduleWithFixedDelay(String name, Runnable task, long initialDelay, long delay,
+                                      TimeUnit unit, double jitter, int priority) {
+        return schedule(new Job(name, task, Mode.FIXED_DELAY, unit.toNanos(delay), jitter, priority),
+                        unit.toNanos(initialDelay));
+    }
+    
+    /**
+     * Run a job once right away, outside its schedule (skipped if it is already running)
+     * @return false if no job with that name is scheduled
+     */
+    public boolean runNow(String name) {
+        Job job;
+        synchronized (this) {
+            job = jobs.get(name);
+        }
+        if (job == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        executor.execute(() -> job.fire(now, false));
+        return true;
+    }
+    
+    /**
+     * Stop a job; a run already in progress is allowed to finish
+     */
+    public synchronized void cancel(String name) {
+        Job job = jobs.remove(name);
+        if (job != null) {
+            job.cancel();
+        }
+    }
+    
+    public synchronized List<Job> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+    
+    /**
+     * One line of metrics per job
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        for (Job job : getJobs()) {
+            stats.append(job.getStats()).append("\n");
+        }
+        return stats.toString();
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private synchronized Job schedule(Job job, long initialDelayNanos) {
+        // A job scheduled again under the same name replaces the old one
+        Job previous = jobs.put(job.name, job);
+        if (previous != null) {
+            previous.cancel();
+        }
+        job.scheduleAt(System.nanoTime() + initialDelayNanos);
+        return job;
+    }
+    
+    /**
+     * A scheduled job and its run metrics
+     */
+    public class Job {
+        private final String name;
+        private final Runnable task;
+        private final Mode mode;
+        private final long periodNanos;
+        private final double jitter;
+        private final int priority;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> next;
+        
+        private long runs;
+        private long skipped;
+        private long failures;
+        private long totalRunNanos;
+        private long maxRunNanos;
+        private long totalLagNanos;
+        private long maxLagNanos;
+        private long lastFinishedAt; // epoch millis
+        
+        private Job(String name, Runnable task, Mode mode, long periodNanos, double jitter, int priority) {
+            if (periodNanos <= 0) {
+                throw new IllegalArgumentException("Job period must be positive: " + name);
+            }
+            this.name = name;
+            this.task = task;
+            this.mode = mode;
+            this.periodNanos = periodNanos;
+            this.jitter = Math.max(0.0, Math.min(1.0, jitter));
+            this.priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.NORM_PRIORITY, priority));
+        }
+        
+        /**
+         * Queue the next periodic run for a nominal time, plus jitter
+         */
+        private synchronized void scheduleAt(long nominalNanos) {
+            if (cancelled) {
+                return;
+            }
+            long jitterNanos = jitter > 0 ? (long) (ThreadLocalRandom.current().nextDouble(jitter) * periodNanos) : 0;
+            long fireAt = nominalNanos + jitterNanos;
+            next = executor.schedule(() -> fire(nominalNanos, fireAt, true),
+                                     Math.max(0, fireAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        
+        private void fire(long scheduledAt, boolean periodic) {
+            fire(scheduledAt, scheduledAt, periodic);
+        }
+        
+        private void fire(long nominalAt, long scheduledAt, boolean periodic) {
+            if (cancelled) {
+                return;
+            }
+            if (periodic && mode == Mode.FIXED_RATE) {
+                // Queue the next run before this one starts, so run time does not cause drift
+                scheduleAt(nextNominal(nominalAt));
+            }
+            if (!running.compareAndSet(false, true)) {
+                synchronized (this) {
+                    skipped++;
+                }
+                return;
+            }
+            
+            Thread current = Thread.currentThread();
+            int previousPriority = current.getPriority();
+            long startedAt = System.nanoTime();
+            boolean failed = false;
+            try {
+                current.setPriority(priority);
+                task.run();
+            } catch (RuntimeException e) {
+                failed = true;
+                System.err.println("Job '" + name + "' failed: " + e.getMessage());
+            } finally {
+                current.setPriority(previousPriority);
+                record(startedAt - scheduledAt, System.nanoTime() - startedAt, failed);
+                running.set(false);
+            }
+            
+            if (periodic && mode == Mode.FIXED_DELAY) {
+                scheduleAt(System.nanoTime() + periodNanos);
+            }
+        }
+        
+        /**
+         * Next nominal start one period on; periods that have already passed
+         * (e.g. the machine was asleep) are skipped instead of run back to back
+         */
+        private synchronized long nextNominal(long nominalAt) {
+            long next = nominalAt + periodNanos;
+            long now = System.nanoTime();
+            if (next < now) {
+                long missed = (now - next) / periodNanos + 1;
+                skipped += missed;
+                next += missed * periodNanos;
+            }
+            return next;
+        }
+        
+        private synchronized void record(long lagNanos, long runNanos, boolean failed) {
+            runs++;
+            if (failed) {
+                failures++;
+            }
+            lagNanos = Math.max(0, lagNanos);
+            totalLagNanos += lagNanos;
+            maxLagNanos = Math.max(maxLagNanos, lagNanos);
+            totalRunNanos += runNanos;
+            maxRunNanos = Math.max(maxRunNanos, runNanos);
+            lastFinishedAt = System.currentTimeMillis();
+        }
+        
+        private synchronized void cancel() {
+            cancelled = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public boolean isRunning() {
+            return running.get();
+        }
+        
+        public synchronized long getRuns() {
+            return runs;
+        }
+        
+        public synchronized long getSkipped() {
+            return skipped;
+        }
+        
+        public synchronized long getFailures() {
+            return failures;
+        }
+        
+        /**
+         * Average run time in milliseconds
+         */
+        public synchronized double getAverageRunMillis() {
+            return runs == 0 ? 0.0 : totalRunNanos / 1_000_000.0 / runs;
+        }
+        
+        /**
+         * Average delay between the scheduled and the actual start, in milliseconds
+         */
+        public synchronized double getAverageLagMillis() {
+            return runs == 0 ? 0.0 : totalLagNanos / 1_000_000.0 / runs;
+        }
+        
+        /**
+         * Epoch millis of the last completed run, 0 if it has not run yet
+         */
+        public synchronized long getLastFinishedAt() {
+            return lastFinishedAt;
+        }
+        
+        public synchronized String getStats() {
+            return String.format("%-14s every %s %s, %d runs, %d skipped, %d failed, " +
+                                 "run avg %.1f ms (max %.1f), lag avg %.1f ms (max %.1f)%s",
+                                 name + ":", formatPeriod(periodNanos),
+                                 mode == Mode.FIXED_RATE ? "(rate)" : "(delay)",
+                                 runs, skipped, failures,
+                                 getAverageRunMillis(), maxRunNanos / 1_000_000.0,
+                                 getAverageLagMillis(), maxLagNanos / 1_000_000.0,
+                                 running.get() ? ", running" : "");
+        }
+        
+        private String formatPeriod(long nanos) {
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+            if (seconds >= 3600 && seconds % 3600 == 0) {
+                return (seconds / 3600) + "h";
+            }
+            if (seconds >= 60 && seconds % 60 == 0) {
+                return (seconds / 60) + "m";
+            }
+            return seconds > 0 ? seconds + "s" : TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package threads;
+
+import db.LedgerReconciler;
+import exceptions.DatabaseConnectionException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that checks account balances against the transaction history
+ * Tunable with -Dbankbridge.reconcile.intervalHours (default 24),
+ * -Dbankbridge.reconcile.partitionSize (accounts per range, default 500) and
+ * -Dbankbridge.reconcile.threads (default: number of processors).
+ */
+public class ReconciliationJob implements Runnable {
+    public static final String JOB_NAME = "reconcile";
+    private static final int DEFAULT_INTERVAL_HOURS = 24;
+    private static final int DEFAULT_PARTITION_SIZE = 500;
+    private static final int MISMATCHES_PRINTED = 20;
+    
+    private static volatile LedgerReconciler.Report lastReport;
+    
+    private LedgerReconciler reconciler;
+    private int intervalHours;
+    
+    public ReconciliationJob() {
+        this.intervalHours = Math.max(1, Integer.getInteger("bankbridge.reconcile.intervalHours",
+                                                            DEFAULT_INTERVAL_HOURS));
+        this.reconciler = new LedgerReconciler(
+            Integer.getInteger("bankbridge.reconcile.partitionSize", DEFAULT_PARTITION_SIZE),
+            Integer.getInteger("bankbridge.reconcile.threads", Runtime.getRuntime().availableProcessors()));
+    }
+    
+    /**
+     * Reconcile an hour after startup and then every interval, at the lowest priority
+     */
+    public void schedule() {
+        JobScheduler.getInstance().scheduleWithFixedDelay(JOB_NAME, this, 60, intervalHours * 60L,
+                                                          TimeUnit.MINUTES, 0.1, Thread.MIN_PRIORITY);
+    }
+    
+    @Override
+    public void run() {
+        try {
+            LedgerReconciler.Report report = reconciler.reconcile();
+            lastReport = report;
+            System.out.println("Reconciliation: " + report);
+            
+            List<LedgerReconciler.Mismatch> mismatches = report.getMismatches();
+            for (LedgerReconciler.Mismatch mismatch : mismatches.subList(0, Math.min(MISMATCHES_PRINTED,
+                                                                                      mismatches.size()))) {
+                System.err.println("  ⚠️  Ledger mismatch " + mismatch);
+            }
+            if (mismatches.size() > MISMATCHES_PRINTED) {
+                System.err.println("  ... and " + (mismatches.size() - MISMATCHES_PRINTED) + " more");
+            }
+        } catch (DatabaseConnectionException e) {
+            System.err.println("Reconciliation failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Result of the most recent reconciliation, or null if none has finished yet
+     */
+    public static LedgerReconciler.Report getLastReport() {
+        return lastReport;
+    }
+    
+    public int getIntervalHours() {
+        return intervalHours;
+    }
+}
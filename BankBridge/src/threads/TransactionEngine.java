@@ -1,18 +1,24 @@
 package threads;
 
 import db.AccountDAO;
+import db.CommitBarrier;
 import db.TransactionDAO;
 import exceptions.DatabaseConnectionException;
 import model.*;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Transaction processing engine using multithreading
  * Implements Runnable for asynchronous transaction processing
+ * Every submitted task gets a sequence number from the CommitBarrier, marked finished
+ * once the task is processed, so the submitter can read its own write later.
  */
 public class TransactionEngine implements Runnable {
     private BlockingQueue<TransactionTask> transactionQueue;
+    private List<TransactionListener> listeners;
     private AccountDAO accountDAO;
     private TransactionDAO transactionDAO;
     private volatile boolean running;
@@ -20,6 +26,8 @@ public class TransactionEngine implements Runnable {
     
     public TransactionEngine() throws DatabaseConnectionException {
         this.transactionQueue = new LinkedBlockingQueue<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.listeners.add(FraudDetector.getInstance());
         this.accountDAO = new AccountDAO();
         this.transactionDAO = new TransactionDAO();
         this.running = false;
@@ -48,17 +56,28 @@ public class TransactionEngine implements Runnable {
         System.out.println("Transaction Engine stopped.");
     }
     
+    /**
+     * Register a listener for committed transactions
+     */
+    public void addListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+    
     /**
      * Submit a transaction for processing
+     * @return commit sequence; pass it to a DAO read to wait until the read includes this task
      */
-    public void submitTransaction(Transaction transaction, TransactionCallback callback) {
+    public long submitTransaction(Transaction transaction, TransactionCallback callback) {
+        long sequence = CommitBarrier.getInstance().next();
         try {
-            transactionQueue.put(new TransactionTask(transaction, callback));
+            transactionQueue.put(new TransactionTask(transaction, callback, sequence));
             System.out.println("Transaction queued: " + transaction.getTransactionType());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             System.err.println("Failed to queue transaction: " + e.getMessage());
+            CommitBarrier.getInstance().complete(sequence);
         }
+        return sequence;
     }
     
     @Override
@@ -69,7 +88,11 @@ public class TransactionEngine implements Runnable {
             try {
                 // Take transaction from queue (blocks if empty)
                 TransactionTask task = transactionQueue.take();
-                processTransaction(task);
+                try {
+                    processTransaction(task);
+                } finally {
+                    CommitBarrier.getInstance().complete(task.getSequence());
+                }
                 
             } catch (InterruptedException e) {
                 if (!running) {
@@ -79,6 +102,13 @@ public class TransactionEngine implements Runnable {
             }
         }
         
+        // Fail what is still queued so nobody waits on it
+        TransactionTask task;
+        while ((task = transactionQueue.poll()) != null) {
+            task.getCallback().onFailure("Transaction engine stopped");
+            CommitBarrier.getInstance().complete(task.getSequence());
+        }
+        
         System.out.println("Transaction Engine thread terminated.");
     }
     
@@ -106,9 +136,10 @@ public class TransactionEngine implements Runnable {
                 accountDAO.updateBalance(account.getAccountNumber(), account.getBalance());
                 
                 // Handle transfer (update destination account)
+                Account toAccount = null;
                 if (transaction instanceof Transfer) {
                     Transfer transfer = (Transfer) transaction;
-                    Account toAccount = accountDAO.findById(transfer.getToAccountNumber());
+                    toAccount = accountDAO.findById(transfer.getToAccountNumber());
                     if (toAccount != null) {
                         toAccount.deposit(transfer.getAmount());
                         accountDAO.updateBalance(toAccount.getAccountNumber(), toAccount.getBalance());
@@ -117,6 +148,14 @@ public class TransactionEngine implements Runnable {
                 
                 // Log transaction
                 transactionDAO.create(transaction);
+                notifyListeners(transaction);
+                
+                // Push the committed balances to open views
+                BalanceEventBus balanceEvents = BalanceEventBus.getInstance();
+                balanceEvents.publish(account);
+                if (toAccount != null) {
+                    balanceEvents.publish(toAccount);
+                }
                 
                 callback.onSuccess("Transaction completed successfully");
             } else {
@@ -129,6 +168,16 @@ public class TransactionEngine implements Runnable {
         }
     }
     
+    private void notifyListeners(Transaction transaction) {
+        for (TransactionListener listener : listeners) {
+            try {
+                listener.onCommitted(transaction);
+            } catch (RuntimeException e) {
+                System.err.println("Transaction listener failed: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Get queue size
      */
@@ -144,16 +193,25 @@ public class TransactionEngine implements Runnable {
         void onFailure(String error);
     }
     
+    /**
+     * Listener notified on the engine thread after a transaction is committed
+     */
+    public interface TransactionListener {
+        void onCommitted(Transaction transaction);
+    }
+    
     /**
      * Inner class to hold transaction and callback
      */
     private static class TransactionTask {
         private Transaction transaction;
         private TransactionCallback callback;
+        private long sequence;
         
-        public TransactionTask(Transaction transaction, TransactionCallback callback) {
+        public TransactionTask(Transaction transaction, TransactionCallback callback, long sequence) {
             this.transaction = transaction;
             this.callback = callback;
+            this.sequence = sequence;
         }
         
         public Transaction getTransaction() {
@@ -163,5 +221,9 @@ public class TransactionEngine implements Runnable {
         public TransactionCallback getCallback() {
             return callback;
         }
+        
+        public long getSequence() {
+            return sequence;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+package tools;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures requests/s and latency of a running headless API server (Main --headless)
+ * Logs in once, then a number of client threads each keep one request in flight for the
+ * given time: mostly account and history reads, plus a share of small deposits through the
+ * transaction engine. Requests/s and p50/p90/p99/max latency are reported per endpoint and
+ * overall, after a warm-up period that is not counted.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.ApiServerBenchmark
+ *        [baseUrl] [clients] [seconds] [writePercent] [username] [password]
+ * Defaults: http://127.0.0.1:8080, 64 clients, 10 s (plus 3 s warm-up), 10% writes,
+ *           john_doe / password123
+ */
+public class ApiServerBenchmark {
+    private static final String[] OPERATIONS = { "GET /api/accounts", "GET /api/accounts/{n}/transactions",
+                                                 "POST /api/transactions" };
+    private static final int WARMUP_SECONDS = 3;
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://127.0.0.1:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        String username = args.length > 4 ? args[4] : "john_doe";
+        String password = args.length > 5 ? args[5] : "password123";
+        
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        
+        String login = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")), null, 200);
+        String token = field(login, "token");
+        
+        String accounts = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts")).GET(), token, 200);
+        String accountNumber = field(accounts, "accountNumber");
+        if (accountNumber == null) {
+            String created = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"type\":\"CURRENT\",\"initialBalance\":1000}")),
+                token, 201);
+            accountNumber = field(created, "accountNumber");
+        }
+        System.out.printf("Target %s as %s, account %s%n", baseUrl, username, accountNumber);
+        System.out.printf("%d clients, %d s (after %d s warm-up), %d%% writes%n%n",
+                          clients, seconds, WARMUP_SECONDS, writePercent);
+        
+        long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        String account = accountNumber;
+        List<Client> workers = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Client worker = new Client(client, baseUrl, token, account, writePercent, warmupEnd, end);
+            worker.setName("BenchmarkClient-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        
+        Samples[] total = new Samples[OPERATIONS.length];
+        for (int i = 0; i < total.length; i++) {
+            total[i] = new Samples();
+        }
+        long failures = 0;
+        for (Client worker : workers) {
+            worker.join();
+            for (int i = 0; i < total.length; i++) {
+                total[i].addAll(worker.samples[i]);
+            }
+            failures += worker.failures;
+        }
+        
+        Samples all = new Samples();
+        System.out.printf("%-38s %10s %9s %8s %8s %8s %8s%n", "Endpoint", "requests", "req/s",
+                          "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            print(OPERATIONS[i], total[i], seconds);
+            all.addAll(total[i]);
+        }
+        print("All", all, seconds);
+        System.out.printf("%nFailed requests: %d%n", failures);
+    }
+    
+    private static void print(String name, Samples samples, int seconds) {
+        long[] sorted = samples.sorted();
+        System.out.printf("%-38s %10d %9.0f %8.2f %8.2f %8.2f %8.2f%n", name, sorted.length,
+                          sorted.length / (double) seconds, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                          percentile(sorted, 0.99), sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+    }
+    
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))] / 1e6;
+    }
+    
+    private static String send(HttpClient client, HttpRequest.Builder request, String token, int expectedStatus)
+            throws IOException, InterruptedException {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(request.header("Content-Type", "application/json").build(),
+                                                     HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+    
+    /**
+     * First string value of a field in a JSON reply; enough for the few fields used here
+     */
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"([^\"]*)\"").matcher(json);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+    
+    /**
+     * One client thread with its own latency samples per operation
+     */
+    private static final class Client extends Thread {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String token;
+        private final String accountNumber;
+        private final int writePercent;
+        private final long warmupEnd;
+        private final long end;
+        private final Samples[] samples = new Samples[OPERATIONS.length];
+        private long failures;
+        
+        Client(HttpClient client, String baseUrl, String token, String accountNumber, int writePercent,
+               long warmupEnd, long end) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.token = token;
+            this.accountNumber = accountNumber;
+            this.writePercent = writePercent;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new Samples();
+            }
+        }
+        
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int operation = random.nextInt(100) < writePercent ? 2 : random.nextInt(2);
+                try {
+                    switch (operation) {
+                        case 0:
+                            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts")).GET(), token, 200);
+                            break;
+                        case 1:
+                            send(client, HttpRequest.newBuilder(URI.create(
+                                baseUrl + "/api/accounts/" + accountNumber + "/transactions")).GET(), token, 200);
+                            break;
+                        default:
+                            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"type\":\"DEPOSIT\",\"account\":\"" +
+                                                                          accountNumber + "\",\"amount\":1}")),
+                                token, 200);
+                    }
+                    if (now >= warmupEnd) {
+                        samples[operation].add(System.nanoTime() - now);
+                    }
+                } catch (IOException e) {
+                    failures++;
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Growable array of latencies in nanoseconds
+     */
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+        
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package tools;
+
+import db.BatchLedger;
+import db.DBConnection;
+import exceptions.InsufficientFundsException;
+import model.Account;
+import model.Deposit;
+import model.Transaction;
+import model.Transfer;
+import model.Withdraw;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Applies an end-of-day file of deposits, withdrawals and transfers straight to the database
+ * The file is streamed in chunks: while one chunk is applied, the next is parsed and checked
+ * with Transaction.validate in parallel. Each chunk is evaluated in file order against the
+ * accounts' balances, then its ledger rows are written in account order and committed in one
+ * transaction together with a checkpoint (see BatchLedger). Applied records go to the results
+ * file and refused ones, with the reason, to the rejects file; a rerun of the same file after
+ * a crash truncates both back to the checkpoint and carries on after its last line.
+ * Run it while the application is stopped.
+ *
+ * Formats (one record per line; blank lines are skipped):
+ *   csv    type,account,amount[,toAccount]  with an optional header line starting with "type"
+ *   fixed  type (cols 1-8), account (9-18), amount (19-33), toAccount (34-43), space padded
+ * Types are DEPOSIT, WITHDRAW and TRANSFER.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.BatchFileProcessor <file>
+ *        [--format csv|fixed] [--results file] [--rejects file] [--chunk records] [--threads n]
+ * Defaults: format from the extension (.csv, otherwise fixed), <file>.results.csv and
+ *           <file>.rejects.csv, 20000 records per chunk, one thread per core
+ */
+public class BatchFileProcessor {
+    private static final int[] FIXED_COLUMNS = { 0, 8, 18, 33, 43 };
+    private static final int KEY_HEAD_BYTES = 64 * 1024;
+    
+    private final Path input;
+    private final boolean csv;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final String fileKey;
+    private final BatchLedger ledger;
+    private final Output results;
+    private final Output rejects;
+    private long lastLine;
+    private long applied;
+    private long rejected;
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: tools.BatchFileProcessor <file> [--format csv|fixed] [--results file] " +
+                               "[--rejects file] [--chunk records] [--threads n]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        String format = input.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? "csv" : "fixed";
+        Path resultsFile = Paths.get(args[0] + ".results.csv");
+        Path rejectsFile = Paths.get(args[0] + ".rejects.csv");
+        int chunkSize = 20000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--format": format = args[i + 1]; break;
+                case "--results": resultsFile = Paths.get(args[i + 1]); break;
+                case "--rejects": rejectsFile = Paths.get(args[i + 1]); break;
+                case "--chunk": chunkSize = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (!format.equals("csv") && !format.equals("fixed")) {
+            System.err.println("Unknown format: " + format);
+            System.exit(2);
+        }
+        
+        int status = 0;
+        try (BatchLedger ledger = new BatchLedger()) {
+            BatchFileProcessor processor = new BatchFileProcessor(input, format.equals("csv"), chunkSize,
+                                                                  threads, ledger, resultsFile, rejectsFile);
+            try {
+                processor.run();
+            } finally {
+                processor.close();
+            }
+        } catch (Exception e) {
+            System.err.println("Batch stopped: " + e.getMessage());
+            status = 1;
+        } finally {
+            DBConnection.getInstance().closeConnection();
+        }
+        System.exit(status);
+    }
+    
+    private BatchFileProcessor(Path input, boolean csv, int chunkSize, int threads, BatchLedger ledger,
+                               Path resultsFile, Path rejectsFile) throws Exception {
+        this.input = input;
+        this.csv = csv;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(threads);
+        this.fileKey = fileKey(input);
+        this.ledger = ledger;
+        
+        // Outputs past the checkpoint belong to a chunk that never committed
+        BatchLedger.Checkpoint checkpoint = ledger.getCheckpoint(fileKey);
+        if (checkpoint != null) {
+            lastLine = checkpoint.getLastLine();
+            applied = checkpoint.getApplied();
+            rejected = checkpoint.getRejected();
+            System.out.printf("Resuming %s after line %d (%d applied, %d rejected so far)%n",
+                              input, lastLine, applied, rejected);
+        }
+        this.results = new Output(resultsFile, checkpoint == null ? 0 : checkpoint.getResultsOffset(),
+                                  "line,transaction_id,account,type,amount,balance_after");
+        this.rejects = new Output(rejectsFile, checkpoint == null ? 0 : checkpoint.getRejectsOffset(),
+                                  "line,reason,record");
+    }
+    
+    private void run() throws Exception {
+        long started = System.nanoTime();
+        long skipped = lastLine;
+        long processed = 0;
+        
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            // Lines up to the checkpoint are already committed
+            long lineNumber = 0;
+            while (lineNumber < skipped && reader.readLine() != null) {
+                lineNumber++;
+            }
+            Chunk next = readChunk(reader, lineNumber);
+            CompletableFuture<Chunk> parsed = parseAsync(next);
+            while (!next.lines.isEmpty()) {
+                Chunk current = parsed.join();
+                next = readChunk(reader, current.endLine);
+                parsed = parseAsync(next);
+                
+                apply(current);
+                processed += current.records.size();
+                double seconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf("Line %d: %d applied, %d rejected (%.0f records/s)%n",
+                                  lastLine, applied, rejected, processed / seconds);
+            }
+        }
+        
+        double seconds = (System.nanoTime() - started) / 1e9;
+        if (processed == 0) {
+            System.out.println("Nothing left to apply in " + input);
+        }
+        System.out.printf("Done: %d records in %.1f s (%.0f records/s); %d applied, %d rejected in total%n",
+                          processed, seconds, processed / Math.max(seconds, 1e-9), applied, rejected);
+        System.out.println("Results: " + results.path + ", rejects: " + rejects.path);
+    }
+    
+    /**
+     * Read up to chunkSize non-blank lines after the given line number
+     */
+    private Chunk readChunk(BufferedReader reader, long lineNumber) throws IOException {
+        Chunk chunk = new Chunk();
+        String line;
+        while (chunk.lines.size() < chunkSize && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.trim().isEmpty()) {
+                chunk.lineNumbers.add(lineNumber);
+                chunk.lines.add(line);
+            }
+        }
+        chunk.endLine = lineNumber;
+        return chunk;
+    }
+    
+    /**
+     * Parse and validate a chunk's lines in parallel on the pool
+     */
+    private CompletableFuture<Chunk> parseAsync(Chunk chunk) {
+        return CompletableFuture.supplyAsync(() -> {
+            chunk.records = IntStream.range(0, chunk.lines.size()).parallel()
+                .mapToObj(i -> parse(chunk.lineNumbers.get(i), chunk.lines.get(i)))
+                .filter(record -> record != null)
+                .collect(Collectors.toList());
+            return chunk;
+        }, pool);
+    }
+    
+    /**
+     * One record, or null for a CSV header line
+     */
+    private Record parse(long lineNumber, String line) {
+        Record record = new Record(lineNumber, line);
+        String[] fields = csv ? line.split(",", -1) : fixedFields(line);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        if (csv && lineNumber == 1 && fields[0].equalsIgnoreCase("type")) {
+            return null;
+        }
+        if (fields.length < 3) {
+            record.reason = "Expected type, account and amount";
+            return record;
+        }
+        
+        double amount;
+        try {
+            amount = Double.parseDouble(fields[2]);
+        } catch (NumberFormatException e) {
+            amount = Double.NaN;
+        }
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            record.reason = "Amount is not a number: " + fields[2];
+            return record;
+        }
+        String toAccount = fields.length > 3 ? fields[3] : "";
+        
+        String description = "Batch " + input.getFileName() + " line " + lineNumber;
+        Transaction transaction;
+        switch (fields[0].toUpperCase(Locale.ROOT)) {
+            case "DEPOSIT":
+                transaction = new Deposit(fields[1], amount);
+                break;
+            case "WITHDRAW":
+                transaction = new Withdraw(fields[1], amount);
+                break;
+            case "TRANSFER":
+                transaction = new Transfer(fields[1], toAccount, amount);
+                description = "Transfer to " + toAccount + " (" + description + ")";
+                break;
+            default:
+                record.reason = "Unknown transaction type: " + fields[0];
+                return record;
+        }
+        try {
+            transaction.validate();
+        } catch (IllegalArgumentException e) {
+            record.reason = e.getMessage();
+            return record;
+        }
+        transaction.setDescription(description);
+        record.transaction = transaction;
+        return record;
+    }
+    
+    private static String[] fixedFields(String line) {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i + 1 < FIXED_COLUMNS.length && FIXED_COLUMNS[i] < line.length(); i++) {
+            fields.add(line.substring(FIXED_COLUMNS[i], Math.min(line.length(), FIXED_COLUMNS[i + 1])));
+        }
+        return fields.toArray(new String[0]);
+    }
+    
+    /**
+     * Apply a parsed chunk in one database transaction and record the outcome of every line
+     */
+    private void apply(Chunk chunk) throws Exception {
+        Set<String> accountNumbers = new HashSet<>();
+        for (Record record : chunk.records) {
+            if (record.transaction != null) {
+                accountNumbers.add(record.transaction.getAccountNumber());
+                if (record.transaction instanceof Transfer) {
+                    accountNumbers.add(((Transfer) record.transaction).getToAccountNumber());
+                }
+            }
+        }
+        
+        try {
+            Map<String, Account> accounts = ledger.begin(accountNumbers);
+            
+            // Balances move in file order, so a credit earlier in the file can cover a later debit
+            List<Record> done = new ArrayList<>();
+            Map<Account, Boolean> touched = new IdentityHashMap<>();
+            for (Record record : chunk.records) {
+                if (record.transaction != null && evaluate(record, accounts, touched)) {
+                    done.add(record);
+                }
+            }
+            
+            // Ledger rows are written grouped by account, in file order within each account
+            List<Record> byAccount = new ArrayList<>(done);
+            byAccount.sort(Comparator.comparing(record -> record.transaction.getAccountNumber()));
+            List<Transaction> transactions = new ArrayList<>(byAccount.size());
+            for (Record record : byAccount) {
+                transactions.add(record.transaction);
+            }
+            ledger.record(transactions, touched.keySet());
+            
+            long chunkApplied = 0;
+            long chunkRejected = 0;
+            for (Record record : chunk.records) {
+                if (record.transaction != null) {
+                    results.writer.write(record.line + "," + record.transaction.getTransactionId() + "," +
+                                         record.transaction.getAccountNumber() + "," +
+                                         record.transaction.getTransactionType() + "," +
+                                         String.format(Locale.ROOT, "%.2f,%.2f", record.transaction.getAmount(),
+                                                       record.balanceAfter) + "\n");
+                    chunkApplied++;
+                } else {
+                    rejects.writer.write(record.line + "," + csvField(record.reason) + "," +
+                                         csvField(record.text) + "\n");
+                    chunkRejected++;
+                }
+            }
+            results.sync();
+            rejects.sync();
+            
+            ledger.commit(new BatchLedger.Checkpoint(fileKey, input.getFileName().toString(), chunk.endLine,
+                                                     applied + chunkApplied, rejected + chunkRejected,
+                                                     results.size(), rejects.size()));
+            applied += chunkApplied;
+            rejected += chunkRejected;
+            lastLine = chunk.endLine;
+            results.mark();
+            rejects.mark();
+        } catch (Exception e) {
+            ledger.rollback();
+            results.reset();
+            rejects.reset();
+            throw e;
+        }
+    }
+    
+    /**
+     * Move the balances for one record, or turn it into a reject
+     * @return true if the record was applied
+     */
+    private static boolean evaluate(Record record, Map<String, Account> accounts, Map<Account, Boolean> touched) {
+        Transaction transaction = record.transaction;
+        Account source = accounts.get(transaction.getAccountNumber());
+        if (source == null) {
+            record.reject("Account not found: " + transaction.getAccountNumber());
+            return false;
+        }
+        try {
+            if (transaction instanceof Deposit) {
+                source.deposit(transaction.getAmount());
+            } else if (transaction instanceof Withdraw) {
+                source.withdraw(transaction.getAmount());
+            } else {
+                String toAccountNumber = ((Transfer) transaction).getToAccountNumber();
+                Account destination = accounts.get(toAccountNumber);
+                if (destination == null) {
+                    record.reject("Destination account not found: " + toAccountNumber);
+                    return false;
+                }
+                source.withdraw(transaction.getAmount());
+                destination.deposit(transaction.getAmount());
+                touched.put(destination, Boolean.TRUE);
+            }
+        } catch (InsufficientFundsException e) {
+            record.reject(e.getMessage());
+            return false;
+        }
+        touched.put(source, Boolean.TRUE);
+        record.balanceAfter = source.getBalance();
+        return true;
+    }
+    
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * Identifies a file across reruns: its name, size and a hash of its first 64 KB
+     */
+    private static String fileKey(Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] head = new byte[KEY_HEAD_BYTES];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+                length += read;
+            }
+        }
+        digest.update(head, 0, length);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return file.getFileName() + ":" + Files.size(file) + ":" + hex.substring(0, 16);
+    }
+    
+    private void close() {
+        pool.shutdown();
+        results.close();
+        rejects.close();
+    }
+    
+    /**
+     * A run of input lines and, once parsed, their records
+     */
+    private static final class Chunk {
+        final List<Long> lineNumbers = new ArrayList<>();
+        final List<String> lines = new ArrayList<>();
+        long endLine;
+        List<Record> records;
+    }
+    
+    /**
+     * One input record: a validated transaction, or the reason it was refused
+     */
+    private static final class Record {
+        final long line;
+        final String text;
+        Transaction transaction;
+        String reason;
+        double balanceAfter;
+        
+        Record(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+        
+        void reject(String reason) {
+            this.reason = reason;
+            this.transaction = null;
+        }
+    }
+    
+    /**
+     * Results or rejects file, kept in step with the committed checkpoint
+     */
+    private static final class Output {
+        final Path path;
+        final FileChannel channel;
+        final Writer writer;
+        long committed;
+        
+        Output(Path path, long offset, String header) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.channel.truncate(offset);
+            this.channel.position(channel.size());
+            this.writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                                                                    StandardCharsets.UTF_8), 64 * 1024);
+            if (channel.size() == 0) {
+                writer.write(header + "\n");
+            }
+            this.committed = offset;
+        }
+        
+        /**
+         * Flush to disk before the checkpoint that covers it is committed
+         */
+        void sync() throws IOException {
+            writer.flush();
+            channel.force(false);
+        }
+        
+        long size() throws IOException {
+            return channel.position();
+        }
+        
+        void mark() throws IOException {
+            committed = channel.position();
+        }
+        
+        /**
+         * Drop what was written for a chunk that did not commit
+         */
+        void reset() {
+            try {
+                writer.flush();
+                channel.truncate(committed);
+                channel.position(committed);
+            } catch (IOException e) {
+                System.err.println("Failed to reset " + path + ": " + e.getMessage());
+            }
+        }
+        
+        void close() {
+            try {
+                writer.flush();
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
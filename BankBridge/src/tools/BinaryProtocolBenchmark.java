@@ -0,0 +1,262 @@
+package tools;
+
+import server.BinaryProtocol;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures pipelined throughput and latency of a running binary protocol server
+ * (Main --headless). Each connection logs in, then a writer thread keeps up to
+ * [window] requests in flight (deposits of 1.00, or BALANCE reads for the given share)
+ * while a reader thread matches responses by correlation id. Requests/s and
+ * p50/p90/p99/max latency are reported after a warm-up period that is not counted.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.BinaryProtocolBenchmark
+ *        [host] [port] [connections] [window] [seconds] [readPercent] [username] [password]
+ * Defaults: 127.0.0.1 8081, 4 connections, 1000 in flight each, 10 s (plus 3 s warm-up),
+ *           0% reads, john_doe / password123
+ */
+public class BinaryProtocolBenchmark {
+    private static final int WARMUP_SECONDS = 3;
+    private static final int MAX_BATCH = 256;
+    
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8081;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int window = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int readPercent = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        String username = args.length > 6 ? args[6] : "john_doe";
+        String password = args.length > 7 ? args[7] : "password123";
+        
+        long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Client client = new Client(new InetSocketAddress(host, port), window, readPercent, warmupEnd, end);
+            client.login(username, password);
+            clients.add(client);
+        }
+        System.out.printf("Target %s:%d as %s, account %s%n", host, port, username, clients.get(0).account);
+        System.out.printf("%d connections x %d in flight, %d s (after %d s warm-up), %d%% reads%n%n",
+                          connections, window, seconds, WARMUP_SECONDS, readPercent);
+        for (Client client : clients) {
+            client.start();
+        }
+        
+        long[] latencies = new long[0];
+        long ok = 0;
+        long failed = 0;
+        for (Client client : clients) {
+            client.join();
+            latencies = concat(latencies, Arrays.copyOf(client.latencies, client.samples));
+            ok += client.ok;
+            failed += client.failed;
+        }
+        Arrays.sort(latencies);
+        
+        System.out.printf("Requests:   %d (%d OK, %d failed)%n", latencies.length, ok, failed);
+        System.out.printf("Throughput: %.0f requests/s%n", latencies.length / (double) seconds);
+        System.out.printf("Latency:    p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                          percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                          latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+    }
+    
+    private static long[] concat(long[] first, long[] second) {
+        long[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+    
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))] / 1e6;
+    }
+    
+    /**
+     * One pipelined connection: this thread writes requests, a second thread reads responses
+     */
+    private static final class Client extends Thread {
+        private final SocketChannel channel;
+        private final int windowSize;
+        private final Semaphore window;
+        private final long[] sentAt;
+        private final int mask;
+        private final int readPercent;
+        private final long warmupEnd;
+        private final long end;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BinaryProtocol.LENGTH_BYTES +
+                                                                BinaryProtocol.MAX_FRAME_BYTES);
+        private String account;
+        private int frameStart;
+        private long[] latencies = new long[1 << 16];
+        private int samples;
+        private long ok;
+        private long failed;
+        
+        Client(InetSocketAddress address, int window, int readPercent, long warmupEnd, long end) throws IOException {
+            this.channel = SocketChannel.open(address);
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.windowSize = window;
+            this.window = new Semaphore(window);
+            // Send times are kept in a ring indexed by correlation id, a few times larger than the window
+            this.sentAt = new long[Integer.highestOneBit(Math.max(1, window)) * 8];
+            this.mask = sentAt.length - 1;
+            this.readPercent = readPercent;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            this.in.flip();
+            setName("BinaryClient");
+        }
+        
+        void login(String username, String password) throws IOException {
+            beginRequest(BinaryProtocol.LOGIN, 0);
+            BinaryProtocol.putString(out, username);
+            BinaryProtocol.putString(out, password);
+            endRequest();
+            writeAll();
+            ByteBuffer response = readFrame();
+            byte status = response.get();
+            response.getLong();
+            if (status != BinaryProtocol.OK) {
+                throw new IOException("Login failed: " + BinaryProtocol.getString(response));
+            }
+            response.getInt();
+            response.get();
+            if (response.getShort() == 0) {
+                throw new IOException("User has no accounts; open one first (POST /api/accounts)");
+            }
+            account = BinaryProtocol.getString(response);
+        }
+        
+        @Override
+        public void run() {
+            Thread reader = new Thread(this::readResponses, "BinaryClientReader");
+            reader.start();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long correlationId = 1;
+            try {
+                while (System.nanoTime() < end) {
+                    window.acquire();
+                    int batch = 1 + drainPermits(MAX_BATCH - 1);
+                    for (int i = 0; i < batch; i++, correlationId++) {
+                        sentAt[(int) (correlationId & mask)] = System.nanoTime();
+                        if (random.nextInt(100) < readPercent) {
+                            beginRequest(BinaryProtocol.BALANCE, correlationId);
+                            BinaryProtocol.putString(out, account);
+                            out.putLong(0);
+                        } else {
+                            beginRequest(BinaryProtocol.DEPOSIT, correlationId);
+                            BinaryProtocol.putString(out, account);
+                            out.putDouble(1.0);
+                        }
+                        endRequest();
+                    }
+                    writeAll();
+                }
+                // Let the responses still in flight arrive, then stop the reader
+                window.tryAcquire(windowSize, 30, TimeUnit.SECONDS);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Client stopped: " + e.getMessage());
+            } finally {
+                try {
+                    channel.close();
+                    reader.join();
+                } catch (IOException | InterruptedException e) {
+                    // closing
+                }
+            }
+        }
+        
+        private int drainPermits(int max) {
+            int taken = 0;
+            while (taken < max && window.tryAcquire()) {
+                taken++;
+            }
+            return taken;
+        }
+        
+        private void readResponses() {
+            try {
+                while (true) {
+                    ByteBuffer response = readFrame();
+                    byte status = response.get();
+                    long correlationId = response.getLong();
+                    long now = System.nanoTime();
+                    long started = sentAt[(int) (correlationId & mask)];
+                    if (started >= warmupEnd && started < end) {
+                        if (samples == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, samples * 2);
+                        }
+                        latencies[samples++] = now - started;
+                        if (status == BinaryProtocol.OK) {
+                            ok++;
+                        } else {
+                            failed++;
+                        }
+                    }
+                    window.release();
+                }
+            } catch (IOException e) {
+                // connection closed at the end of the run
+            }
+        }
+        
+        private void beginRequest(byte opcode, long correlationId) {
+            frameStart = out.position();
+            out.putInt(0);
+            out.put(opcode);
+            out.putLong(correlationId);
+        }
+        
+        private void endRequest() {
+            out.putInt(frameStart, out.position() - frameStart - BinaryProtocol.LENGTH_BYTES);
+        }
+        
+        private void writeAll() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+        
+        /**
+         * Block until a whole frame is buffered and return a view of its body
+         */
+        private ByteBuffer readFrame() throws IOException {
+            while (true) {
+                if (in.remaining() >= BinaryProtocol.LENGTH_BYTES) {
+                    int length = in.getInt(in.position());
+                    if (in.remaining() >= BinaryProtocol.LENGTH_BYTES + length) {
+                        in.position(in.position() + BinaryProtocol.LENGTH_BYTES);
+                        ByteBuffer frame = in.slice();
+                        frame.limit(length);
+                        in.position(in.position() + length);
+                        return frame;
+                    }
+                }
+                in.compact();
+                int read = channel.read(in);
+                in.flip();
+                if (read < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+    }
+}
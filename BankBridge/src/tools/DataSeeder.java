@@ -0,0 +1,375 @@
+package tools;
+
+import db.AuditChain;
+import db.BulkLoader;
+import db.DBConnection;
+import db.SecurityUtil;
+import model.CurrentAccount;
+import model.EpochTime;
+import model.SavingsAccount;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills database/bank.db with benchmark-scale data: users, their accounts and years of
+ * transaction history, all consistent with each other (every balance equals its opening
+ * balance plus its history, and no account ever drops below its minimum balance).
+ *
+ * Distributions: 60% of users have one account, 30% two and 10% three; 60% of accounts are
+ * CURRENT. Activity per account follows a Zipf curve (--skew), volume grows over the period
+ * and dips at weekends, times of day follow business hours, and amounts are log-normal
+ * around $40. Debits that would overdraw an account are turned into deposits.
+ *
+ * Each day of history is generated on a worker thread (--threads); one writer adds the days
+ * in order through db.BulkLoader (bulk pragmas, batched prepared inserts, indexes rebuilt at
+ * the end), so transaction ids follow time like they do in production. Every seeded user has
+ * the password "password123" (hashed once). Run it with the application stopped, on a copy
+ * of the database you can throw away if the load is interrupted.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.DataSeeder [--users 100000]
+ *        [--transactions 5000000] [--years 2] [--skew 0.8] [--threads n] [--commit 50000]
+ *        [--seed 42] [--audit]
+ * --audit also hashes the new rows into the audit chain, which the application would
+ * otherwise do on its next start.
+ */
+public class DataSeeder {
+    private static final byte DEPOSIT = 0;
+    private static final byte WITHDRAW = 1;
+    private static final byte TRANSFER = 2;
+    private static final String[] TYPE_NAMES = { "DEPOSIT", "WITHDRAW", "TRANSFER" };
+    private static final double[] HOUR_WEIGHTS = {
+        0.2, 0.1, 0.1, 0.1, 0.1, 0.2, 0.4, 0.8, 1.2, 1.6, 1.7, 1.7,
+        1.8, 1.7, 1.6, 1.5, 1.4, 1.3, 1.1, 0.9, 0.7, 0.5, 0.4, 0.3
+    };
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Priya", "Wei"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Patel", "Chen"
+    };
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+    
+    private final long seed;
+    private final double skew;
+    private final double[] hourCumulative = new double[HOUR_WEIGHTS.length];
+    
+    // Accounts by index; account number = accountBase + index
+    private long accountBase;
+    private int[] accountUser;
+    private boolean[] savings;
+    private long[] accountCreated;
+    private double[] opening;
+    private double[] balance;
+    private int[] byActivity;
+    private double minSavings;
+    private double minCurrent;
+    
+    private DataSeeder(long seed, double skew) {
+        this.seed = seed;
+        this.skew = skew;
+        double sum = 0;
+        for (int i = 0; i < HOUR_WEIGHTS.length; i++) {
+            sum += HOUR_WEIGHTS[i];
+            hourCumulative[i] = sum;
+        }
+        for (int i = 0; i < hourCumulative.length; i++) {
+            hourCumulative[i] /= sum;
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int users = 100_000;
+        long transactions = 5_000_000;
+        int years = 2;
+        double skew = 0.8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int commitRows = 50_000;
+        long seed = 42;
+        boolean audit = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users": users = Integer.parseInt(args[++i]); break;
+                case "--transactions": transactions = Long.parseLong(args[++i]); break;
+                case "--years": years = Integer.parseInt(args[++i]); break;
+                case "--skew": skew = Double.parseDouble(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--commit": commitRows = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--audit": audit = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        
+        DataSeeder seeder = new DataSeeder(seed, skew);
+        long started = System.nanoTime();
+        try (BulkLoader loader = new BulkLoader(commitRows)) {
+            loader.begin();
+            seeder.run(loader, users, transactions, years, threads);
+            for (String step : loader.finish()) {
+                System.out.println("  " + step);
+            }
+        }
+        if (audit) {
+            long auditStarted = System.nanoTime();
+            long appended = AuditChain.getInstance().appendPending();
+            double seconds = (System.nanoTime() - auditStarted) / 1e9;
+            System.out.printf("Audit chain: %d records in %.1f s (%.0f/s)%n", appended, seconds, appended / seconds);
+            AuditChain.getInstance().close();
+        }
+        DBConnection.getInstance().closeConnection();
+        System.out.printf("Seeded in %.1f s; database/bank.db is now %.1f MB%n", (System.nanoTime() - started) / 1e9,
+                          Files.size(Paths.get("database/bank.db")) / 1048576.0);
+        System.exit(0);
+    }
+    
+    private void run(BulkLoader loader, int users, long transactions, int years, int threads) throws Exception {
+        long[] bases = loader.getKeyBases();
+        int userBase = (int) bases[0];
+        accountBase = Math.max(bases[1], 999_999_999L) + 1;
+        minSavings = new SavingsAccount("0", 1, 0).getMinimumBalance();
+        minCurrent = new CurrentAccount("0", 1, 0).getMinimumBalance();
+        
+        LocalDate end = LocalDate.now();
+        LocalDate start = end.minusYears(years);
+        long periodStart = EpochTime.toMicros(start.atStartOfDay());
+        
+        long phase = System.nanoTime();
+        createPopulation(loader, users, userBase, periodStart);
+        System.out.printf("Users: %d, accounts: %d (%.1f s)%n", users, accountUser.length,
+                          (System.nanoTime() - phase) / 1e9);
+        
+        phase = System.nanoTime();
+        long written = loadHistory(loader, transactions, start, end, threads);
+        double seconds = (System.nanoTime() - phase) / 1e9;
+        System.out.printf("Transactions: %d from %s to %s (%.1f s, %.0f rows/s)%n", written, start,
+                          end.minusDays(1), seconds, written / seconds);
+        
+        // Accounts go in last, with the balances their history produced
+        phase = System.nanoTime();
+        for (int i = 0; i < accountUser.length; i++) {
+            loader.addAccount(accountNumber(i), accountUser[i], savings[i] ? "SAVINGS" : "CURRENT",
+                              Math.round(balance[i] * 100) / 100.0, accountCreated[i], opening[i]);
+        }
+        loader.flush();
+        System.out.printf("Account balances written (%.1f s)%n", (System.nanoTime() - phase) / 1e9);
+    }
+    
+    /**
+     * Users and accounts, opened during the year before the history starts
+     */
+    private void createPopulation(BulkLoader loader, int users, int userBase, long periodStart) throws Exception {
+        Random random = new Random(seed);
+        String passwordHash = SecurityUtil.hashPassword("password123");
+        long year = 365L * 24 * MICROS_PER_HOUR;
+        
+        int[] owners = new int[users * 3];
+        int accounts = 0;
+        for (int i = 0; i < users; i++) {
+            int userId = userBase + 1 + i;
+            long createdAt = periodStart - year - (long) (random.nextDouble() * year);
+            String username = "user" + userId;
+            loader.addUser(userId, username, passwordHash,
+                           FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                           username + "@example.com", createdAt);
+            int roll = random.nextInt(10);
+            int count = roll < 6 ? 1 : roll < 9 ? 2 : 3;
+            for (int k = 0; k < count; k++) {
+                owners[accounts++] = userId;
+            }
+        }
+        
+        accountUser = Arrays.copyOf(owners, accounts);
+        savings = new boolean[accounts];
+        accountCreated = new long[accounts];
+        opening = new double[accounts];
+        balance = new double[accounts];
+        for (int i = 0; i < accounts; i++) {
+            savings[i] = random.nextInt(10) < 4;
+            accountCreated[i] = periodStart - (long) (random.nextDouble() * year);
+            double amount = Math.round(Math.exp(Math.log(2000) + random.nextGaussian()) * 100) / 100.0;
+            opening[i] = savings[i] ? Math.max(minSavings, amount) : amount;
+            balance[i] = opening[i];
+        }
+        
+        // Activity rank to account, so the busiest accounts are spread over the key range
+        byActivity = new int[accounts];
+        for (int i = 0; i < accounts; i++) {
+            byActivity[i] = i;
+        }
+        for (int i = accounts - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = byActivity[i];
+            byActivity[i] = byActivity[j];
+            byActivity[j] = swap;
+        }
+        loader.flush();
+    }
+    
+    /**
+     * Generate days in parallel and write them oldest first on this thread
+     */
+    private long loadHistory(BulkLoader loader, long transactions, LocalDate start, LocalDate end, int threads)
+            throws Exception {
+        int days = (int) (end.toEpochDay() - start.toEpochDay());
+        double[] weights = new double[days];
+        double weightSum = 0;
+        for (int d = 0; d < days; d++) {
+            DayOfWeek dayOfWeek = start.plusDays(d).getDayOfWeek();
+            double growth = 0.7 + 0.6 * d / Math.max(1, days - 1);
+            weights[d] = growth * (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY ? 0.6 : 1.0);
+            weightSum += weights[d];
+        }
+        // Rounded on the running total so the days add up to exactly the requested count
+        int[] counts = new int[days];
+        double cumulative = 0;
+        long assigned = 0;
+        for (int d = 0; d < days; d++) {
+            cumulative += weights[d];
+            long upTo = Math.round(transactions * cumulative / weightSum);
+            counts[d] = (int) (upTo - assigned);
+            assigned = upTo;
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        Deque<Future<Day>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        long written = 0;
+        long reportStarted = System.nanoTime();
+        try {
+            for (int d = 0; d < days; d++) {
+                while (submitted < days && submitted < d + 2 * threads + 1) {
+                    LocalDate date = start.plusDays(submitted);
+                    int count = counts[submitted];
+                    long daySeed = seed * 31 + submitted;
+                    pending.add(pool.submit(() -> generateDay(date, count, daySeed)));
+                    submitted++;
+                }
+                written += write(loader, pending.poll().get());
+                
+                LocalDate date = start.plusDays(d);
+                if (date.plusDays(1).getDayOfMonth() == 1 || d == days - 1) {
+                    double seconds = (System.nanoTime() - reportStarted) / 1e9;
+                    System.out.printf("  %s: %d transactions (%.0f rows/s)%n", date.toString().substring(0, 7),
+                                      written, written / seconds);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        loader.flush();
+        return written;
+    }
+    
+    /**
+     * One day of transactions in time order; accounts and amounts only, balances are checked on write
+     */
+    private Day generateDay(LocalDate date, int count, long daySeed) {
+        Random random = new Random(daySeed);
+        long dayStart = EpochTime.toMicros(date.atStartOfDay());
+        Day day = new Day(count);
+        for (int i = 0; i < count; i++) {
+            int hour = Arrays.binarySearch(hourCumulative, random.nextDouble());
+            hour = Math.min(hourCumulative.length - 1, hour >= 0 ? hour : -hour - 1);
+            day.timestamp[i] = dayStart + hour * MICROS_PER_HOUR + (long) (random.nextDouble() * MICROS_PER_HOUR);
+        }
+        Arrays.sort(day.timestamp);
+        
+        for (int i = 0; i < count; i++) {
+            day.account[i] = pickAccount(random);
+            int roll = random.nextInt(100);
+            day.type[i] = roll < 40 ? DEPOSIT : roll < 75 ? WITHDRAW : TRANSFER;
+            if (day.type[i] == TRANSFER) {
+                int to;
+                do {
+                    to = pickAccount(random);
+                } while (to == day.account[i] && accountUser.length > 1);
+                day.toAccount[i] = to;
+            }
+            double amount = Math.exp(Math.log(40) + 1.1 * random.nextGaussian());
+            day.amount[i] = Math.round(Math.min(25_000, Math.max(1, amount)) * 100) / 100.0;
+        }
+        return day;
+    }
+    
+    /**
+     * Zipf-distributed activity rank (continuous inverse CDF), mapped to an account
+     */
+    private int pickAccount(Random random) {
+        int n = accountUser.length;
+        double u = random.nextDouble();
+        double rank;
+        if (Math.abs(skew - 1.0) < 1e-9) {
+            rank = Math.pow(n + 1, u);
+        } else {
+            rank = Math.pow((Math.pow(n + 1, 1 - skew) - 1) * u + 1, 1 / (1 - skew));
+        }
+        return byActivity[Math.min(n - 1, Math.max(0, (int) rank - 1))];
+    }
+    
+    private int write(BulkLoader loader, Day day) throws Exception {
+        for (int i = 0; i < day.timestamp.length; i++) {
+            int account = day.account[i];
+            double amount = day.amount[i];
+            byte type = day.type[i];
+            if (type != DEPOSIT && balance[account] - amount < (savings[account] ? minSavings : minCurrent)) {
+                type = DEPOSIT;
+            }
+            String accountNumber = accountNumber(account);
+            switch (type) {
+                case DEPOSIT:
+                    balance[account] += amount;
+                    loader.addTransaction(accountNumber, TYPE_NAMES[type], amount, null, "Deposit to account",
+                                          day.timestamp[i]);
+                    break;
+                case WITHDRAW:
+                    balance[account] -= amount;
+                    loader.addTransaction(accountNumber, TYPE_NAMES[type], amount, null, "Withdrawal from account",
+                                          day.timestamp[i]);
+                    break;
+                default:
+                    String toAccount = accountNumber(day.toAccount[i]);
+                    balance[account] -= amount;
+                    balance[day.toAccount[i]] += amount;
+                    loader.addTransaction(accountNumber, TYPE_NAMES[type], amount, toAccount, "Transfer to " + toAccount,
+                                          day.timestamp[i]);
+            }
+        }
+        return day.timestamp.length;
+    }
+    
+    private String accountNumber(int index) {
+        return Long.toString(accountBase + index);
+    }
+    
+    /**
+     * Generated transactions of one day, as parallel arrays
+     */
+    private static final class Day {
+        final long[] timestamp;
+        final int[] account;
+        final int[] toAccount;
+        final byte[] type;
+        final double[] amount;
+        
+        Day(int count) {
+            this.timestamp = new long[count];
+            this.account = new int[count];
+            this.toAccount = new int[count];
+            this.type = new byte[count];
+            this.amount = new double[count];
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package tools;
+
+import threads.FraudDetector;
+import java.util.Random;
+
+/**
+ * Measures FraudDetector throughput against the transaction engine's peak rate
+ * Synthetic events (random accounts and amounts, with event time advancing at the
+ * engine's peak rate) are fed straight into the detector with the default rules, and the
+ * sustained events/s, ns per event and heap per tracked account are reported.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.FraudDetectorBenchmark
+ *        [events] [accounts] [enginePeakPerSecond]
+ * Defaults: 2,000,000 events, 100,000 accounts, 5,000 transactions/s
+ */
+public class FraudDetectorBenchmark {
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double peakRate = args.length > 2 ? Double.parseDouble(args[2]) : 5_000;
+        
+        String[] accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = String.format("ACC%010d", i);
+        }
+        
+        // Warm up the JIT on a throwaway detector
+        run(newDetector(), accountNumbers, Math.min(events, 200_000), peakRate, new Random(7));
+        
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        
+        FraudDetector detector = newDetector();
+        long start = System.nanoTime();
+        long alerts = run(detector, accountNumbers, events, peakRate, new Random(42));
+        long elapsed = System.nanoTime() - start;
+        
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        double perSecond = events * 1_000_000_000.0 / elapsed;
+        int tracked = detector.getTrackedAccounts();
+        
+        System.out.printf("%d events over %d accounts in %.1f ms%n", events, accounts, elapsed / 1_000_000.0);
+        System.out.printf("Throughput: %.0f events/s (%.0f ns/event)%n", perSecond, (double) elapsed / events);
+        System.out.printf("Alerts raised: %d%n", alerts);
+        System.out.printf("Accounts tracked: %d, about %d bytes each%n",
+                          tracked, tracked == 0 ? 0 : Math.max(0, heapAfter - heapBefore) / tracked);
+        System.out.printf("Headroom over engine peak of %.0f tx/s: %.0fx%n", peakRate, perSecond / peakRate);
+    }
+    
+    private static FraudDetector newDetector() {
+        return new FraudDetector(FraudDetector.Rule.parseAll(
+            "single-large=amount>10000,velocity-1m=1m:count>5,burst-1h=1h:sum>20000,daily-volume=24h:sum>50000"));
+    }
+    
+    private static long run(FraudDetector detector, String[] accountNumbers, int events, double rate, Random random) {
+        long alerts = 0;
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < events; i++) {
+            long time = start + (long) (i * 1000.0 / rate);
+            String account = accountNumbers[random.nextInt(accountNumbers.length)];
+            double amount = random.nextDouble() < 0.001 ? 15_000 : random.nextDouble() * 500;
+            alerts += detector.evaluate(account, amount, time).size();
+        }
+        return alerts;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package tools;
+
+import db.SecurityUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helps pick -Dbankbridge.password.iterations
+ * For each candidate PBKDF2 cost, logins are replayed at a fixed arrival rate against a
+ * verifier pool shaped like AuthenticationService, and the p50/p99 login latency
+ * (queue wait + verification) is reported. The recommended cost is the highest one
+ * whose p99 stays within the budget.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.PasswordCostBenchmark
+ *        [loginsPerSecond] [p99BudgetMillis] [seconds] [threads]
+ * Defaults: 20 logins/s, 250 ms, 5 s, one thread per core
+ */
+public class PasswordCostBenchmark {
+    private static final int[] COSTS = {50_000, 100_000, 210_000, 310_000, 600_000};
+    
+    public static void main(String[] args) throws Exception {
+        double rate = args.length > 0 ? Double.parseDouble(args[0]) : 20;
+        long budgetMillis = args.length > 1 ? Long.parseLong(args[1]) : 250;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        
+        System.out.printf("Peak rate %.1f logins/s, p99 budget %d ms, %d s per cost, %d verifier threads%n%n",
+                          rate, budgetMillis, seconds, threads);
+        System.out.printf("%10s %12s %12s %10s %10s %10s%n",
+                          "iterations", "hash ms", "max/s", "p50 ms", "p99 ms", "result");
+        
+        int recommended = -1;
+        for (int cost : COSTS) {
+            String stored = SecurityUtil.hashPassword("benchmark-password", cost);
+            double hashMillis = measureSingleHash(stored);
+            double capacity = threads * 1000.0 / hashMillis;
+            
+            double[] latencies = replay(stored, rate, seconds, threads);
+            double p50 = percentile(latencies, 0.50);
+            double p99 = percentile(latencies, 0.99);
+            boolean withinBudget = p99 <= budgetMillis;
+            if (withinBudget) {
+                recommended = cost;
+            }
+            System.out.printf("%10d %12.1f %12.1f %10.1f %10.1f %10s%n",
+                              cost, hashMillis, capacity, p50, p99, withinBudget ? "ok" : "over");
+        }
+        
+        System.out.println();
+        if (recommended > 0) {
+            System.out.println("Recommended: -Dbankbridge.password.iterations=" + recommended);
+        } else {
+            System.out.println("No candidate cost meets the budget; add verifier threads or raise the budget.");
+        }
+    }
+    
+    /**
+     * Median time of a single verification on an idle machine
+     */
+    private static double measureSingleHash(String stored) {
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 3; i++) {
+            SecurityUtil.verifyPassword("benchmark-password", stored);
+        }
+        double[] samples = new double[7];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            SecurityUtil.verifyPassword("benchmark-password", stored);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        return percentile(samples, 0.50);
+    }
+    
+    /**
+     * Submit logins at a fixed rate (open loop) and collect end-to-end latencies
+     */
+    private static double[] replay(String stored, double rate, int seconds, int threads) throws Exception {
+        int total = (int) Math.max(1, rate * seconds);
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                                         new ArrayBlockingQueue<>(total));
+        List<Future<Double>> results = new ArrayList<>(total);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long delay = scheduledAt - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            // Latency counts from the scheduled arrival, so a late submitter is not hidden
+            results.add(pool.submit(() -> {
+                SecurityUtil.verifyPassword("benchmark-password", stored);
+                return (System.nanoTime() - scheduledAt) / 1_000_000.0;
+            }));
+        }
+        
+        double[] latencies = new double[total];
+        for (int i = 0; i < total; i++) {
+            latencies[i] = results.get(i).get();
+        }
+        pool.shutdown();
+        return latencies;
+    }
+    
+    private static double percentile(double[] values, double fraction) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,664 @@
+package tools;
+
+import db.AccountDAO;
+import db.DBConnection;
+import db.SecurityUtil;
+import db.UserDAO;
+import model.Account;
+import model.CurrentAccount;
+import model.Deposit;
+import model.Transaction;
+import model.Transfer;
+import model.User;
+import model.Withdraw;
+import threads.TransactionEngine;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-loop load generator for sizing hardware: drives the TransactionEngine in-process, or
+ * a running headless API server (Main --headless), with a mix of deposits, withdrawals and
+ * transfers over accounts picked with a uniform, Zipfian or hot-spot skew.
+ *
+ * Requests arrive on a schedule (Poisson or evenly spaced) at each target rate in turn,
+ * whether or not earlier ones have finished, and are served by a fixed number of virtual
+ * users. Response time is measured from the scheduled start, so time spent waiting for a
+ * free virtual user or behind a stalled server is counted (no coordinated omission);
+ * service time, from the moment a virtual user picks the request up, is shown next to it.
+ * Each rate prints one row of the throughput/latency curve.
+ *
+ * Usage: java -cp "out:lib/sqlite-jdbc.jar" tools.WorkloadGenerator [--target engine|api]
+ *        [--url http://127.0.0.1:8080] [--username john_doe] [--password password123]
+ *        [--accounts 100] [--mix deposit=40,withdraw=30,transfer=30]
+ *        [--skew uniform|zipf:0.99|hotspot:10/90] [--rates 50,100,200,400]
+ *        [--duration 10] [--warmup 2] [--users 64] [--arrival poisson|fixed]
+ * --accounts opens accounts for the user (balance 1,000,000) until it has at least that many.
+ * hotspot:10/90 sends 90% of the operations to 10% of the accounts. The in-process engine
+ * uses database/bank.db of the working directory; its per-transaction console output is
+ * discarded during the run.
+ */
+public class WorkloadGenerator {
+    private static final double OPENING_BALANCE = 1_000_000.0;
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long END_OF_STEP = Long.MIN_VALUE;
+    
+    private final Target target;
+    private final List<String> accounts;
+    private final AccountPicker picker;
+    private final int[] mix;
+    private final int users;
+    private final boolean poisson;
+    
+    public static void main(String[] args) throws Exception {
+        String targetName = "engine";
+        String url = "http://127.0.0.1:8080";
+        String username = "john_doe";
+        String password = "password123";
+        int accountCount = 100;
+        String mixSpec = "deposit=40,withdraw=30,transfer=30";
+        String skew = "uniform";
+        String rates = "50,100,200,400";
+        int duration = 10;
+        int warmup = 2;
+        int users = 64;
+        String arrival = "poisson";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--target": targetName = value; break;
+                case "--url": url = value; break;
+                case "--username": username = value; break;
+                case "--password": password = value; break;
+                case "--accounts": accountCount = Integer.parseInt(value); break;
+                case "--mix": mixSpec = value; break;
+                case "--skew": skew = value; break;
+                case "--rates": rates = value; break;
+                case "--duration": duration = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--users": users = Integer.parseInt(value); break;
+                case "--arrival": arrival = value; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        
+        PrintStream console = System.out;
+        PrintStream errors = System.err;
+        Target target;
+        if (targetName.equals("api")) {
+            target = new ApiTarget(url, username, password);
+        } else if (targetName.equals("engine")) {
+            target = new EngineTarget(username);
+        } else {
+            throw new IllegalArgumentException("Unknown target: " + targetName);
+        }
+        
+        try {
+            List<String> accounts = target.prepareAccounts(accountCount);
+            if (accounts.size() < 2) {
+                throw new IllegalStateException("At least two accounts are needed");
+            }
+            // Hotness is spread over the accounts at random rather than following their creation order
+            Collections.shuffle(accounts, new Random(42));
+            WorkloadGenerator generator = new WorkloadGenerator(target, accounts, AccountPicker.parse(skew, accounts.size()),
+                                                                parseMix(mixSpec), users, arrival.equals("poisson"));
+            
+            console.printf("Target %s as %s: %d accounts, skew %s, mix %s%n", target, username, accounts.size(),
+                           skew, mixSpec);
+            console.printf("%d virtual users, %s arrivals, %d s per rate (after %d s warm-up)%n%n",
+                           users, arrival, duration, warmup);
+            console.printf("%9s %9s %8s %7s %7s %9s %9s %9s %9s %9s %9s%n", "target/s", "achieved", "ok", "failed",
+                           "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+            target.beforeRun();
+            for (String rate : rates.split(",")) {
+                generator.runStep(Double.parseDouble(rate.trim()), warmup, duration).print(console);
+            }
+        } finally {
+            target.close();
+            System.setOut(console);
+            System.setErr(errors);
+        }
+        System.exit(0);
+    }
+    
+    private WorkloadGenerator(Target target, List<String> accounts, AccountPicker picker, int[] mix, int users,
+                              boolean poisson) {
+        this.target = target;
+        this.accounts = accounts;
+        this.picker = picker;
+        this.mix = mix;
+        this.users = users;
+        this.poisson = poisson;
+    }
+    
+    /**
+     * Cumulative percentages of deposits, withdrawals and transfers
+     */
+    private static int[] parseMix(String spec) {
+        int[] weights = new int[3];
+        for (String part : spec.split(",")) {
+            String[] pair = part.split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            switch (pair[0].trim().toLowerCase(Locale.ROOT)) {
+                case "deposit": weights[0] = weight; break;
+                case "withdraw": weights[1] = weight; break;
+                case "transfer": weights[2] = weight; break;
+                default: throw new IllegalArgumentException("Unknown operation in mix: " + pair[0]);
+            }
+        }
+        int total = weights[0] + weights[1] + weights[2];
+        if (total <= 0) {
+            throw new IllegalArgumentException("Mix must have a positive weight");
+        }
+        return new int[] { weights[0] * 100 / total, (weights[0] + weights[1]) * 100 / total };
+    }
+    
+    /**
+     * Issue requests at one rate for warm-up plus duration seconds and collect the results
+     */
+    private Step runStep(double rate, int warmup, int duration) throws InterruptedException {
+        BlockingQueue<Long> arrivals = new LinkedBlockingQueue<>();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            VirtualUser user = new VirtualUser(arrivals, measureFrom, end);
+            user.setName("VirtualUser-" + i);
+            user.setDaemon(true);
+            user.start();
+            virtualUsers.add(user);
+        }
+        
+        // Schedule arrivals regardless of how many requests are still outstanding (open loop)
+        Random random = new Random();
+        double meanGapNanos = 1e9 / rate;
+        double next = start;
+        long issued = 0;
+        while (next < end) {
+            long due = (long) next;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            arrivals.add(due);
+            issued++;
+            next += poisson ? -Math.log(1.0 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+        for (int i = 0; i < users; i++) {
+            arrivals.add(END_OF_STEP);
+        }
+        
+        // Let the backlog drain; it belongs to this rate and its waiting time counts
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        Step step = new Step(rate, duration);
+        for (VirtualUser user : virtualUsers) {
+            user.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(drainDeadline - System.nanoTime())));
+        }
+        step.unfinished = arrivals.stream().filter(arrival -> arrival != END_OF_STEP).count();
+        arrivals.clear();
+        for (VirtualUser user : virtualUsers) {
+            user.interrupt();
+            user.join();
+            step.add(user);
+        }
+        step.unfinished += virtualUsers.stream().filter(user -> user.busy).count();
+        return step;
+    }
+    
+    private Operation nextOperation(ThreadLocalRandom random) {
+        String account = accounts.get(picker.next(random));
+        double amount = 1 + random.nextInt(10000) / 100.0;
+        int roll = random.nextInt(100);
+        if (roll < mix[0]) {
+            return new Operation("DEPOSIT", account, null, amount);
+        }
+        if (roll < mix[1]) {
+            return new Operation("WITHDRAW", account, null, amount);
+        }
+        String toAccount;
+        do {
+            toAccount = accounts.get(picker.next(random));
+        } while (toAccount.equals(account));
+        return new Operation("TRANSFER", account, toAccount, amount);
+    }
+    
+    /**
+     * Takes scheduled arrivals off the queue and runs them one at a time
+     */
+    private final class VirtualUser extends Thread {
+        private final BlockingQueue<Long> arrivals;
+        private final long measureFrom;
+        private final long end;
+        private final Samples response = new Samples();
+        private final Samples service = new Samples();
+        private long ok;
+        private long failed;
+        private long errors;
+        private long lastCompletion;
+        private volatile boolean busy;
+        
+        VirtualUser(BlockingQueue<Long> arrivals, long measureFrom, long end) {
+            this.arrivals = arrivals;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+        
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                while (true) {
+                    long intended = arrivals.take();
+                    if (intended == END_OF_STEP) {
+                        return;
+                    }
+                    busy = true;
+                    long started = System.nanoTime();
+                    Outcome outcome;
+                    try {
+                        outcome = target.execute(nextOperation(random));
+                    } catch (IOException e) {
+                        outcome = Outcome.ERROR;
+                    }
+                    long finished = System.nanoTime();
+                    busy = false;
+                    if (intended >= measureFrom && intended < end) {
+                        response.add(finished - intended);
+                        service.add(finished - started);
+                        lastCompletion = Math.max(lastCompletion, finished);
+                        switch (outcome) {
+                            case OK: ok++; break;
+                            case FAILED: failed++; break;
+                            default: errors++;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                // step abandoned after the drain timeout
+            }
+        }
+    }
+    
+    /**
+     * Results of one target rate
+     */
+    private static final class Step {
+        private final double rate;
+        private final int duration;
+        private final Samples response = new Samples();
+        private final Samples service = new Samples();
+        private long ok;
+        private long failed;
+        private long errors;
+        private long firstIntended = Long.MAX_VALUE;
+        private long lastCompletion;
+        private long unfinished;
+        
+        Step(double rate, int duration) {
+            this.rate = rate;
+            this.duration = duration;
+        }
+        
+        void add(VirtualUser user) {
+            response.addAll(user.response);
+            service.addAll(user.service);
+            ok += user.ok;
+            failed += user.failed;
+            errors += user.errors;
+            firstIntended = Math.min(firstIntended, user.measureFrom);
+            lastCompletion = Math.max(lastCompletion, user.lastCompletion);
+        }
+        
+        void print(PrintStream out) {
+            long[] responses = response.sorted();
+            long[] services = service.sorted();
+            // Completions over the time it took to finish them, so a backlog lowers the figure
+            double seconds = Math.max(duration, (lastCompletion - firstIntended) / 1e9);
+            out.printf("%9.0f %9.0f %8d %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", rate,
+                       responses.length / seconds, ok, failed, errors, percentile(responses, 0.50),
+                       percentile(responses, 0.90), percentile(responses, 0.99), percentile(responses, 0.999),
+                       responses.length == 0 ? 0.0 : responses[responses.length - 1] / 1e6,
+                       percentile(services, 0.99));
+            if (unfinished > 0) {
+                out.printf("          %d requests still unfinished after the drain timeout%n", unfinished);
+            }
+        }
+    }
+    
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))] / 1e6;
+    }
+    
+    /**
+     * Chooses an account index for each operation
+     */
+    private abstract static class AccountPicker {
+        
+        abstract int next(ThreadLocalRandom random);
+        
+        static AccountPicker parse(String spec, int accounts) {
+            if (spec.equals("uniform")) {
+                return new AccountPicker() {
+                    @Override
+                    int next(ThreadLocalRandom random) {
+                        return random.nextInt(accounts);
+                    }
+                };
+            }
+            if (spec.startsWith("zipf:")) {
+                return new ZipfPicker(accounts, Double.parseDouble(spec.substring(5)));
+            }
+            if (spec.startsWith("hotspot:")) {
+                String[] shares = spec.substring(8).split("/");
+                int hot = Math.max(1, (int) Math.round(accounts * Double.parseDouble(shares[0]) / 100));
+                double hotShare = Double.parseDouble(shares[1]) / 100;
+                return new AccountPicker() {
+                    @Override
+                    int next(ThreadLocalRandom random) {
+                        if (hot >= accounts || random.nextDouble() < hotShare) {
+                            return random.nextInt(Math.min(hot, accounts));
+                        }
+                        return hot + random.nextInt(accounts - hot);
+                    }
+                };
+            }
+            throw new IllegalArgumentException("Unknown skew: " + spec);
+        }
+    }
+    
+    /**
+     * Account of rank k is picked with probability proportional to 1 / k^exponent
+     */
+    private static final class ZipfPicker extends AccountPicker {
+        private final double[] cumulative;
+        
+        ZipfPicker(int accounts, double exponent) {
+            cumulative = new double[accounts];
+            double sum = 0;
+            for (int i = 0; i < accounts; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < accounts; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+        
+        @Override
+        int next(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+    
+    private static final class Operation {
+        final String type;
+        final String account;
+        final String toAccount;
+        final double amount;
+        
+        Operation(String type, String account, String toAccount, double amount) {
+            this.type = type;
+            this.account = account;
+            this.toAccount = toAccount;
+            this.amount = amount;
+        }
+    }
+    
+    /**
+     * OK: committed; FAILED: refused by the bank (e.g. insufficient funds); ERROR: anything else
+     */
+    private enum Outcome { OK, FAILED, ERROR }
+    
+    /**
+     * System under test
+     */
+    private interface Target extends AutoCloseable {
+        
+        /**
+         * The user's account numbers, after opening accounts until there are at least count
+         */
+        List<String> prepareAccounts(int count) throws Exception;
+        
+        default void beforeRun() {
+        }
+        
+        Outcome execute(Operation operation) throws IOException, InterruptedException;
+        
+        @Override
+        void close();
+    }
+    
+    /**
+     * TransactionEngine in this process, on database/bank.db
+     */
+    private static final class EngineTarget implements Target {
+        private final String username;
+        private final long timeoutMillis = Long.getLong("bankbridge.server.writeTimeoutMillis", 10000);
+        private TransactionEngine engine;
+        
+        EngineTarget(String username) {
+            this.username = username;
+        }
+        
+        @Override
+        public List<String> prepareAccounts(int count) throws Exception {
+            User user = new UserDAO().findByUsername(username);
+            if (user == null) {
+                throw new IllegalArgumentException("Unknown user: " + username);
+            }
+            AccountDAO accountDAO = new AccountDAO();
+            List<String> accounts = new ArrayList<>();
+            for (Account account : accountDAO.findByUserId(user.getUserId())) {
+                accounts.add(account.getAccountNumber());
+            }
+            while (accounts.size() < count) {
+                String accountNumber = SecurityUtil.generateAccountNumber();
+                accountDAO.create(new CurrentAccount(accountNumber, user.getUserId(), OPENING_BALANCE));
+                accounts.add(accountNumber);
+            }
+            engine = new TransactionEngine();
+            engine.start();
+            return accounts;
+        }
+        
+        @Override
+        public void beforeRun() {
+            // The engine logs every transaction and refusal; keep the console for the report
+            PrintStream discard = new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+                
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            });
+            System.setOut(discard);
+            System.setErr(discard);
+        }
+        
+        @Override
+        public Outcome execute(Operation operation) throws IOException, InterruptedException {
+            Transaction transaction;
+            switch (operation.type) {
+                case "DEPOSIT":
+                    transaction = new Deposit(operation.account, operation.amount);
+                    break;
+                case "WITHDRAW":
+                    transaction = new Withdraw(operation.account, operation.amount);
+                    break;
+                default:
+                    transaction = new Transfer(operation.account, operation.toAccount, operation.amount);
+            }
+            CompletableFuture<Outcome> result = new CompletableFuture<>();
+            engine.submitTransaction(transaction, new TransactionEngine.TransactionCallback() {
+                @Override
+                public void onSuccess(String message) {
+                    result.complete(Outcome.OK);
+                }
+                
+                @Override
+                public void onFailure(String error) {
+                    result.complete(Outcome.FAILED);
+                }
+            });
+            try {
+                return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                return Outcome.ERROR;
+            }
+        }
+        
+        @Override
+        public void close() {
+            if (engine != null) {
+                engine.stop();
+            }
+            try {
+                DBConnection.getInstance().closeConnection();
+            } catch (Exception e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "in-process TransactionEngine";
+        }
+    }
+    
+    /**
+     * Headless API server over HTTP/JSON
+     */
+    private static final class ApiTarget implements Target {
+        private static final Pattern ACCOUNT_NUMBER = Pattern.compile("\"accountNumber\":\"([^\"]*)\"");
+        private final String baseUrl;
+        private final HttpClient client;
+        private final String token;
+        
+        ApiTarget(String baseUrl, String username, String password) throws IOException, InterruptedException {
+            this.baseUrl = baseUrl;
+            this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+            HttpResponse<String> login = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")), null);
+            Matcher matcher = Pattern.compile("\"token\":\"([^\"]*)\"").matcher(login.body());
+            if (login.statusCode() != 200 || !matcher.find()) {
+                throw new IOException("Login failed: HTTP " + login.statusCode() + " " + login.body());
+            }
+            this.token = matcher.group(1);
+        }
+        
+        @Override
+        public List<String> prepareAccounts(int count) throws Exception {
+            HttpResponse<String> listed = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts")).GET(), token);
+            List<String> accounts = new ArrayList<>();
+            Matcher matcher = ACCOUNT_NUMBER.matcher(listed.body());
+            while (matcher.find()) {
+                accounts.add(matcher.group(1));
+            }
+            while (accounts.size() < count) {
+                HttpResponse<String> created = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/accounts"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"type\":\"CURRENT\",\"initialBalance\":" + OPENING_BALANCE + "}")), token);
+                Matcher number = ACCOUNT_NUMBER.matcher(created.body());
+                if (created.statusCode() != 201 || !number.find()) {
+                    throw new IOException("Failed to open account: HTTP " + created.statusCode() + " " + created.body());
+                }
+                accounts.add(number.group(1));
+            }
+            return accounts;
+        }
+        
+        @Override
+        public Outcome execute(Operation operation) throws IOException, InterruptedException {
+            String body = "{\"type\":\"" + operation.type + "\",\"account\":\"" + operation.account + "\"," +
+                          (operation.toAccount != null ? "\"toAccount\":\"" + operation.toAccount + "\"," : "") +
+                          "\"amount\":" + operation.amount + "}";
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)), token);
+            switch (response.statusCode()) {
+                case 200: return Outcome.OK;
+                case 422: return Outcome.FAILED;
+                default: return Outcome.ERROR;
+            }
+        }
+        
+        private HttpResponse<String> send(HttpRequest.Builder request, String bearer)
+                throws IOException, InterruptedException {
+            if (bearer != null) {
+                request.header("Authorization", "Bearer " + bearer);
+            }
+            return client.send(request.header("Content-Type", "application/json").build(),
+                               HttpResponse.BodyHandlers.ofString());
+        }
+        
+        @Override
+        public void close() {
+        }
+        
+        @Override
+        public String toString() {
+            return "API " + baseUrl;
+        }
+    }
+    
+    /**
+     * Growable array of latencies in nanoseconds
+     */
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+        
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}